@@ -0,0 +1,62 @@
+-- Migration: Daily statistics rollups (GET /api/statistics/timeseries)
+-- One row per (kind, day, status, entreprise, validation status), maintained on every write
+-- by StatisticsRollupService. 0 stands for "no status" / "no entreprise".
+--   CREATED: signalements reported that day (by their current status/entreprise/validation)
+--   ENTERED: status history entries recorded that day (by the status entered), by the
+--            entreprise/validation/budget/surface stored on the entry (signalement_status.rollup_*),
+--            which StatisticsRollupService moves along when the signalement changes
+-- The backfill below can be replayed at any time with POST /api/statistics/timeseries/rebuild.
+
+CREATE TABLE IF NOT EXISTS signalement_daily_rollup (
+    id BIGSERIAL PRIMARY KEY,
+    kind VARCHAR(16) NOT NULL,
+    bucket_date DATE NOT NULL,
+    status_id BIGINT NOT NULL,
+    entreprise_id BIGINT NOT NULL,
+    validation_status VARCHAR(50) NOT NULL,
+    item_count BIGINT NOT NULL,
+    budget NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    surface NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    CONSTRAINT uk_signalement_daily_rollup
+        UNIQUE (kind, bucket_date, status_id, entreprise_id, validation_status)
+);
+
+-- Time-series reads scan one kind over a date range
+CREATE INDEX IF NOT EXISTS idx_signalement_daily_rollup_kind_date
+    ON signalement_daily_rollup (kind, bucket_date);
+
+INSERT INTO signalement_daily_rollup
+    (kind, bucket_date, status_id, entreprise_id, validation_status, item_count, budget, surface)
+SELECT 'CREATED', CAST(s.date_signalement AS DATE), COALESCE(s.status_id, 0), COALESCE(s.entreprise_id, 0),
+       COALESCE(vs.name, 'PENDING'), COUNT(*), COALESCE(SUM(s.budget), 0), COALESCE(SUM(s.surface_area), 0)
+FROM signalement s
+LEFT JOIN validation v ON v.signalement_id = s.id
+LEFT JOIN validation_status vs ON vs.id = v.validation_status_id
+WHERE s.date_signalement IS NOT NULL
+GROUP BY 1, 2, 3, 4, 5
+ON CONFLICT (kind, bucket_date, status_id, entreprise_id, validation_status) DO NOTHING;
+
+ALTER TABLE signalement_status ADD COLUMN IF NOT EXISTS rollup_entreprise_id BIGINT;
+ALTER TABLE signalement_status ADD COLUMN IF NOT EXISTS rollup_validation_status VARCHAR(50);
+ALTER TABLE signalement_status ADD COLUMN IF NOT EXISTS rollup_budget NUMERIC(19, 2);
+ALTER TABLE signalement_status ADD COLUMN IF NOT EXISTS rollup_surface_area NUMERIC(19, 2);
+
+-- Existing entries start in the bucket of the signalement's current values
+UPDATE signalement_status ss
+SET rollup_entreprise_id = s.entreprise_id,
+    rollup_validation_status = COALESCE(vs.name, 'PENDING'),
+    rollup_budget = s.budget,
+    rollup_surface_area = s.surface_area
+FROM signalement s
+LEFT JOIN validation v ON v.signalement_id = s.id
+LEFT JOIN validation_status vs ON vs.id = v.validation_status_id
+WHERE s.id = ss.signalement_id AND ss.rollup_validation_status IS NULL;
+
+INSERT INTO signalement_daily_rollup
+    (kind, bucket_date, status_id, entreprise_id, validation_status, item_count, budget, surface)
+SELECT 'ENTERED', CAST(ss.date_status AS DATE), ss.status_id, COALESCE(ss.rollup_entreprise_id, 0),
+       COALESCE(ss.rollup_validation_status, 'PENDING'), COUNT(*),
+       COALESCE(SUM(ss.rollup_budget), 0), COALESCE(SUM(ss.rollup_surface_area), 0)
+FROM signalement_status ss
+GROUP BY 1, 2, 3, 4, 5
+ON CONFLICT (kind, bucket_date, status_id, entreprise_id, validation_status) DO NOTHING;
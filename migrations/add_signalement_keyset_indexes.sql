@@ -0,0 +1,14 @@
+-- Migration: Indexes for the keyset-paginated listing (GET /api/signalements?limit=...)
+-- Pages are read in (date_signalement DESC NULLS LAST, id DESC) order and seek past the last
+-- (date_signalement, id) pair, so each page is an index range scan instead of a full scan.
+-- Undated rows come last, matching the PostgreSQL index order declared below.
+
+CREATE INDEX IF NOT EXISTS idx_signalement_date_id
+    ON signalement(date_signalement DESC NULLS LAST, id DESC);
+
+-- Same ordering, prefixed by the most common equality filters
+CREATE INDEX IF NOT EXISTS idx_signalement_status_date_id
+    ON signalement(status_id, date_signalement DESC NULLS LAST, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_signalement_entreprise_date_id
+    ON signalement(entreprise_id, date_signalement DESC NULLS LAST, id DESC);
@@ -0,0 +1,8 @@
+-- Migration: Photos stockées hors de la table signalement (stockage adressé par SHA-256).
+-- signalement_photo référence le contenu ; photo_url pointe vers /api/photos/{hash}.
+ALTER TABLE signalement_photo ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE signalement_photo ADD COLUMN IF NOT EXISTS content_type VARCHAR(100);
+ALTER TABLE signalement_photo ADD COLUMN IF NOT EXISTS size_bytes BIGINT;
+
+CREATE INDEX IF NOT EXISTS idx_signalement_photo_signalement ON signalement_photo (signalement_id);
+CREATE INDEX IF NOT EXISTS idx_signalement_photo_content_hash ON signalement_photo (content_hash);
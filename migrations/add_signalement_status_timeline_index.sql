@@ -0,0 +1,6 @@
+-- Migration: Index for the treatment timeline (StatisticsService)
+-- The timeline reads the first date each signalement entered a given status in a single
+-- GROUP BY pass; this covering index serves it without touching the heap.
+
+CREATE INDEX IF NOT EXISTS idx_signalement_status_sig_status_date
+    ON signalement_status (signalement_id, status_id, date_status);
@@ -0,0 +1,6 @@
+-- Migration: Content hash of the Firestore fields last synchronised for each signalement
+-- Written by FirebaseSignalementSyncService on import and export; the same value is stored in the
+-- Firestore document as syncHash. NULL until the next synchronisation of the row.
+
+ALTER TABLE signalement
+ADD COLUMN IF NOT EXISTS sync_hash VARCHAR(64);
@@ -0,0 +1,36 @@
+-- Migration: Denormalized treatment timeline on signalement
+-- Maintained by TreatmentTimelineService whenever signalement_status changes, so that
+-- GET /api/statistics/treatments can page through an index instead of re-aggregating history.
+-- Status 2 = EN_COURS (start of works), 3 = TERMINE (end of works).
+
+ALTER TABLE signalement ADD COLUMN IF NOT EXISTS date_debut_travaux TIMESTAMP;
+ALTER TABLE signalement ADD COLUMN IF NOT EXISTS date_fin_travaux TIMESTAMP;
+ALTER TABLE signalement ADD COLUMN IF NOT EXISTS treatment_days BIGINT;
+
+UPDATE signalement s
+SET date_debut_travaux = t.debut,
+    date_fin_travaux = t.fin,
+    treatment_days = CASE
+        WHEN t.debut IS NOT NULL AND t.fin IS NOT NULL
+        -- TRUNC, not FLOOR: rounds toward zero like Duration.toDays() in TreatmentTimelineService,
+        -- so a TERMINE dated before EN_COURS gets the same (negative) value as a live update
+        THEN TRUNC(EXTRACT(EPOCH FROM (t.fin - t.debut)) / 86400)
+    END
+FROM (
+    SELECT signalement_id,
+           MIN(date_status) FILTER (WHERE status_id = 2) AS debut,
+           MIN(date_status) FILTER (WHERE status_id = 3) AS fin
+    FROM signalement_status
+    GROUP BY signalement_id
+) t
+WHERE t.signalement_id = s.id;
+
+-- One index per sort order of the treatment table (keyset on (key, id))
+CREATE INDEX IF NOT EXISTS idx_signalement_treatment_days
+    ON signalement (treatment_days DESC NULLS LAST, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_signalement_debut_travaux
+    ON signalement (date_debut_travaux DESC NULLS LAST, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_signalement_status_id_desc
+    ON signalement (status_id ASC NULLS LAST, id DESC);
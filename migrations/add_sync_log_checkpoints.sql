@@ -0,0 +1,30 @@
+-- Migration: Resumable synchronisation jobs in sync_log (POST /api/admin/firebase/sync/signalements[/reverse])
+-- Each run is a sync_log row created as 'running' and checkpointed after every page: the cursor of the
+-- last fully applied page and the counters so far. A run that crashes, fails or is cancelled keeps its
+-- row and the next run of the same direction resumes from the cursor instead of starting over.
+
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS mode VARCHAR(20);
+-- Incremental runs: the watermark the run started from, so a resumed run replays the same queries
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS since_watermark TIMESTAMP WITH TIME ZONE;
+-- Query being paged: 'all' (full), 'updated' then 'legacy' (incremental), 'export' (local -> Firebase)
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS phase VARCHAR(20);
+-- Firestore cursor: document id of the last applied page, with its orderBy value (updatedAt or createdAt)
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS cursor_doc_id VARCHAR(128);
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS cursor_time TIMESTAMP WITH TIME ZONE;
+-- Local cursor: last exported signalement id
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS cursor_local_id BIGINT;
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS created_count INT NOT NULL DEFAULT 0;
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS updated_count INT NOT NULL DEFAULT 0;
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS skipped_count INT NOT NULL DEFAULT 0;
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS error_count INT NOT NULL DEFAULT 0;
+-- Watermark bounds gathered so far, so a resumed run advances the watermark as an uninterrupted one
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS max_applied_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS min_failed_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS checkpoint_at TIMESTAMP;
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS finished_at TIMESTAMP;
+
+ALTER TABLE sync_log DROP CONSTRAINT IF EXISTS chk_sync_status;
+ALTER TABLE sync_log ADD CONSTRAINT chk_sync_status
+    CHECK (status IN ('running', 'success', 'error', 'partial', 'cancelled', 'superseded'));
+
+CREATE INDEX IF NOT EXISTS idx_sync_log_direction_status ON sync_log(direction, status);
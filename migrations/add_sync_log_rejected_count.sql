@@ -0,0 +1,5 @@
+-- Migration: Rejected documents in sync_log
+-- Firestore documents whose content cannot be applied (missing or mistyped field) are counted apart
+-- from errors: they no longer hold the watermark back and are only read again once modified.
+
+ALTER TABLE sync_log ADD COLUMN IF NOT EXISTS rejected_count INT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- Migration: Incremental Firebase -> local synchronisation (POST /api/admin/firebase/sync/signalements)
+-- One row per sync direction: the Firestore updatedAt up to which every document has been applied.
+-- No backfill: without a row the next run reads the whole collection once and records the watermark.
+
+CREATE TABLE IF NOT EXISTS sync_watermark (
+    name VARCHAR(64) PRIMARY KEY,
+    watermark TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
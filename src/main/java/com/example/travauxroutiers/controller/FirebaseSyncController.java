@@ -1,7 +1,9 @@
 package com.example.travauxroutiers.controller;
 
+import com.example.travauxroutiers.model.SyncLog;
 import com.example.travauxroutiers.service.FirebaseSignalementSyncService;
 import com.example.travauxroutiers.service.FirebaseUserSyncService;
+import com.example.travauxroutiers.service.SyncJobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.context.annotation.Profile;
@@ -18,42 +20,82 @@ public class FirebaseSyncController {
 
     private final FirebaseSignalementSyncService syncService;
     private final FirebaseUserSyncService userSyncService;
+    private final SyncJobService syncJobs;
 
-    public FirebaseSyncController(FirebaseSignalementSyncService syncService, FirebaseUserSyncService userSyncService) {
+    public FirebaseSyncController(FirebaseSignalementSyncService syncService, FirebaseUserSyncService userSyncService,
+            SyncJobService syncJobs) {
         this.syncService = syncService;
         this.userSyncService = userSyncService;
+        this.syncJobs = syncJobs;
     }
 
     @PostMapping("/sync/signalements")
-    @Operation(summary = "Synchroniser Firebase → Local (signalements)")
-    public ResponseEntity<?> syncSignalements(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey) {
+    @Operation(summary = "Synchroniser Firebase → Local (signalements modifiés depuis le dernier passage, ou tous avec full=true)")
+    public ResponseEntity<?> syncSignalements(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey,
+            @RequestParam(value = "full", required = false, defaultValue = "false") boolean full) {
         String expected = System.getenv("ADMIN_API_KEY");
         if (expected == null || expected.isEmpty() || adminKey == null || !adminKey.equals(expected)) {
             return ResponseEntity.status(403).body(Map.of("message", "forbidden"));
         }
 
         try {
-            return ResponseEntity.ok(syncService.syncSignalements());
+            return ResponseEntity.ok(syncService.syncSignalements(full));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("success", false, "message", e.getMessage()));
         }
     }
 
     @PostMapping("/sync/signalements/reverse")
-    @Operation(summary = "Synchroniser Local → Firebase (signalements)")
-    public ResponseEntity<?> syncLocalToFirebase(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey) {
+    @Operation(summary = "Synchroniser Local → Firebase (signalements modifiés, ou tous avec full=true)")
+    public ResponseEntity<?> syncLocalToFirebase(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey,
+            @RequestParam(value = "full", required = false, defaultValue = "false") boolean full) {
         String expected = System.getenv("ADMIN_API_KEY");
         if (expected == null || expected.isEmpty() || adminKey == null || !adminKey.equals(expected)) {
             return ResponseEntity.status(403).body(Map.of("message", "forbidden"));
         }
 
         try {
-            return ResponseEntity.ok(syncService.syncLocalToFirebase());
+            return ResponseEntity.ok(syncService.syncLocalToFirebase(full));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("success", false, "message", e.getMessage()));
         }
     }
 
+    @PostMapping("/sync/signalements/cancel")
+    @Operation(summary = "Interrompre la synchro Firebase → Local en cours (reprise au prochain passage)")
+    public ResponseEntity<?> cancelSyncSignalements(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey) {
+        return cancel(adminKey, SyncLog.FIREBASE_TO_LOCAL);
+    }
+
+    @PostMapping("/sync/signalements/reverse/cancel")
+    @Operation(summary = "Interrompre la synchro Local → Firebase en cours (reprise au prochain passage)")
+    public ResponseEntity<?> cancelSyncLocalToFirebase(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey) {
+        return cancel(adminKey, SyncLog.LOCAL_TO_FIREBASE);
+    }
+
+    private ResponseEntity<?> cancel(String adminKey, String direction) {
+        String expected = System.getenv("ADMIN_API_KEY");
+        if (expected == null || expected.isEmpty() || adminKey == null || !adminKey.equals(expected)) {
+            return ResponseEntity.status(403).body(Map.of("message", "forbidden"));
+        }
+
+        if (!syncService.requestCancel(direction)) {
+            return ResponseEntity.status(409).body(Map.of("success", false, "message", "no-running-sync"));
+        }
+        return ResponseEntity.accepted().body(Map.of("success", true, "direction", direction));
+    }
+
+    @GetMapping("/sync/jobs")
+    @Operation(summary = "Derniers passages de synchronisation (sync_log) avec leur point de reprise")
+    public ResponseEntity<?> syncJobs(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey) {
+        String expected = System.getenv("ADMIN_API_KEY");
+        if (expected == null || expected.isEmpty() || adminKey == null || !adminKey.equals(expected)) {
+            return ResponseEntity.status(403).body(Map.of("message", "forbidden"));
+        }
+
+        return ResponseEntity.ok(syncJobs.recent());
+    }
+
     @PostMapping("/sync/users")
     @Operation(summary = "Synchroniser Local → Firebase (utilisateurs)")
     public ResponseEntity<?> syncUsersToFirebase(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey) {
@@ -0,0 +1,230 @@
+package com.example.travauxroutiers.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.travauxroutiers.model.SignalementPhoto;
+import com.example.travauxroutiers.service.PhotoRenditionService;
+import com.example.travauxroutiers.service.PhotoStorageService;
+import com.example.travauxroutiers.service.SignalementPhotoService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api")
+@Tag(name = "Photos", description = "Stockage et diffusion des photos de signalements")
+public class PhotoController {
+    private static final Logger logger = LoggerFactory.getLogger(PhotoController.class);
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    /** Original servi à la place d'une déclinaison pas encore prête : à redemander bientôt. */
+    private static final String PROVISIONAL = "public, max-age=60";
+
+    private final SignalementPhotoService photoService;
+    private final PhotoStorageService storage;
+    private final PhotoRenditionService renditionService;
+
+    public PhotoController(SignalementPhotoService photoService, PhotoStorageService storage,
+            PhotoRenditionService renditionService) {
+        this.photoService = photoService;
+        this.storage = storage;
+        this.renditionService = renditionService;
+    }
+
+    /**
+     * Le corps de la requête est l'image brute ; il est écrit sur disque en flux, sans tampon complet.
+     * Seuls JPEG, PNG, GIF et WebP sont acceptés, reconnus sur le contenu (l'en-tête Content-Type
+     * du client est ignoré).
+     */
+    @PostMapping("/signalements/{id}/photos")
+    @Operation(summary = "Ajouter une photo à un signalement (corps = image brute JPEG, PNG, GIF ou WebP)")
+    public ResponseEntity<?> upload(@PathVariable Long id, HttpServletRequest request) {
+        try (InputStream in = request.getInputStream()) {
+            SignalementPhoto photo = photoService.upload(id, in);
+            return ResponseEntity.status(201).body(photo);
+        } catch (IllegalArgumentException e) {
+            if ("signalement-not-found".equals(e.getMessage())) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Photo upload failed for signalement {}", id, e);
+            return ResponseEntity.status(500).body(Map.of("message", "upload-failed"));
+        }
+    }
+
+    @GetMapping("/signalements/{id}/photos")
+    @Operation(summary = "Lister les photos d'un signalement")
+    public List<SignalementPhoto> list(@PathVariable Long id) {
+        return photoService.list(id);
+    }
+
+    /**
+     * Diffusion d'une photo. Le contenu est immuable (adressé par son SHA-256) : cache d'un an,
+     * ETag = hash. Supporte une plage unique (Range: bytes=a-b) et transfère le fichier sans
+     * copie en mémoire (sendfile de Tomcat si disponible, sinon FileChannel.transferTo).
+     * Avec {@code size=thumb|medium}, sert la déclinaison réduite ; tant qu'elle n'est pas
+     * générée, l'original est servi avec un cache court et la génération est relancée. Une photo
+     * dont aucune déclinaison ne peut être tirée est servie en original, comme contenu définitif.
+     */
+    @RequestMapping(value = "/photos/{hash}", method = { RequestMethod.GET, RequestMethod.HEAD })
+    @Operation(summary = "Télécharger une photo ou une déclinaison (size=thumb|medium, Range supporté)")
+    public void download(@PathVariable String hash,
+            @RequestParam(value = "size", required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path original = storage.resolve(hash);
+        if (original == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (size != null && !size.isBlank() && !"original".equalsIgnoreCase(size)) {
+            PhotoRenditionService.Rendition rendition = PhotoRenditionService.Rendition.fromName(size.trim());
+            if (rendition == null) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "invalid-size");
+                return;
+            }
+            Path file = storage.resolveRendition(hash, rendition.getName());
+            if (file != null) {
+                serve(file, "image/jpeg", "\"" + hash + "-" + rendition.getName() + "\"", IMMUTABLE,
+                        request, response);
+                return;
+            }
+            if (storage.hasNoRenditions(hash)) {
+                serve(original, photoService.contentTypeOf(hash), "\"" + hash + "\"", IMMUTABLE, request, response);
+                return;
+            }
+            renditionService.schedule(hash);
+            serve(original, photoService.contentTypeOf(hash), "\"" + hash + "\"", PROVISIONAL, request, response);
+            return;
+        }
+
+        serve(original, photoService.contentTypeOf(hash), "\"" + hash + "\"", IMMUTABLE, request, response);
+    }
+
+    /**
+     * Seules les images acceptées par le stockage sont servies telles quelles ; tout autre type
+     * enregistré (photos déposées avant le contrôle du contenu) part en pièce jointe opaque, et
+     * le navigateur ne doit jamais deviner le type : rien n'est exécuté sur l'origine de l'API.
+     */
+    private static void serve(Path file, String contentType, String etag, String cacheControl,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader("Content-Security-Policy", "default-src 'none'; sandbox");
+        boolean image = contentType != null && PhotoStorageService.IMAGE_TYPES.contains(contentType);
+        response.setHeader("Content-Disposition", image ? "inline" : "attachment");
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", cacheControl);
+        response.setHeader("Accept-Ranges", "bytes");
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(image ? contentType : "application/octet-stream");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length - 1;
+
+            String range = request.getHeader("Range");
+            if (range != null) {
+                long[] r = parseRange(range, length);
+                if (r == null) {
+                    response.setHeader("Content-Range", "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = r[0];
+                end = r[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+
+            long count = end - start + 1;
+            response.setContentLengthLong(count);
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // Tomcat envoie le fichier lui-même (sendfile), après le retour du contrôleur
+                request.setAttribute("org.apache.tomcat.sendfile.filename", file.toString());
+                request.setAttribute("org.apache.tomcat.sendfile.start", start);
+                request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (count > 0) {
+                long sent = channel.transferTo(position, count, out);
+                if (sent <= 0) break;
+                position += sent;
+                count -= sent;
+            }
+        }
+    }
+
+    /** Plage unique "bytes=a-b", "bytes=a-" ou "bytes=-n" ; null si non satisfiable. */
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0 || length == 0) return null;
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            String a = spec.substring(0, dash).trim();
+            String b = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (a.isEmpty()) {
+                long suffix = Long.parseLong(b);
+                if (suffix <= 0) return null;
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(a);
+                end = b.isEmpty() ? length - 1 : Math.min(Long.parseLong(b), length - 1);
+            }
+            if (start < 0 || start >= length || end < start) return null;
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PostMapping("/admin/photos/migrate-inline")
+    @Operation(summary = "Extraire les photos base64 stockées dans signalement.photo_url (protégé par X-ADMIN-KEY)")
+    public ResponseEntity<?> migrateInline(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey,
+            @RequestParam(value = "batchSize", defaultValue = "100") int batchSize) {
+        String expected = System.getenv("ADMIN_API_KEY");
+        if (expected == null || expected.isEmpty() || adminKey == null || !adminKey.equals(expected)) {
+            return ResponseEntity.status(403).body(Map.of("message", "forbidden"));
+        }
+        return ResponseEntity.ok(photoService.migrateInlinePhotos(Math.max(1, Math.min(batchSize, 1000))));
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.travauxroutiers.controller;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,8 +21,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.travauxroutiers.dto.SignalementDtos;
+import com.example.travauxroutiers.dto.SignalementSummary;
+import com.example.travauxroutiers.index.SignalementClusterIndex;
 import com.example.travauxroutiers.model.Signalement;
+import com.example.travauxroutiers.service.SignalementMapService;
 import com.example.travauxroutiers.service.SignalementService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -31,24 +40,138 @@ public class SignalementController {
     private static final Logger logger = LoggerFactory.getLogger(SignalementController.class);
 
     private final SignalementService service;
+    private final SignalementMapService mapService;
 
-    public SignalementController(SignalementService service) {
+    public SignalementController(SignalementService service, SignalementMapService mapService) {
         this.service = service;
+        this.mapService = mapService;
     }
 
+    /**
+     * Sans {@code limit} ni {@code cursor}, renvoie la liste complète (compatibilité avec les
+     * clients existants). Avec l'un des deux, renvoie une page {@link SignalementDtos.CursorPage}
+     * de {@link SignalementSummary} triée par date décroissante ; passer {@code nextCursor} pour
+     * obtenir la page suivante. statusId, entrepriseId et validationStatus acceptent plusieurs
+     * valeurs (séparées par des virgules), combinées en OU.
+     */
     @GetMapping
-    @Operation(summary = "Lister les signalements")
-    public List<Signalement> list(@RequestParam(value = "validationStatus", required = false) String validationStatus) {
-        if (validationStatus != null && !validationStatus.trim().isEmpty()) {
-            return service.listByValidationStatusName(validationStatus);
+    @Operation(summary = "Lister les signalements (paginé par curseur si limit/cursor est fourni)")
+    public ResponseEntity<?> list(@RequestParam(value = "validationStatus", required = false) List<String> validationStatus,
+            @RequestParam(value = "statusId", required = false) List<Long> statusId,
+            @RequestParam(value = "entrepriseId", required = false) List<Long> entrepriseId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        if (cursor == null && limit == null) {
+            if (validationStatus != null && !validationStatus.isEmpty() && !validationStatus.get(0).trim().isEmpty()) {
+                return ResponseEntity.ok(service.listByValidationStatusName(validationStatus.get(0)));
+            }
+            return ResponseEntity.ok(service.listAll());
+        }
+
+        SignalementDtos.ListFilter filter = SignalementDtos.ListFilter.of(statusId, entrepriseId, validationStatus, from, to);
+        try {
+            return ResponseEntity.ok(service.listPage(filter, cursor, limit));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
         }
-        return service.listAll();
+    }
+
+    @GetMapping("/count")
+    @Operation(summary = "Compter les signalements correspondant à une combinaison de filtres")
+    public ResponseEntity<?> count(@RequestParam(value = "validationStatus", required = false) List<String> validationStatus,
+            @RequestParam(value = "statusId", required = false) List<Long> statusId,
+            @RequestParam(value = "entrepriseId", required = false) List<Long> entrepriseId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(Map.of("count",
+                service.count(SignalementDtos.ListFilter.of(statusId, entrepriseId, validationStatus, from, to))));
     }
 
     @GetMapping("/pending-validation")
     @Operation(summary = "Lister les signalements en attente de validation")
-    public List<Signalement> pendingValidation() {
-        return service.listByValidationStatusName("PENDING");
+    public List<SignalementSummary> pendingValidation() {
+        return service.listSummariesByValidationStatusName("PENDING");
+    }
+
+    @GetMapping("/bbox")
+    @Operation(summary = "Lister les signalements visibles dans une zone (minLat/minLng/maxLat/maxLng)")
+    public ResponseEntity<?> listInBoundingBox(@RequestParam("minLat") double minLat,
+            @RequestParam("minLng") double minLng,
+            @RequestParam("maxLat") double maxLat,
+            @RequestParam("maxLng") double maxLng) {
+        if (minLat > maxLat || minLng > maxLng) {
+            return ResponseEntity.badRequest().body(Map.of("message", "invalid-bbox"));
+        }
+        return ResponseEntity.ok(service.listInBoundingBox(minLat, minLng, maxLat, maxLng));
+    }
+
+    @GetMapping("/clusters")
+    @Operation(summary = "Regrouper les signalements d'une zone selon le niveau de zoom")
+    public ResponseEntity<?> clusters(@RequestParam("minLat") double minLat,
+            @RequestParam("minLng") double minLng,
+            @RequestParam("maxLat") double maxLat,
+            @RequestParam("maxLng") double maxLng,
+            @RequestParam("zoom") int zoom) {
+        if (minLat > maxLat || minLng > maxLng) {
+            return ResponseEntity.badRequest().body(Map.of("message", "invalid-bbox"));
+        }
+        try {
+            return ResponseEntity.ok(mapService.clusters(minLat, minLng, maxLat, maxLng, zoom));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/heatmap")
+    @Operation(summary = "Grille de densité des signalements d'une zone, pondérée par nombre, budget ou surface")
+    public ResponseEntity<?> heatmap(@RequestParam("minLat") double minLat,
+            @RequestParam("minLng") double minLng,
+            @RequestParam("maxLat") double maxLat,
+            @RequestParam("maxLng") double maxLng,
+            @RequestParam("zoom") int zoom,
+            @RequestParam(value = "weight", required = false) String weight) {
+        if (minLat > maxLat || minLng > maxLng) {
+            return ResponseEntity.badRequest().body(Map.of("message", "invalid-bbox"));
+        }
+        try {
+            return ResponseEntity.ok(mapService.heatmap(minLat, minLng, maxLat, maxLng, zoom, weight));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        }
+    }
+
+    /** Variante par tuile XYZ, avec ETag : les tuiles inchangées répondent 304. */
+    @GetMapping("/clusters/{z}/{x}/{y}")
+    @Operation(summary = "Clusters de signalements d'une tuile z/x/y")
+    public ResponseEntity<?> clusterTile(@PathVariable int z, @PathVariable int x, @PathVariable int y,
+            WebRequest request) {
+        SignalementClusterIndex.TileClusters tile;
+        try {
+            tile = mapService.clusterTile(z, x, y);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        }
+        if (request.checkNotModified(tile.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(tile.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(tile.getClusters());
+    }
+
+    @GetMapping(value = "/tiles/{z}/{x}/{y}.mvt", produces = "application/vnd.mapbox-vector-tile")
+    @Operation(summary = "Tuile vectorielle Mapbox (MVT) des signalements, couche \"signalements\"")
+    public ResponseEntity<byte[]> vectorTile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/vnd.mapbox-vector-tile"))
+                    .body(mapService.vectorTile(z, x, y));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -64,18 +187,24 @@ public class SignalementController {
 
     @PostMapping
     @Operation(summary = "Créer un signalement")
-    public ResponseEntity<Signalement> create(@RequestBody Signalement t) {
-        Signalement c = service.create(t);
-        return ResponseEntity.created(URI.create("/api/signalements/" + c.getId())).body(c);
+    public ResponseEntity<?> create(@RequestBody Signalement t) {
+        try {
+            Signalement c = service.create(t);
+            return ResponseEntity.created(URI.create("/api/signalements/" + c.getId())).body(c);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        }
     }
 
     @PutMapping("/{id}")
     @Operation(summary = "Mettre à jour un signalement")
-    public ResponseEntity<Signalement> update(@PathVariable Long id, @RequestBody Signalement t) {
+    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody Signalement t) {
         try {
             logger.info("[SignalementController] Update request for id {} with payload: {}", id, t);
             Signalement updated = service.update(id, t);
             return ResponseEntity.ok(updated);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
         } catch (Exception ex) {
             logger.error("[SignalementController] PUT /api/signalements/{} failed", id, ex);
             return ResponseEntity.status(500).build();
@@ -1,12 +1,24 @@
 package com.example.travauxroutiers.controller;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.travauxroutiers.dto.SignalementDtos;
 import com.example.travauxroutiers.dto.StatisticsDto;
+import com.example.travauxroutiers.service.GlobalStatisticsCache;
+import com.example.travauxroutiers.service.StatisticsRollupService;
 import com.example.travauxroutiers.service.StatisticsService;
 
 @RestController
@@ -15,16 +27,21 @@ import com.example.travauxroutiers.service.StatisticsService;
 public class StatisticsController {
 
     private final StatisticsService statisticsService;
+    private final StatisticsRollupService rollupService;
+    private final GlobalStatisticsCache globalStatisticsCache;
 
-    public StatisticsController(StatisticsService statisticsService) {
+    public StatisticsController(StatisticsService statisticsService, StatisticsRollupService rollupService,
+            GlobalStatisticsCache globalStatisticsCache) {
         this.statisticsService = statisticsService;
+        this.rollupService = rollupService;
+        this.globalStatisticsCache = globalStatisticsCache;
     }
 
     @GetMapping("/global")
     public ResponseEntity<StatisticsDto> getGlobalStatistics() {
         try {
             System.out.println("🌐 Endpoint /api/statistics/global appelé");
-            StatisticsDto statistics = statisticsService.getGlobalStatistics();
+            StatisticsDto statistics = globalStatisticsCache.get();
             System.out.println("📈 Réponse envoyée avec " + statistics.getTotalPoints() + " points");
             return ResponseEntity.ok(statistics);
         } catch (Exception e) {
@@ -34,6 +51,113 @@ public class StatisticsController {
         }
     }
 
+    /**
+     * Statistiques globales restreintes par des critères combinables (tous optionnels) :
+     * période [from, to[ sur la date de signalement, statut, entreprise, statut de validation
+     * (plusieurs valeurs possibles, combinées en OU) et zone minLat/minLng/maxLat/maxLng.
+     */
+    @GetMapping("/filtered")
+    public ResponseEntity<?> getFilteredStatistics(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "statusId", required = false) List<Long> statusId,
+            @RequestParam(value = "entrepriseId", required = false) List<Long> entrepriseId,
+            @RequestParam(value = "validationStatus", required = false) List<String> validationStatus,
+            @RequestParam(value = "minLat", required = false) Double minLat,
+            @RequestParam(value = "minLng", required = false) Double minLng,
+            @RequestParam(value = "maxLat", required = false) Double maxLat,
+            @RequestParam(value = "maxLng", required = false) Double maxLng) {
+        SignalementDtos.ListFilter filter = SignalementDtos.ListFilter.of(statusId, entrepriseId, validationStatus,
+                from, to);
+        double[] bbox = null;
+        if (minLat != null || minLng != null || maxLat != null || maxLng != null) {
+            if (minLat == null || minLng == null || maxLat == null || maxLng == null) {
+                return ResponseEntity.badRequest().body(Map.of("message", "invalid-bbox"));
+            }
+            bbox = new double[] { minLat, minLng, maxLat, maxLng };
+        }
+        try {
+            return ResponseEntity.ok(statisticsService.getFilteredStatistics(filter, bbox));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Détail de traitement par signalement, paginé par curseur (passer {@code nextCursor} pour la
+     * page suivante). Tri : treatmentDays (défaut, plus longs d'abord), dateDebutTravaux (plus
+     * récents d'abord) ou status (ordre du workflow).
+     *
+     * Le tri treatmentDays classe les travaux terminés par durée totale ; les travaux en cours
+     * viennent ensuite (puis ceux non commencés), même si la valeur treatmentDays affichée pour
+     * eux (jours écoulés jusqu'à maintenant) dépasse celle de travaux terminés.
+     */
+    @GetMapping("/treatments")
+    public ResponseEntity<?> getTreatmentStatistics(
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            SignalementDtos.CursorPage<StatisticsDto.TreatmentStatistic> page =
+                    statisticsService.listTreatmentPage(sort, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /** Percentiles p50/p90/p99 (en jours) du temps passé dans un statut, par transition. */
+    @GetMapping("/transitions")
+    public ResponseEntity<?> getTransitionPercentiles() {
+        return ResponseEntity.ok(statisticsService.getTransitionPercentiles());
+    }
+
+    /**
+     * Indicateurs par entreprise (ouverts/terminés, budget, surface, durée de traitement moyenne
+     * et p50/p90/p99, retards). overdueDays remplace le seuil de retard configuré.
+     */
+    @GetMapping("/entreprises")
+    public ResponseEntity<?> getEntrepriseStatistics(
+            @RequestParam(value = "overdueDays", required = false) Integer overdueDays) {
+        try {
+            return ResponseEntity.ok(statisticsService.getEntrepriseStatistics(overdueDays));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Série temporelle lue uniquement dans les seaux journaliers pré-agrégés.
+     * metric=created (signalements créés) | entered (passages dans un statut) ;
+     * granularity=day|week|month ; groupBy=none|status|entreprise|validationStatus.
+     */
+    @GetMapping("/timeseries")
+    public ResponseEntity<?> getTimeSeries(
+            @RequestParam(value = "metric", required = false) String metric,
+            @RequestParam(value = "granularity", required = false) String granularity,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "statusId", required = false) Long statusId,
+            @RequestParam(value = "entrepriseId", required = false) Long entrepriseId,
+            @RequestParam(value = "validationStatus", required = false) String validationStatus,
+            @RequestParam(value = "groupBy", required = false) String groupBy) {
+        try {
+            return ResponseEntity.ok(rollupService.timeSeries(metric, granularity, from, to, statusId, entrepriseId,
+                    validationStatus, groupBy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/timeseries/rebuild")
+    public ResponseEntity<?> rebuildTimeSeries(@RequestHeader(value = "X-ADMIN-KEY", required = false) String adminKey) {
+        String expected = System.getenv("ADMIN_API_KEY");
+        if (expected == null || expected.isEmpty() || adminKey == null || !adminKey.equals(expected)) {
+            return ResponseEntity.status(403).body(Map.of("message", "forbidden"));
+        }
+        return ResponseEntity.ok(rollupService.rebuild());
+    }
+
     @GetMapping("/test")
     public ResponseEntity<String> testEndpoint() {
         return ResponseEntity.ok("API Statistics fonctionne correctement");
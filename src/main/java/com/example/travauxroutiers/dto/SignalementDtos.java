@@ -0,0 +1,197 @@
+package com.example.travauxroutiers.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+public class SignalementDtos {
+
+    /**
+     * Combinable filters for listings, counts and statistics: the values of one criterion are
+     * OR-ed, the criteria AND-ed (null or empty = no filter).
+     */
+    public static class ListFilter {
+        private List<Long> statusIds;
+        private List<Long> entrepriseIds;
+        /** Validation status names (PENDING includes rows without validation). */
+        private List<String> validationStatuses;
+        /** Inclusive lower bound on date_signalement. */
+        private LocalDateTime from;
+        /** Exclusive upper bound on date_signalement. */
+        private LocalDateTime to;
+
+        /** Blank validation status names are ignored. */
+        public static ListFilter of(List<Long> statusIds, List<Long> entrepriseIds, List<String> validationStatuses,
+                LocalDateTime from, LocalDateTime to) {
+            ListFilter filter = new ListFilter();
+            filter.setStatusIds(statusIds);
+            filter.setEntrepriseIds(entrepriseIds);
+            filter.setValidationStatuses(validationStatuses == null ? null
+                    : validationStatuses.stream().map(String::trim).filter(v -> !v.isEmpty()).toList());
+            filter.setFrom(from);
+            filter.setTo(to);
+            return filter;
+        }
+
+        public List<Long> getStatusIds() { return statusIds; }
+        public void setStatusIds(List<Long> statusIds) { this.statusIds = statusIds; }
+        public List<Long> getEntrepriseIds() { return entrepriseIds; }
+        public void setEntrepriseIds(List<Long> entrepriseIds) { this.entrepriseIds = entrepriseIds; }
+        public List<String> getValidationStatuses() { return validationStatuses; }
+        public void setValidationStatuses(List<String> validationStatuses) { this.validationStatuses = validationStatuses; }
+        public LocalDateTime getFrom() { return from; }
+        public void setFrom(LocalDateTime from) { this.from = from; }
+        public LocalDateTime getTo() { return to; }
+        public void setTo(LocalDateTime to) { this.to = to; }
+
+        public boolean isEmpty() {
+            return (statusIds == null || statusIds.isEmpty())
+                    && (entrepriseIds == null || entrepriseIds.isEmpty())
+                    && (validationStatuses == null || validationStatuses.isEmpty())
+                    && from == null && to == null;
+        }
+    }
+
+    /**
+     * Keyset position (date_signalement, id) of the last row of a page. Rows without a date sort
+     * after every dated row; a null {@code date} means the position is among them.
+     * Serialized as an opaque URL-safe token for clients.
+     */
+    public static class Cursor {
+        private final LocalDateTime date;
+        private final Long id;
+
+        public Cursor(LocalDateTime date, Long id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        public LocalDateTime getDate() { return date; }
+        public Long getId() { return id; }
+
+        public String encode() {
+            String raw = (date != null ? date.toString() : "") + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** @throws IllegalArgumentException if the token is malformed */
+        public static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                if (sep < 0) throw new IllegalArgumentException("invalid-cursor");
+                LocalDateTime date = sep == 0 ? null : LocalDateTime.parse(raw.substring(0, sep));
+                return new Cursor(date, Long.valueOf(raw.substring(sep + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("invalid-cursor", e);
+            }
+        }
+    }
+
+    /** One page of a keyset-paginated listing. */
+    public static class CursorPage<T> {
+        private List<T> items;
+        private int limit;
+        private boolean hasMore;
+        /** Token to pass as {@code cursor} to fetch the next page; null on the last page. */
+        private String nextCursor;
+
+        public CursorPage() {
+        }
+
+        public CursorPage(List<T> items, int limit, boolean hasMore, String nextCursor) {
+            this.items = items;
+            this.limit = limit;
+            this.hasMore = hasMore;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<T> getItems() { return items; }
+        public void setItems(List<T> items) { this.items = items; }
+        public int getLimit() { return limit; }
+        public void setLimit(int limit) { this.limit = limit; }
+        public boolean isHasMore() { return hasMore; }
+        public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+        public String getNextCursor() { return nextCursor; }
+        public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    }
+
+    /** Aggregated markers of one quadkey cell. */
+    public static class Cluster {
+        private String quadkey;
+        private int count;
+        /** Centroid of the signalements in the cell. */
+        private double latitude;
+        private double longitude;
+        private Map<String, Integer> statusCounts;
+        private double totalBudget;
+        private double totalSurface;
+
+        public Cluster() {
+        }
+
+        public Cluster(String quadkey, int count, double latitude, double longitude,
+                Map<String, Integer> statusCounts, double totalBudget, double totalSurface) {
+            this.quadkey = quadkey;
+            this.count = count;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.statusCounts = statusCounts;
+            this.totalBudget = totalBudget;
+            this.totalSurface = totalSurface;
+        }
+
+        public String getQuadkey() { return quadkey; }
+        public void setQuadkey(String quadkey) { this.quadkey = quadkey; }
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+        public double getLatitude() { return latitude; }
+        public void setLatitude(double latitude) { this.latitude = latitude; }
+        public double getLongitude() { return longitude; }
+        public void setLongitude(double longitude) { this.longitude = longitude; }
+        public Map<String, Integer> getStatusCounts() { return statusCounts; }
+        public void setStatusCounts(Map<String, Integer> statusCounts) { this.statusCounts = statusCounts; }
+        public double getTotalBudget() { return totalBudget; }
+        public void setTotalBudget(double totalBudget) { this.totalBudget = totalBudget; }
+        public double getTotalSurface() { return totalSurface; }
+        public void setTotalSurface(double totalSurface) { this.totalSurface = totalSurface; }
+    }
+
+    /**
+     * Heatmap bins of a viewport as parallel arrays: {@code cells[i]} (= y * 2^level + x in the
+     * XYZ grid of {@code level}), its signalement count and its weight.
+     */
+    public static class Heatmap {
+        private int level;
+        /** count, budget or surface. */
+        private String weight;
+        private long[] cells;
+        private int[] counts;
+        private double[] weights;
+
+        public Heatmap() {
+        }
+
+        public Heatmap(int level, String weight, long[] cells, int[] counts, double[] weights) {
+            this.level = level;
+            this.weight = weight;
+            this.cells = cells;
+            this.counts = counts;
+            this.weights = weights;
+        }
+
+        public int getLevel() { return level; }
+        public void setLevel(int level) { this.level = level; }
+        public String getWeight() { return weight; }
+        public void setWeight(String weight) { this.weight = weight; }
+        public long[] getCells() { return cells; }
+        public void setCells(long[] cells) { this.cells = cells; }
+        public int[] getCounts() { return counts; }
+        public void setCounts(int[] counts) { this.counts = counts; }
+        public double[] getWeights() { return weights; }
+        public void setWeights(double[] weights) { this.weights = weights; }
+    }
+}
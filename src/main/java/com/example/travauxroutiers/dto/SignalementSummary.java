@@ -0,0 +1,101 @@
+package com.example.travauxroutiers.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a signalement for list and map views, built by a JPQL constructor
+ * expression in a single joined query: no entity graph is loaded (no user, no photo data, no
+ * per-row validation select). The JSON keeps the shape of the entity for the fields it has
+ * ({@code status.name}, {@code entreprise.name}, {@code validation.status.name}).
+ */
+public class SignalementSummary {
+    private Long id;
+    private BigDecimal latitude;
+    private BigDecimal longitude;
+    private String description;
+    private LocalDateTime dateSignalement;
+    private BigDecimal surfaceArea;
+    private BigDecimal budget;
+    private Ref status;
+    private Ref entreprise;
+    private ValidationRef validation;
+    /** The photo itself is only returned by GET /api/signalements/{id}. */
+    private boolean hasPhoto;
+
+    public SignalementSummary() {
+    }
+
+    public SignalementSummary(Long id, BigDecimal latitude, BigDecimal longitude, String description,
+            LocalDateTime dateSignalement, BigDecimal surfaceArea, BigDecimal budget,
+            Long statusId, String statusName, Long entrepriseId, String entrepriseName,
+            String validationStatusName, Boolean hasPhoto) {
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.description = description;
+        this.dateSignalement = dateSignalement;
+        this.surfaceArea = surfaceArea;
+        this.budget = budget;
+        this.status = statusId != null ? new Ref(statusId, statusName) : null;
+        this.entreprise = entrepriseId != null ? new Ref(entrepriseId, entrepriseName) : null;
+        // Same convention as the listing filters: no validation row means PENDING
+        this.validation = new ValidationRef(new Ref(null, validationStatusName != null ? validationStatusName : "PENDING"));
+        this.hasPhoto = Boolean.TRUE.equals(hasPhoto);
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public BigDecimal getLatitude() { return latitude; }
+    public void setLatitude(BigDecimal latitude) { this.latitude = latitude; }
+    public BigDecimal getLongitude() { return longitude; }
+    public void setLongitude(BigDecimal longitude) { this.longitude = longitude; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public LocalDateTime getDateSignalement() { return dateSignalement; }
+    public void setDateSignalement(LocalDateTime dateSignalement) { this.dateSignalement = dateSignalement; }
+    public BigDecimal getSurfaceArea() { return surfaceArea; }
+    public void setSurfaceArea(BigDecimal surfaceArea) { this.surfaceArea = surfaceArea; }
+    public BigDecimal getBudget() { return budget; }
+    public void setBudget(BigDecimal budget) { this.budget = budget; }
+    public Ref getStatus() { return status; }
+    public void setStatus(Ref status) { this.status = status; }
+    public Ref getEntreprise() { return entreprise; }
+    public void setEntreprise(Ref entreprise) { this.entreprise = entreprise; }
+    public ValidationRef getValidation() { return validation; }
+    public void setValidation(ValidationRef validation) { this.validation = validation; }
+    public boolean isHasPhoto() { return hasPhoto; }
+    public void setHasPhoto(boolean hasPhoto) { this.hasPhoto = hasPhoto; }
+
+    public static class Ref {
+        private Long id;
+        private String name;
+
+        public Ref() {
+        }
+
+        public Ref(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    public static class ValidationRef {
+        private Ref status;
+
+        public ValidationRef() {
+        }
+
+        public ValidationRef(Ref status) {
+            this.status = status;
+        }
+
+        public Ref getStatus() { return status; }
+        public void setStatus(Ref status) { this.status = status; }
+    }
+}
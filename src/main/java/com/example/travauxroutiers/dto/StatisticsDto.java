@@ -1,6 +1,10 @@
 package com.example.travauxroutiers.dto;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 
 public class StatisticsDto {
@@ -12,7 +16,7 @@ public class StatisticsDto {
     private int countEnCours;
     private int countTermine;
     private List<StatusStatistic> statusStats;
-    private List<TreatmentStatistic> treatmentStats;
+    /** Durée moyenne des travaux terminés ; les travaux en cours n'y entrent pas. */
     private double averageTreatmentDays;
 
     // Constructeur
@@ -84,14 +88,6 @@ public class StatisticsDto {
         this.statusStats = statusStats;
     }
 
-    public List<TreatmentStatistic> getTreatmentStats() {
-        return treatmentStats;
-    }
-
-    public void setTreatmentStats(List<TreatmentStatistic> treatmentStats) {
-        this.treatmentStats = treatmentStats;
-    }
-
     public double getAverageTreatmentDays() {
         return averageTreatmentDays;
     }
@@ -167,12 +163,34 @@ public class StatisticsDto {
         private LocalDateTime dateCreation;
         private LocalDateTime dateDebutTravaux;
         private LocalDateTime dateFin;
+        /**
+         * Jours du début à la fin des travaux, ou jusqu'à maintenant s'ils sont en cours ; 0 sans
+         * début. Le tri treatmentDays ne classe par cette valeur que les travaux terminés.
+         */
         private long treatmentDays;
+        private Long statusId;
         private String currentStatus;
 
         public TreatmentStatistic() {
         }
 
+        /** Projection de SignalementStatusRepository.findTreatmentTimelines. */
+        public TreatmentStatistic(Long signalementId, String description, LocalDateTime dateCreation,
+                Long statusId, String currentStatus, LocalDateTime dateDebutTravaux, LocalDateTime dateFin) {
+            this.signalementId = signalementId;
+            this.description = description;
+            this.dateCreation = dateCreation;
+            this.statusId = statusId;
+            this.currentStatus = currentStatus;
+            this.dateDebutTravaux = dateDebutTravaux;
+            this.dateFin = dateFin;
+            // Jours de traitement : jusqu'à la fin, ou jusqu'à maintenant si en cours
+            if (dateDebutTravaux != null) {
+                LocalDateTime endDate = dateFin != null ? dateFin : LocalDateTime.now();
+                this.treatmentDays = Duration.between(dateDebutTravaux, endDate).toDays();
+            }
+        }
+
         // Getters et setters
         public Long getSignalementId() {
             return signalementId;
@@ -222,6 +240,14 @@ public class StatisticsDto {
             this.treatmentDays = treatmentDays;
         }
 
+        public Long getStatusId() {
+            return statusId;
+        }
+
+        public void setStatusId(Long statusId) {
+            this.statusId = statusId;
+        }
+
         public String getCurrentStatus() {
             return currentStatus;
         }
@@ -230,4 +256,293 @@ public class StatisticsDto {
             this.currentStatus = currentStatus;
         }
     }
+
+    /**
+     * Position (clé de tri, id) de la dernière ligne d'une page du tableau de traitement.
+     * Le tri fait partie du jeton : un curseur ne peut pas être rejoué avec un autre tri.
+     */
+    public static class TreatmentCursor {
+        private final String sort;
+        /** Valeur de la clé de tri, null pour les lignes sans valeur (placées en fin). */
+        private final String key;
+        private final Long id;
+
+        public TreatmentCursor(String sort, String key, Long id) {
+            this.sort = sort;
+            this.key = key;
+            this.id = id;
+        }
+
+        public String getSort() { return sort; }
+        public String getKey() { return key; }
+        public Long getId() { return id; }
+
+        public String encode() {
+            String raw = sort + "|" + (key != null ? key : "") + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** @throws IllegalArgumentException si le jeton est invalide */
+        public static TreatmentCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", -1);
+                if (parts.length != 3) throw new IllegalArgumentException("invalid-cursor");
+                return new TreatmentCursor(parts[0], parts[1].isEmpty() ? null : parts[1], Long.valueOf(parts[2]));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("invalid-cursor", e);
+            }
+        }
+    }
+
+    /** Un point d'une série temporelle (période = premier jour du jour/semaine/mois). */
+    public static class TimeBucket {
+        private LocalDate period;
+        /** Statut ou entreprise du groupe (null sans regroupement ou si absent). */
+        private Long groupId;
+        private String groupName;
+        private long count;
+        private double budget;
+        private double surface;
+
+        public TimeBucket() {
+        }
+
+        public LocalDate getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(LocalDate period) {
+            this.period = period;
+        }
+
+        public Long getGroupId() {
+            return groupId;
+        }
+
+        public void setGroupId(Long groupId) {
+            this.groupId = groupId;
+        }
+
+        public String getGroupName() {
+            return groupName;
+        }
+
+        public void setGroupName(String groupName) {
+            this.groupName = groupName;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public double getBudget() {
+            return budget;
+        }
+
+        public void setBudget(double budget) {
+            this.budget = budget;
+        }
+
+        public double getSurface() {
+            return surface;
+        }
+
+        public void setSurface(double surface) {
+            this.surface = surface;
+        }
+    }
+
+    /** Indicateurs d'une entreprise, lus dans l'agrégat en mémoire. */
+    public static class EntrepriseStatistic {
+        private Long entrepriseId;
+        private String entrepriseName;
+        /** Signalements non terminés. */
+        private long openCount;
+        private long closedCount;
+        private double totalBudget;
+        private double totalSurface;
+        /** Null tant qu'aucun signalement de l'entreprise n'a de durée de traitement. */
+        private Double averageTreatmentDays;
+        /** Percentiles à 1 % près (sketch de quantiles). */
+        private Double p50TreatmentDays;
+        private Double p90TreatmentDays;
+        private Double p99TreatmentDays;
+        /** Signalements ouverts déclarés depuis plus que le seuil de retard. */
+        private long overdueCount;
+
+        public EntrepriseStatistic() {
+        }
+
+        public Long getEntrepriseId() {
+            return entrepriseId;
+        }
+
+        public void setEntrepriseId(Long entrepriseId) {
+            this.entrepriseId = entrepriseId;
+        }
+
+        public String getEntrepriseName() {
+            return entrepriseName;
+        }
+
+        public void setEntrepriseName(String entrepriseName) {
+            this.entrepriseName = entrepriseName;
+        }
+
+        public long getOpenCount() {
+            return openCount;
+        }
+
+        public void setOpenCount(long openCount) {
+            this.openCount = openCount;
+        }
+
+        public long getClosedCount() {
+            return closedCount;
+        }
+
+        public void setClosedCount(long closedCount) {
+            this.closedCount = closedCount;
+        }
+
+        public double getTotalBudget() {
+            return totalBudget;
+        }
+
+        public void setTotalBudget(double totalBudget) {
+            this.totalBudget = totalBudget;
+        }
+
+        public double getTotalSurface() {
+            return totalSurface;
+        }
+
+        public void setTotalSurface(double totalSurface) {
+            this.totalSurface = totalSurface;
+        }
+
+        public Double getAverageTreatmentDays() {
+            return averageTreatmentDays;
+        }
+
+        public void setAverageTreatmentDays(Double averageTreatmentDays) {
+            this.averageTreatmentDays = averageTreatmentDays;
+        }
+
+        public Double getP50TreatmentDays() {
+            return p50TreatmentDays;
+        }
+
+        public void setP50TreatmentDays(Double p50TreatmentDays) {
+            this.p50TreatmentDays = p50TreatmentDays;
+        }
+
+        public Double getP90TreatmentDays() {
+            return p90TreatmentDays;
+        }
+
+        public void setP90TreatmentDays(Double p90TreatmentDays) {
+            this.p90TreatmentDays = p90TreatmentDays;
+        }
+
+        public Double getP99TreatmentDays() {
+            return p99TreatmentDays;
+        }
+
+        public void setP99TreatmentDays(Double p99TreatmentDays) {
+            this.p99TreatmentDays = p99TreatmentDays;
+        }
+
+        public long getOverdueCount() {
+            return overdueCount;
+        }
+
+        public void setOverdueCount(long overdueCount) {
+            this.overdueCount = overdueCount;
+        }
+    }
+
+    /** Durée passée dans un statut avant le passage au suivant, en jours (à 1 % près). */
+    public static class TransitionPercentile {
+        private Long fromStatusId;
+        private String fromStatusName;
+        private Long toStatusId;
+        private String toStatusName;
+        private long count;
+        private double p50Days;
+        private double p90Days;
+        private double p99Days;
+
+        public TransitionPercentile() {
+        }
+
+        public Long getFromStatusId() {
+            return fromStatusId;
+        }
+
+        public void setFromStatusId(Long fromStatusId) {
+            this.fromStatusId = fromStatusId;
+        }
+
+        public String getFromStatusName() {
+            return fromStatusName;
+        }
+
+        public void setFromStatusName(String fromStatusName) {
+            this.fromStatusName = fromStatusName;
+        }
+
+        public Long getToStatusId() {
+            return toStatusId;
+        }
+
+        public void setToStatusId(Long toStatusId) {
+            this.toStatusId = toStatusId;
+        }
+
+        public String getToStatusName() {
+            return toStatusName;
+        }
+
+        public void setToStatusName(String toStatusName) {
+            this.toStatusName = toStatusName;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public double getP50Days() {
+            return p50Days;
+        }
+
+        public void setP50Days(double p50Days) {
+            this.p50Days = p50Days;
+        }
+
+        public double getP90Days() {
+            return p90Days;
+        }
+
+        public void setP90Days(double p90Days) {
+            this.p90Days = p90Days;
+        }
+
+        public double getP99Days() {
+            return p99Days;
+        }
+
+        public void setP99Days(double p99Days) {
+            this.p99Days = p99Days;
+        }
+    }
 }
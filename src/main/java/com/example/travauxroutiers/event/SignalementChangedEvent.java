@@ -0,0 +1,33 @@
+package com.example.travauxroutiers.event;
+
+import com.example.travauxroutiers.index.SignalementPoint;
+
+/**
+ * Published after a signalement row has been written (create, update, status change,
+ * delete, Firebase sync). Carries the indexed state before and after the write so that
+ * listeners can update derived structures incrementally.
+ * {@code before} is null for a creation, {@code after} is null for a deletion.
+ */
+public class SignalementChangedEvent {
+    private final Long signalementId;
+    private final SignalementPoint before;
+    private final SignalementPoint after;
+
+    public SignalementChangedEvent(Long signalementId, SignalementPoint before, SignalementPoint after) {
+        this.signalementId = signalementId;
+        this.before = before;
+        this.after = after;
+    }
+
+    public static SignalementChangedEvent created(SignalementPoint after) {
+        return new SignalementChangedEvent(after.getId(), null, after);
+    }
+
+    public static SignalementChangedEvent deleted(SignalementPoint before) {
+        return new SignalementChangedEvent(before.getId(), before, null);
+    }
+
+    public Long getSignalementId() { return signalementId; }
+    public SignalementPoint getBefore() { return before; }
+    public SignalementPoint getAfter() { return after; }
+}
@@ -0,0 +1,66 @@
+package com.example.travauxroutiers.event;
+
+import java.time.LocalDateTime;
+
+import com.example.travauxroutiers.model.Signalement;
+import com.example.travauxroutiers.model.SignalementStatus;
+
+/**
+ * Published when an entry of the status history (signalement_status) is written or removed.
+ * {@code delta} is +1 for a new entry and -1 for a removed one; an edited entry is published
+ * as a removal of the old values followed by an addition of the new ones.
+ * Entreprise, validation, budget and surface are the bucket stored on the entry
+ * ({@code rollup_*} columns), so a removal always undoes the matching addition.
+ */
+public class SignalementStatusRecordedEvent {
+    private final Long signalementId;
+    private final Long statusId;
+    private final LocalDateTime dateStatus;
+    private final Long entrepriseId;
+    private final String validationStatusName;
+    private final double budget;
+    private final double surfaceArea;
+    private final int delta;
+
+    public SignalementStatusRecordedEvent(Long signalementId, Long statusId, LocalDateTime dateStatus,
+            Long entrepriseId, String validationStatusName, double budget, double surfaceArea, int delta) {
+        this.signalementId = signalementId;
+        this.statusId = statusId;
+        this.dateStatus = dateStatus;
+        this.entrepriseId = entrepriseId;
+        this.validationStatusName = validationStatusName != null ? validationStatusName : "PENDING";
+        this.budget = budget;
+        this.surfaceArea = surfaceArea;
+        this.delta = delta;
+    }
+
+    public static SignalementStatusRecordedEvent recorded(SignalementStatus entry) {
+        return of(entry, 1);
+    }
+
+    public static SignalementStatusRecordedEvent removed(SignalementStatus entry) {
+        return of(entry, -1);
+    }
+
+    private static SignalementStatusRecordedEvent of(SignalementStatus entry, int delta) {
+        Signalement s = entry.getSignalement();
+        return new SignalementStatusRecordedEvent(
+                s != null ? s.getId() : null,
+                entry.getStatus() != null ? entry.getStatus().getId() : null,
+                entry.getDateStatus(),
+                entry.getRollupEntrepriseId(),
+                entry.getRollupValidationStatus(),
+                entry.getRollupBudget() != null ? entry.getRollupBudget().doubleValue() : 0.0,
+                entry.getRollupSurfaceArea() != null ? entry.getRollupSurfaceArea().doubleValue() : 0.0,
+                delta);
+    }
+
+    public Long getSignalementId() { return signalementId; }
+    public Long getStatusId() { return statusId; }
+    public LocalDateTime getDateStatus() { return dateStatus; }
+    public Long getEntrepriseId() { return entrepriseId; }
+    public String getValidationStatusName() { return validationStatusName; }
+    public double getBudget() { return budget; }
+    public double getSurfaceArea() { return surfaceArea; }
+    public int getDelta() { return delta; }
+}
@@ -0,0 +1,186 @@
+package com.example.travauxroutiers.index;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+
+/**
+ * Running per-entreprise aggregates: open/closed counts, budget and surface sums, treatment days
+ * (exact sum for the average, a {@link QuantileSketch} for the percentiles) and the open
+ * signalements bucketed by report day (overdue counts for any cutoff). A write touches one or
+ * two entreprises; a read walks one small map per entreprise and never the signalements.
+ *
+ * Snapshots are cached until the next write or a different cutoff day.
+ */
+@Component
+public class EntrepriseStatsIndex implements SignalementIndex {
+    /** Status that closes a signalement (TERMINE). */
+    public static final long CLOSED_STATUS_ID = 3L;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Totals> byEntreprise = new HashMap<>();
+    private long version;
+
+    private volatile CachedSnapshot cached;
+
+    @Override
+    public void rebuild(Collection<SignalementPoint> points) {
+        lock.writeLock().lock();
+        try {
+            byEntreprise.clear();
+            for (SignalementPoint p : points) {
+                apply(p, 1);
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getBefore() != null) apply(event.getBefore(), -1);
+            if (event.getAfter() != null) apply(event.getAfter(), 1);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Totals of every entreprise with at least one signalement. Open signalements reported
+     * strictly before {@code overdueBefore} are counted as overdue.
+     */
+    public List<EntrepriseTotals> snapshot(LocalDate overdueBefore) {
+        CachedSnapshot c = cached;
+        lock.readLock().lock();
+        try {
+            if (c != null && c.version == version && c.overdueBefore.equals(overdueBefore)) {
+                return c.totals;
+            }
+            List<EntrepriseTotals> out = new ArrayList<>(byEntreprise.size());
+            byEntreprise.forEach((id, t) -> out.add(t.toTotals(id, overdueBefore)));
+            List<EntrepriseTotals> totals = Collections.unmodifiableList(out);
+            cached = new CachedSnapshot(version, overdueBefore, totals);
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(SignalementPoint p, int sign) {
+        if (p.getEntrepriseId() == null) return;
+        Totals t = byEntreprise.computeIfAbsent(p.getEntrepriseId(), k -> new Totals());
+        t.count += sign;
+        t.budget += sign * p.getBudget();
+        t.surface += sign * p.getSurfaceArea();
+        if (p.getStatusId() != null && p.getStatusId() == CLOSED_STATUS_ID) {
+            t.closed += sign;
+        } else if (p.getDateSignalement() != null) {
+            addTo(t.openByDay, p.getDateSignalement().toLocalDate().toEpochDay(), sign);
+        }
+        if (p.getTreatmentDays() != null) {
+            t.treatmentDays.add(p.getTreatmentDays(), sign);
+            t.treatmentDaysSum += sign * p.getTreatmentDays();
+            t.treatmentCount += sign;
+        }
+        if (t.count <= 0) {
+            byEntreprise.remove(p.getEntrepriseId());
+        }
+    }
+
+    private static void addTo(TreeMap<Long, Long> histogram, long key, int sign) {
+        histogram.merge(key, (long) sign, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    /** Point-in-time figures of one entreprise. */
+    public static final class EntrepriseTotals {
+        private final long entrepriseId;
+        private final long openCount;
+        private final long closedCount;
+        private final double budget;
+        private final double surface;
+        private final Double averageTreatmentDays;
+        private final Double p50TreatmentDays;
+        private final Double p90TreatmentDays;
+        private final Double p99TreatmentDays;
+        private final long overdueCount;
+
+        EntrepriseTotals(long entrepriseId, long openCount, long closedCount, double budget, double surface,
+                Double averageTreatmentDays, Double p50TreatmentDays, Double p90TreatmentDays,
+                Double p99TreatmentDays, long overdueCount) {
+            this.entrepriseId = entrepriseId;
+            this.openCount = openCount;
+            this.closedCount = closedCount;
+            this.budget = budget;
+            this.surface = surface;
+            this.averageTreatmentDays = averageTreatmentDays;
+            this.p50TreatmentDays = p50TreatmentDays;
+            this.p90TreatmentDays = p90TreatmentDays;
+            this.p99TreatmentDays = p99TreatmentDays;
+            this.overdueCount = overdueCount;
+        }
+
+        public long getEntrepriseId() { return entrepriseId; }
+        public long getOpenCount() { return openCount; }
+        public long getClosedCount() { return closedCount; }
+        public double getBudget() { return budget; }
+        public double getSurface() { return surface; }
+        public Double getAverageTreatmentDays() { return averageTreatmentDays; }
+        public Double getP50TreatmentDays() { return p50TreatmentDays; }
+        public Double getP90TreatmentDays() { return p90TreatmentDays; }
+        public Double getP99TreatmentDays() { return p99TreatmentDays; }
+        public long getOverdueCount() { return overdueCount; }
+    }
+
+    private static final class CachedSnapshot {
+        final long version;
+        final LocalDate overdueBefore;
+        final List<EntrepriseTotals> totals;
+
+        CachedSnapshot(long version, LocalDate overdueBefore, List<EntrepriseTotals> totals) {
+            this.version = version;
+            this.overdueBefore = overdueBefore;
+            this.totals = totals;
+        }
+    }
+
+    private static final class Totals {
+        long count;
+        long closed;
+        double budget;
+        double surface;
+        final QuantileSketch treatmentDays = new QuantileSketch(StatusTransitionIndex.RELATIVE_ACCURACY);
+        long treatmentDaysSum;
+        long treatmentCount;
+        /** Report epoch day -> number of open signalements. */
+        final TreeMap<Long, Long> openByDay = new TreeMap<>();
+
+        EntrepriseTotals toTotals(long id, LocalDate overdueBefore) {
+            long overdue = 0;
+            for (long n : openByDay.headMap(overdueBefore.toEpochDay(), false).values()) {
+                overdue += n;
+            }
+            return new EntrepriseTotals(id, count - closed, closed, budget, surface,
+                    treatmentCount > 0 ? (double) treatmentDaysSum / treatmentCount : null,
+                    quantile(0.5), quantile(0.9), quantile(0.99), overdue);
+        }
+
+        private Double quantile(double q) {
+            return treatmentCount > 0 ? treatmentDays.quantile(q) : null;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.travauxroutiers.index;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Compressed set of signalement ids in the style of Roaring bitmaps: ids are split by their
+ * high bits into chunks of 65536, and each chunk is stored as a sorted array of its low 16 bits
+ * while it holds at most 4096 ids, or as a 65536-bit bitmap (8 KB) beyond that. Sparse and
+ * dense sets both stay compact, and AND/OR work chunk by chunk, only on the chunks present.
+ *
+ * Not thread-safe: owners guard it with their own lock. {@link #and} and {@link #or} return
+ * new bitmaps and never modify their arguments.
+ */
+public final class IdBitmap {
+    private static final int ARRAY_MAX = 4096;
+
+    /** Sorted chunk keys (id >>> 16) and their containers, in parallel. */
+    private long[] keys = new long[0];
+    private Container[] containers = new Container[0];
+    private int size;
+
+    public boolean add(long id) {
+        long key = id >>> 16;
+        int i = find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertAt(i, key, new ArrayContainer());
+        }
+        Container c = containers[i];
+        boolean added = c.add((char) id);
+        if (c instanceof ArrayContainer a && a.n > ARRAY_MAX) {
+            containers[i] = a.toBitmap();
+        }
+        return added;
+    }
+
+    public boolean remove(long id) {
+        int i = find(id >>> 16);
+        if (i < 0) return false;
+        Container c = containers[i];
+        boolean removed = c.remove((char) id);
+        if (c.cardinality() == 0) {
+            removeAt(i);
+        } else if (c instanceof BitmapContainer b && b.card <= ARRAY_MAX) {
+            containers[i] = b.toArray();
+        }
+        return removed;
+    }
+
+    public boolean contains(long id) {
+        int i = find(id >>> 16);
+        return i >= 0 && containers[i].contains((char) id);
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Calls {@code action} for every id, in ascending order. */
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public long[] toArray() {
+        long[] out = new long[(int) cardinality()];
+        int[] pos = { 0 };
+        forEach(id -> out[pos[0]++] = id);
+        return out;
+    }
+
+    public IdBitmap copy() {
+        IdBitmap out = new IdBitmap();
+        out.keys = Arrays.copyOf(keys, size);
+        out.containers = new Container[size];
+        for (int i = 0; i < size; i++) {
+            out.containers[i] = containers[i].copy();
+        }
+        out.size = size;
+        return out;
+    }
+
+    public static IdBitmap and(IdBitmap a, IdBitmap b) {
+        IdBitmap out = new IdBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container c = a.containers[i].and(b.containers[j]);
+                if (c.cardinality() > 0) out.append(a.keys[i], c);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    public static IdBitmap or(IdBitmap a, IdBitmap b) {
+        IdBitmap out = new IdBitmap();
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                out.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i >= a.size || a.keys[i] > b.keys[j]) {
+                out.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                out.append(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private int find(long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void append(long key, Container c) {
+        insertAt(size, key, c);
+    }
+
+    private void insertAt(int i, long key, Container c) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private abstract static class Container {
+        abstract boolean add(char v);
+        abstract boolean remove(char v);
+        abstract boolean contains(char v);
+        abstract int cardinality();
+        abstract Container and(Container other);
+        abstract Container or(Container other);
+        abstract Container copy();
+        abstract void forEach(long high, LongConsumer action);
+    }
+
+    /** Up to {@link #ARRAY_MAX} sorted low bits. */
+    private static final class ArrayContainer extends Container {
+        char[] values = new char[4];
+        int n;
+
+        @Override
+        boolean add(char v) {
+            int i = Arrays.binarySearch(values, 0, n, v);
+            if (i >= 0) return false;
+            i = -i - 1;
+            if (n == values.length) values = Arrays.copyOf(values, n * 2);
+            System.arraycopy(values, i, values, i + 1, n - i);
+            values[i] = v;
+            n++;
+            return true;
+        }
+
+        @Override
+        boolean remove(char v) {
+            int i = Arrays.binarySearch(values, 0, n, v);
+            if (i < 0) return false;
+            System.arraycopy(values, i + 1, values, i, n - i - 1);
+            n--;
+            return true;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return Arrays.binarySearch(values, 0, n, v) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return n;
+        }
+
+        @Override
+        Container and(Container other) {
+            ArrayContainer out = new ArrayContainer();
+            out.values = new char[Math.max(1, n)];
+            if (other instanceof ArrayContainer o) {
+                int i = 0, j = 0;
+                while (i < n && j < o.n) {
+                    if (values[i] < o.values[j]) i++;
+                    else if (values[i] > o.values[j]) j++;
+                    else {
+                        out.values[out.n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (other.contains(values[i])) out.values[out.n++] = values[i];
+                }
+            }
+            return out;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            char[] merged = new char[n + o.n];
+            int i = 0, j = 0, k = 0;
+            while (i < n || j < o.n) {
+                if (j >= o.n || (i < n && values[i] < o.values[j])) merged[k++] = values[i++];
+                else if (i >= n || values[i] > o.values[j]) merged[k++] = o.values[j++];
+                else {
+                    merged[k++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer out = new ArrayContainer();
+            out.values = merged;
+            out.n = k;
+            return k > ARRAY_MAX ? out.toBitmap() : out;
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer out = new ArrayContainer();
+            out.values = Arrays.copyOf(values, Math.max(1, n));
+            out.n = n;
+            return out;
+        }
+
+        @Override
+        void forEach(long high, LongConsumer action) {
+            for (int i = 0; i < n; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < n; i++) {
+                b.add(values[i]);
+            }
+            return b;
+        }
+    }
+
+    /** One bit per possible low value. */
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[1024];
+        int card;
+
+        @Override
+        boolean add(char v) {
+            long before = words[v >>> 6];
+            words[v >>> 6] = before | (1L << v);
+            boolean added = before != words[v >>> 6];
+            if (added) card++;
+            return added;
+        }
+
+        @Override
+        boolean remove(char v) {
+            long before = words[v >>> 6];
+            words[v >>> 6] = before & ~(1L << v);
+            boolean removed = before != words[v >>> 6];
+            if (removed) card--;
+            return removed;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return (words[v >>> 6] & (1L << v)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            BitmapContainer o = (BitmapContainer) other;
+            BitmapContainer out = new BitmapContainer();
+            for (int i = 0; i < words.length; i++) {
+                out.words[i] = words[i] & o.words[i];
+                out.card += Long.bitCount(out.words[i]);
+            }
+            return out.card <= ARRAY_MAX ? out.toArray() : out;
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer out = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer o) {
+                for (int i = 0; i < o.n; i++) {
+                    out.add(o.values[i]);
+                }
+            } else {
+                BitmapContainer o = (BitmapContainer) other;
+                out.card = 0;
+                for (int i = 0; i < words.length; i++) {
+                    out.words[i] |= o.words[i];
+                    out.card += Long.bitCount(out.words[i]);
+                }
+            }
+            return out;
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer out = new BitmapContainer();
+            System.arraycopy(words, 0, out.words, 0, words.length);
+            out.card = card;
+            return out;
+        }
+
+        @Override
+        void forEach(long high, LongConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    action.accept(high | ((long) i << 6) | Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+        }
+
+        ArrayContainer toArray() {
+            ArrayContainer a = new ArrayContainer();
+            a.values = new char[Math.max(1, card)];
+            forEach(0, v -> a.values[a.n++] = (char) v);
+            return a;
+        }
+    }
+}
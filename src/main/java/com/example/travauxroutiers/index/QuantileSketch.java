@@ -0,0 +1,99 @@
+package com.example.travauxroutiers.index;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch over non-negative values, with logarithmic buckets (DDSketch-style):
+ * a value v lands in bucket ceil(log_gamma(v)), so every reported quantile is within
+ * {@code relativeAccuracy} of a real value of the distribution. Memory depends only on the
+ * ratio between the largest and the smallest non-zero value, not on the number of values.
+ *
+ * Buckets are plain counters, so a value is removed exactly by adding it with a negative
+ * count, and two sketches with the same accuracy merge by summing their buckets.
+ * Not thread-safe: owners guard it with their own lock.
+ */
+public final class QuantileSketch {
+    /** Values below this are counted in the zero bucket. */
+    private static final double MIN_POSITIVE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private long zeroCount;
+    /** counts[i] is bucket {@code offset + i}. */
+    private long[] counts = new long[0];
+    private int offset;
+    private long total;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /** Adds {@code n} occurrences of the value; a negative {@code n} removes them. */
+    public void add(double value, long n) {
+        if (value < MIN_POSITIVE) {
+            zeroCount += n;
+        } else {
+            int index = (int) Math.ceil(Math.log(value) / logGamma);
+            ensureBucket(index);
+            counts[index - offset] += n;
+        }
+        total += n;
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("cannot merge sketches of different accuracy");
+        }
+        zeroCount += other.zeroCount;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                ensureBucket(other.offset + i);
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        total += other.total;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    /** Value at quantile {@code q} in [0, 1]; NaN when the sketch is empty. */
+    public double quantile(double q) {
+        if (total <= 0) return Double.NaN;
+        double rank = q * (total - 1);
+        long seen = zeroCount;
+        if (seen > rank) return 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, offset + counts.length - 1) / (gamma + 1);
+    }
+
+    private void ensureBucket(int index) {
+        if (counts.length == 0) {
+            counts = new long[1];
+            offset = index;
+        } else if (index < offset) {
+            long[] grown = new long[counts.length + (offset - index)];
+            System.arraycopy(counts, 0, grown, offset - index, counts.length);
+            counts = grown;
+            offset = index;
+        } else if (index >= offset + counts.length) {
+            counts = Arrays.copyOf(counts, index - offset + 1);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.travauxroutiers.index;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.travauxroutiers.dto.SignalementDtos;
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+
+/**
+ * One {@link IdBitmap} per status, entreprise, validation status and report day, over the
+ * signalement ids. An arbitrary filter is answered with bitmap operations: OR between the
+ * values of one attribute, AND between attributes. Report days only need an exact date check
+ * for the (at most two) partial days at the ends of a time range. Signalements without a
+ * report date are kept in their own bitmap: no time range matches them, and pages list them
+ * after every dated one (date desc nulls last, like {@code SignalementRepository.findSummaryPage}).
+ */
+@Component
+public class SignalementBitmapIndex implements SignalementIndex {
+    /** Key used for signalements without a status or an entreprise (ids start at 1). */
+    public static final long NONE = 0L;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IdBitmap all = new IdBitmap();
+    private final Map<Long, IdBitmap> byStatus = new HashMap<>();
+    private final Map<Long, IdBitmap> byEntreprise = new HashMap<>();
+    private final Map<String, IdBitmap> byValidation = new HashMap<>();
+    /** Epoch day of date_signalement. */
+    private final TreeMap<Long, IdBitmap> byDay = new TreeMap<>();
+    /** Signalements without date_signalement. */
+    private IdBitmap undated = new IdBitmap();
+    /** Exact report date, only read for the partial days at the ends of a range. */
+    private final Map<Long, LocalDateTime> reportedAt = new HashMap<>();
+
+    @Override
+    public void rebuild(Collection<SignalementPoint> points) {
+        lock.writeLock().lock();
+        try {
+            all = new IdBitmap();
+            byStatus.clear();
+            byEntreprise.clear();
+            byValidation.clear();
+            byDay.clear();
+            undated = new IdBitmap();
+            reportedAt.clear();
+            for (SignalementPoint p : points) {
+                add(p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getBefore() != null) remove(event.getBefore());
+            if (event.getAfter() != null) add(event.getAfter());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ids matching every criterion of the filter (null or empty criteria do not filter). */
+    public IdBitmap select(SignalementDtos.ListFilter filter) {
+        lock.readLock().lock();
+        try {
+            IdBitmap result = null;
+            result = restrict(result, union(byStatus, filter.getStatusIds()));
+            result = restrict(result, union(byEntreprise, filter.getEntrepriseIds()));
+            result = restrict(result, union(byValidation, upperCase(filter.getValidationStatuses())));
+            if (filter.getFrom() != null || filter.getTo() != null) {
+                result = restrict(result, between(filter.getFrom(), filter.getTo()));
+            }
+            return result != null ? result : all.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(SignalementDtos.ListFilter filter) {
+        return select(filter).cardinality();
+    }
+
+    /**
+     * Ids of {@code candidates} on the latest report days strictly before the keyset position
+     * (cursorDate, cursorId) — or from the latest day without a cursor — taking whole days until
+     * at least {@code wanted} ids are gathered, then the highest undated ids if the days run
+     * out. A cursor with an id but no date points into the undated rows. Sorting the result by
+     * (date desc nulls last, id desc) and keeping the first {@code wanted} gives exactly the next page.
+     */
+    public IdBitmap latestDays(IdBitmap candidates, LocalDateTime cursorDate, Long cursorId, int wanted) {
+        lock.readLock().lock();
+        try {
+            if (cursorDate == null && cursorId != null) {
+                return highest(IdBitmap.and(undated, candidates), cursorId, wanted);
+            }
+            NavigableMap<Long, IdBitmap> days = cursorDate != null
+                    ? byDay.headMap(dayKey(cursorDate), true).descendingMap()
+                    : byDay.descendingMap();
+            IdBitmap out = new IdBitmap();
+            long gathered = 0;
+            for (Map.Entry<Long, IdBitmap> e : days.entrySet()) {
+                IdBitmap ids = IdBitmap.and(e.getValue(), candidates);
+                if (cursorDate != null && e.getKey() == dayKey(cursorDate)) {
+                    IdBitmap before = new IdBitmap();
+                    ids.forEach(id -> {
+                        LocalDateTime t = reportedAt.get(id);
+                        if (t.isBefore(cursorDate) || (t.equals(cursorDate) && id < cursorId)) before.add(id);
+                    });
+                    ids = before;
+                }
+                out = IdBitmap.or(out, ids);
+                gathered += ids.cardinality();
+                if (gathered >= wanted) return out;
+            }
+            return IdBitmap.or(out, highest(IdBitmap.and(undated, candidates), null, (int) (wanted - gathered)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Full days strictly inside the range by bitmap, the partial end days by exact date. */
+    private IdBitmap between(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) return new IdBitmap();
+        long firstDay = from != null ? dayKey(from) : Long.MIN_VALUE;
+        boolean toMidnight = to != null && to.toLocalTime().equals(LocalTime.MIDNIGHT);
+        long lastDay = to == null ? Long.MAX_VALUE : dayKey(to) - (toMidnight ? 1 : 0);
+        IdBitmap out = new IdBitmap();
+        for (Map.Entry<Long, IdBitmap> e : byDay.subMap(firstDay, true, lastDay, true).entrySet()) {
+            long day = e.getKey();
+            boolean partialStart = from != null && day == firstDay && !from.toLocalTime().equals(LocalTime.MIDNIGHT);
+            boolean partialEnd = to != null && !toMidnight && day == lastDay;
+            if (!partialStart && !partialEnd) {
+                out = IdBitmap.or(out, e.getValue());
+                continue;
+            }
+            IdBitmap exact = new IdBitmap();
+            e.getValue().forEach(id -> {
+                LocalDateTime t = reportedAt.get(id);
+                if ((from == null || !t.isBefore(from)) && (to == null || t.isBefore(to))) exact.add(id);
+            });
+            out = IdBitmap.or(out, exact);
+        }
+        return out;
+    }
+
+    /** The {@code n} highest ids of {@code ids} below {@code belowId} (no bound when null). */
+    private static IdBitmap highest(IdBitmap ids, Long belowId, int n) {
+        long[] sorted = ids.toArray();
+        int end = sorted.length;
+        while (belowId != null && end > 0 && sorted[end - 1] >= belowId) end--;
+        IdBitmap out = new IdBitmap();
+        for (int i = end - 1; i >= 0 && i >= end - n; i--) {
+            out.add(sorted[i]);
+        }
+        return out;
+    }
+
+    private static <K> IdBitmap union(Map<K, IdBitmap> bitmaps, List<K> values) {
+        if (values == null || values.isEmpty()) return null;
+        IdBitmap out = new IdBitmap();
+        for (K value : values) {
+            IdBitmap b = bitmaps.get(value);
+            if (b != null) out = IdBitmap.or(out, b);
+        }
+        return out;
+    }
+
+    private static IdBitmap restrict(IdBitmap current, IdBitmap criterion) {
+        if (criterion == null) return current;
+        return current == null ? criterion : IdBitmap.and(current, criterion);
+    }
+
+    private static List<String> upperCase(List<String> values) {
+        return values == null ? null : values.stream().map(String::toUpperCase).toList();
+    }
+
+    private void add(SignalementPoint p) {
+        long id = p.getId();
+        all.add(id);
+        byStatus.computeIfAbsent(statusKey(p), k -> new IdBitmap()).add(id);
+        byEntreprise.computeIfAbsent(entrepriseKey(p), k -> new IdBitmap()).add(id);
+        byValidation.computeIfAbsent(p.getValidationStatusName().toUpperCase(), k -> new IdBitmap()).add(id);
+        if (p.getDateSignalement() != null) {
+            byDay.computeIfAbsent(dayKey(p.getDateSignalement()), k -> new IdBitmap()).add(id);
+            reportedAt.put(id, p.getDateSignalement());
+        } else {
+            undated.add(id);
+        }
+    }
+
+    private void remove(SignalementPoint p) {
+        long id = p.getId();
+        all.remove(id);
+        removeFrom(byStatus, statusKey(p), id);
+        removeFrom(byEntreprise, entrepriseKey(p), id);
+        removeFrom(byValidation, p.getValidationStatusName().toUpperCase(), id);
+        if (p.getDateSignalement() != null) {
+            removeFrom(byDay, dayKey(p.getDateSignalement()), id);
+            reportedAt.remove(id);
+        } else {
+            undated.remove(id);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, IdBitmap> bitmaps, K key, long id) {
+        IdBitmap b = bitmaps.get(key);
+        if (b == null) return;
+        b.remove(id);
+        if (b.isEmpty()) bitmaps.remove(key);
+    }
+
+    private static long statusKey(SignalementPoint p) {
+        return p.getStatusId() != null ? p.getStatusId() : NONE;
+    }
+
+    private static long entrepriseKey(SignalementPoint p) {
+        return p.getEntrepriseId() != null ? p.getEntrepriseId() : NONE;
+    }
+
+    private static long dayKey(LocalDateTime t) {
+        return t.toLocalDate().toEpochDay();
+    }
+}
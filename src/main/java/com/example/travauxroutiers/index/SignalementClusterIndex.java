@@ -0,0 +1,316 @@
+package com.example.travauxroutiers.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.travauxroutiers.dto.SignalementDtos;
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+
+/**
+ * Precomputed quadkey hierarchy of marker clusters.
+ *
+ * For every level 0..{@link #MAX_LEVEL} each signalement contributes to exactly one cell
+ * (its Web Mercator tile at that level). Cells keep running aggregates (count, coordinate sums
+ * for the centroid, status breakdown, budget and surface sums), so a write updates
+ * MAX_LEVEL + 1 cells and a query only reads the cells in range — it never touches the points.
+ *
+ * Clusters for a map zoom z are the cells of level z + {@link #CLUSTER_SHIFT}, i.e. a 4x4 grid
+ * per 256px map tile. Heatmap bins are the finer cells of level z + {@link #HEATMAP_SHIFT}
+ * (16x16 per map tile), read from the same hierarchy.
+ */
+@Component
+public class SignalementClusterIndex implements SignalementIndex {
+    public static final int MAX_LEVEL = 18;
+    public static final int CLUSTER_SHIFT = 2;
+    public static final int HEATMAP_SHIFT = 4;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Map<Long, Cell>> levels = new ArrayList<>();
+    /** Distinguishes stamps from a previous process in ETags. */
+    private final long epoch = System.currentTimeMillis();
+    private long stampCounter;
+
+    public SignalementClusterIndex() {
+        for (int level = 0; level <= MAX_LEVEL; level++) {
+            levels.add(new HashMap<>());
+        }
+    }
+
+    @Override
+    public void rebuild(Collection<SignalementPoint> points) {
+        lock.writeLock().lock();
+        try {
+            levels.forEach(Map::clear);
+            for (SignalementPoint p : points) {
+                apply(p, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getBefore() != null) apply(event.getBefore(), -1);
+            if (event.getAfter() != null) apply(event.getAfter(), 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static int levelForZoom(int zoom) {
+        return Math.max(0, Math.min(MAX_LEVEL, zoom + CLUSTER_SHIFT));
+    }
+
+    public static int heatmapLevelForZoom(int zoom) {
+        return Math.max(0, Math.min(MAX_LEVEL, zoom + HEATMAP_SHIFT));
+    }
+
+    /**
+     * Heatmap bins whose cell intersects the box, for the given map zoom, as parallel arrays.
+     * A cell id is {@code y * 2^level + x} (below 2^36, so exact in JavaScript numbers).
+     */
+    public SignalementDtos.Heatmap heatmap(double minLat, double minLng, double maxLat, double maxLng, int zoom,
+            HeatWeight weight) {
+        int level = heatmapLevelForZoom(zoom);
+        int x0 = TileMath.tileX(minLng, level);
+        int x1 = TileMath.tileX(maxLng, level);
+        int y0 = TileMath.tileY(maxLat, level);
+        int y1 = TileMath.tileY(minLat, level);
+        long side = 1L << level;
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Cell> cells = levels.get(level);
+            double rangeCells = (double) (x1 - x0 + 1) * (y1 - y0 + 1);
+            HeatmapBuilder out = new HeatmapBuilder((int) Math.min(cells.size(), rangeCells), weight);
+            if (rangeCells > cells.size()) {
+                for (Map.Entry<Long, Cell> e : cells.entrySet()) {
+                    int cx = TileMath.keyX(e.getKey());
+                    int cy = TileMath.keyY(e.getKey());
+                    if (cx >= x0 && cx <= x1 && cy >= y0 && cy <= y1) {
+                        out.add(cy * side + cx, e.getValue());
+                    }
+                }
+            } else {
+                for (int cx = x0; cx <= x1; cx++) {
+                    for (int cy = y0; cy <= y1; cy++) {
+                        Cell cell = cells.get(TileMath.key(cx, cy));
+                        if (cell != null) {
+                            out.add(cy * side + cx, cell);
+                        }
+                    }
+                }
+            }
+            return out.build(level);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Clusters whose cell intersects the box, for the given map zoom. */
+    public List<SignalementDtos.Cluster> query(double minLat, double minLng, double maxLat, double maxLng, int zoom) {
+        int level = levelForZoom(zoom);
+        int x0 = TileMath.tileX(minLng, level);
+        int x1 = TileMath.tileX(maxLng, level);
+        int y0 = TileMath.tileY(maxLat, level);
+        int y1 = TileMath.tileY(minLat, level);
+        return collect(level, x0, x1, y0, y1, null);
+    }
+
+    /**
+     * Clusters of one map tile. Below {@link #MAX_LEVEL} the tile is split into its child cells;
+     * beyond it the enclosing cell is returned only by the tile that holds its centroid, so
+     * adjacent tiles never repeat a cluster.
+     */
+    public TileClusters tile(int z, int x, int y) {
+        int level = levelForZoom(z);
+        if (level >= z) {
+            int shift = level - z;
+            return stamped(collectStamped(level, x << shift, ((x + 1) << shift) - 1,
+                    y << shift, ((y + 1) << shift) - 1, null));
+        }
+        int d = z - level;
+        double[] bounds = { TileMath.tileNorth(y + 1, z), TileMath.tileWest(x, z),
+                TileMath.tileNorth(y, z), TileMath.tileWest(x + 1, z) };
+        return stamped(collectStamped(level, x >> d, x >> d, y >> d, y >> d, bounds));
+    }
+
+    private List<SignalementDtos.Cluster> collect(int level, int x0, int x1, int y0, int y1, double[] centroidBounds) {
+        return collectStamped(level, x0, x1, y0, y1, centroidBounds).clusters;
+    }
+
+    private Stamped collectStamped(int level, int x0, int x1, int y0, int y1, double[] centroidBounds) {
+        Stamped out = new Stamped();
+        lock.readLock().lock();
+        try {
+            Map<Long, Cell> cells = levels.get(level);
+            double rangeCells = (double) (x1 - x0 + 1) * (y1 - y0 + 1);
+            if (rangeCells > cells.size()) {
+                for (Map.Entry<Long, Cell> e : cells.entrySet()) {
+                    int cx = TileMath.keyX(e.getKey());
+                    int cy = TileMath.keyY(e.getKey());
+                    if (cx >= x0 && cx <= x1 && cy >= y0 && cy <= y1) {
+                        add(out, level, cx, cy, e.getValue(), centroidBounds);
+                    }
+                }
+            } else {
+                for (int cx = x0; cx <= x1; cx++) {
+                    for (int cy = y0; cy <= y1; cy++) {
+                        Cell cell = cells.get(TileMath.key(cx, cy));
+                        if (cell != null) {
+                            add(out, level, cx, cy, cell, centroidBounds);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return out;
+    }
+
+    private static void add(Stamped out, int level, int x, int y, Cell cell, double[] centroidBounds) {
+        double lat = cell.sumLat / cell.count;
+        double lng = cell.sumLng / cell.count;
+        if (centroidBounds != null && (lat < centroidBounds[0] || lat >= centroidBounds[2]
+                || lng < centroidBounds[1] || lng >= centroidBounds[3])) {
+            return;
+        }
+        Map<String, Integer> byStatus = new LinkedHashMap<>();
+        for (int i = 0; i < cell.statusNames.length; i++) {
+            if (cell.statusCounts[i] > 0) byStatus.put(cell.statusNames[i], cell.statusCounts[i]);
+        }
+        out.clusters.add(new SignalementDtos.Cluster(TileMath.quadkey(x, y, level), cell.count, lat, lng,
+                byStatus, cell.budget, cell.surface));
+        out.maxStamp = Math.max(out.maxStamp, cell.stamp);
+    }
+
+    private TileClusters stamped(Stamped s) {
+        // Any change inside the tile either bumps the newest stamp or changes the cluster count
+        String etag = "W/\"" + Long.toHexString(epoch) + "-" + s.maxStamp + "-" + s.clusters.size() + "\"";
+        return new TileClusters(s.clusters, etag);
+    }
+
+    private void apply(SignalementPoint p, int sign) {
+        long stamp = ++stampCounter;
+        for (int level = 0; level <= MAX_LEVEL; level++) {
+            long key = TileMath.key(TileMath.tileX(p.getLongitude(), level), TileMath.tileY(p.getLatitude(), level));
+            Map<Long, Cell> cells = levels.get(level);
+            Cell cell = cells.computeIfAbsent(key, k -> new Cell());
+            cell.count += sign;
+            cell.sumLat += sign * p.getLatitude();
+            cell.sumLng += sign * p.getLongitude();
+            cell.budget += sign * p.getBudget();
+            cell.surface += sign * p.getSurfaceArea();
+            cell.addStatus(p.getStatusName() != null ? p.getStatusName() : "INCONNU", sign);
+            cell.stamp = stamp;
+            if (cell.count <= 0) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    /** What a heatmap bin is weighted by. */
+    public enum HeatWeight {
+        COUNT, BUDGET, SURFACE;
+
+        public static HeatWeight fromName(String name) {
+            for (HeatWeight w : values()) {
+                if (w.name().equalsIgnoreCase(name)) return w;
+            }
+            return null;
+        }
+    }
+
+    private static class HeatmapBuilder {
+        final HeatWeight weight;
+        long[] ids;
+        int[] counts;
+        double[] weights;
+        int size;
+
+        HeatmapBuilder(int capacity, HeatWeight weight) {
+            this.weight = weight;
+            this.ids = new long[Math.max(capacity, 1)];
+            this.counts = new int[ids.length];
+            this.weights = new double[ids.length];
+        }
+
+        void add(long id, Cell cell) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ids[size] = id;
+            counts[size] = cell.count;
+            weights[size] = switch (weight) {
+                case BUDGET -> cell.budget;
+                case SURFACE -> cell.surface;
+                default -> cell.count;
+            };
+            size++;
+        }
+
+        SignalementDtos.Heatmap build(int level) {
+            return new SignalementDtos.Heatmap(level, weight.name().toLowerCase(), Arrays.copyOf(ids, size),
+                    Arrays.copyOf(counts, size), Arrays.copyOf(weights, size));
+        }
+    }
+
+    /** Clusters of one tile plus a validator that changes whenever one of them does. */
+    public static class TileClusters {
+        private final List<SignalementDtos.Cluster> clusters;
+        private final String etag;
+
+        TileClusters(List<SignalementDtos.Cluster> clusters, String etag) {
+            this.clusters = clusters;
+            this.etag = etag;
+        }
+
+        public List<SignalementDtos.Cluster> getClusters() { return clusters; }
+        public String getEtag() { return etag; }
+    }
+
+    private static class Stamped {
+        final List<SignalementDtos.Cluster> clusters = new ArrayList<>();
+        long maxStamp;
+    }
+
+    private static class Cell {
+        int count;
+        double sumLat;
+        double sumLng;
+        double budget;
+        double surface;
+        long stamp;
+        // A handful of statuses at most: parallel arrays are lighter than a map per cell
+        String[] statusNames = new String[0];
+        int[] statusCounts = new int[0];
+
+        void addStatus(String name, int delta) {
+            for (int i = 0; i < statusNames.length; i++) {
+                if (statusNames[i].equals(name)) {
+                    statusCounts[i] += delta;
+                    return;
+                }
+            }
+            statusNames = Arrays.copyOf(statusNames, statusNames.length + 1);
+            statusCounts = Arrays.copyOf(statusCounts, statusCounts.length + 1);
+            statusNames[statusNames.length - 1] = name;
+            statusCounts[statusCounts.length - 1] = delta;
+        }
+    }
+}
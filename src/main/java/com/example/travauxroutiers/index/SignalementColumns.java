@@ -0,0 +1,227 @@
+package com.example.travauxroutiers.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+
+/**
+ * Struct-of-arrays copy of the signalements for ad-hoc filtered aggregates: one primitive
+ * array per aggregated attribute, one slot per signalement. Attribute and date criteria are resolved by
+ * {@link SignalementBitmapIndex}; this class sums the selected slots, or scans every slot in
+ * a tight loop (split across the common fork-join pool for large tables) when only a
+ * bounding box is given. It never touches JPA or boxed objects.
+ *
+ * Slots are dense: a deleted signalement's slot is filled with the last one.
+ */
+@Component
+public class SignalementColumns implements SignalementIndex {
+    /** Below this many rows a sequential scan beats the fork-join overhead. */
+    static final int PARALLEL_THRESHOLD = 50_000;
+    private static final int CHUNK = 16_384;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    private int size;
+    private long[] ids = new long[0];
+    private double[] latitudes = new double[0];
+    private double[] longitudes = new double[0];
+    private long[] budgetCents = new long[0];
+    private float[] surfaces = new float[0];
+    private int[] statusIds = new int[0];
+    /** NaN until the works are finished. */
+    private float[] treatmentDays = new float[0];
+
+    @Override
+    public void rebuild(Collection<SignalementPoint> points) {
+        lock.writeLock().lock();
+        try {
+            slotById.clear();
+            size = 0;
+            grow(points.size());
+            for (SignalementPoint p : points) {
+                put(p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getAfter() != null) {
+                put(event.getAfter());
+            } else {
+                remove(event.getSignalementId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Totals per status id ({@link SignalementStatsAggregate#NO_STATUS} for none) of the rows in
+     * {@code candidates} (every row when null, e.g. from {@link SignalementBitmapIndex#select})
+     * that lie in {@code bbox} (minLat, minLng, maxLat, maxLng, inclusive; no bound when null).
+     */
+    public Aggregate aggregate(IdBitmap candidates, double[] bbox) {
+        lock.readLock().lock();
+        try {
+            if (candidates != null) {
+                Aggregate out = new Aggregate();
+                candidates.forEach(id -> {
+                    Integer slot = slotById.get(id);
+                    if (slot != null && inBox(slot, bbox)) add(out, slot);
+                });
+                return out;
+            }
+            if (size < PARALLEL_THRESHOLD) {
+                return scan(bbox, 0, size);
+            }
+            int chunks = (size + CHUNK - 1) / CHUNK;
+            // Workers only read; the caller holds the read lock for the whole scan
+            return IntStream.range(0, chunks).parallel()
+                    .mapToObj(c -> scan(bbox, c * CHUNK, Math.min(size, (c + 1) * CHUNK)))
+                    .collect(Aggregate::new, Aggregate::merge, Aggregate::merge);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Aggregate scan(double[] bbox, int from, int to) {
+        Aggregate out = new Aggregate();
+        if (bbox == null) {
+            for (int i = from; i < to; i++) {
+                add(out, i);
+            }
+            return out;
+        }
+        double minLat = bbox[0], minLng = bbox[1], maxLat = bbox[2], maxLng = bbox[3];
+        for (int i = from; i < to; i++) {
+            double lat = latitudes[i];
+            double lng = longitudes[i];
+            if (lat < minLat || lng < minLng || lat > maxLat || lng > maxLng) continue;
+            add(out, i);
+        }
+        return out;
+    }
+
+    private boolean inBox(int i, double[] bbox) {
+        return bbox == null || (latitudes[i] >= bbox[0] && longitudes[i] >= bbox[1]
+                && latitudes[i] <= bbox[2] && longitudes[i] <= bbox[3]);
+    }
+
+    private void add(Aggregate out, int i) {
+        out.add(statusIds[i], budgetCents[i], surfaces[i], treatmentDays[i]);
+    }
+
+    private void put(SignalementPoint p) {
+        Integer slot = slotById.get(p.getId());
+        int i;
+        if (slot != null) {
+            i = slot;
+        } else {
+            if (size == ids.length) grow(Math.max(16, size * 2));
+            i = size++;
+            slotById.put(p.getId(), i);
+        }
+        ids[i] = p.getId();
+        latitudes[i] = p.getLatitude();
+        longitudes[i] = p.getLongitude();
+        budgetCents[i] = Math.round(p.getBudget() * 100);
+        surfaces[i] = (float) p.getSurfaceArea();
+        statusIds[i] = p.getStatusId() != null ? (int) (long) p.getStatusId() : (int) SignalementStatsAggregate.NO_STATUS;
+        treatmentDays[i] = p.getTreatmentDays() != null ? p.getTreatmentDays() : Float.NaN;
+    }
+
+    private void remove(Long id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) return;
+        int last = --size;
+        if (slot != last) {
+            int i = slot;
+            ids[i] = ids[last];
+            latitudes[i] = latitudes[last];
+            longitudes[i] = longitudes[last];
+            budgetCents[i] = budgetCents[last];
+            surfaces[i] = surfaces[last];
+            statusIds[i] = statusIds[last];
+            treatmentDays[i] = treatmentDays[last];
+            slotById.put(ids[i], i);
+        }
+    }
+
+    private void grow(int capacity) {
+        if (capacity <= ids.length) return;
+        ids = Arrays.copyOf(ids, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        budgetCents = Arrays.copyOf(budgetCents, capacity);
+        surfaces = Arrays.copyOf(surfaces, capacity);
+        statusIds = Arrays.copyOf(statusIds, capacity);
+        treatmentDays = Arrays.copyOf(treatmentDays, capacity);
+    }
+
+    /** Totals of a filtered scan; mergeable so chunks can be scanned in parallel. */
+    public static final class Aggregate {
+        private final Map<Integer, long[]> countAndCents = new HashMap<>();
+        private final Map<Integer, double[]> surfaces = new HashMap<>();
+        private double treatmentDaysSum;
+        private long treatmentCount;
+
+        void add(int statusId, long cents, float surface, float days) {
+            long[] c = countAndCents.computeIfAbsent(statusId, k -> new long[2]);
+            c[0]++;
+            c[1] += cents;
+            surfaces.computeIfAbsent(statusId, k -> new double[1])[0] += surface;
+            if (!Float.isNaN(days)) {
+                treatmentDaysSum += days;
+                treatmentCount++;
+            }
+        }
+
+        Aggregate merge(Aggregate other) {
+            other.countAndCents.forEach((k, v) -> {
+                long[] c = countAndCents.computeIfAbsent(k, x -> new long[2]);
+                c[0] += v[0];
+                c[1] += v[1];
+            });
+            other.surfaces.forEach((k, v) -> surfaces.computeIfAbsent(k, x -> new double[1])[0] += v[0]);
+            treatmentDaysSum += other.treatmentDaysSum;
+            treatmentCount += other.treatmentCount;
+            return this;
+        }
+
+        /** Same shape as {@link SignalementStatsAggregate#snapshot()}. */
+        public Map<Long, SignalementStatsAggregate.StatusTotals> totalsByStatus() {
+            Map<Long, SignalementStatsAggregate.StatusTotals> out = new HashMap<>();
+            countAndCents.forEach((statusId, c) -> out.put((long) statusId,
+                    new SignalementStatsAggregate.StatusTotals(c[0], surfaces.get(statusId)[0], c[1] / 100.0)));
+            return out;
+        }
+
+        /** 0 when no matching signalement has a treatment duration, like the global figure. */
+        public double averageTreatmentDays() {
+            return treatmentCount > 0 ? treatmentDaysSum / treatmentCount : 0.0;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.travauxroutiers.index;
+
+import java.util.Collection;
+
+/**
+ * An in-memory structure derived from the signalement table. Implementations are
+ * bulk-loaded once by {@link SignalementIndexLoader} and then maintained incrementally
+ * from {@link com.example.travauxroutiers.event.SignalementChangedEvent}s.
+ */
+public interface SignalementIndex {
+    /** Replaces the whole content of the index. */
+    void rebuild(Collection<SignalementPoint> points);
+}
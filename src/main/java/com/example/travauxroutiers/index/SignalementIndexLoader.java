@@ -0,0 +1,107 @@
+package com.example.travauxroutiers.index;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.example.travauxroutiers.repository.SignalementRepository;
+import com.example.travauxroutiers.repository.SignalementStatusRepository;
+
+/**
+ * Loads the signalement points once at startup (single projection query, no entities)
+ * and hands them to every {@link SignalementIndex} bean, then loads the status history
+ * into the {@link StatusTransitionIndex}.
+ *
+ * Runs as a lifecycle bean in an early phase, on the startup thread, before the web server,
+ * the schedulers and the ApplicationReadyEvent listeners (Firestore listener) start: no
+ * change event can be published between the database read and the swap, which would be
+ * lost since rebuild replaces each index wholesale.
+ *
+ * The transition index is also reloaded later, on read, once it has gone stale (see
+ * {@link StatusTransitionIndex}); at most once per {@code statistics.transitions.min-reload-interval-ms}.
+ */
+@Component
+public class SignalementIndexLoader implements SmartLifecycle {
+    /** Well before the web server (DEFAULT_PHASE - 2048) and the other late lifecycle beans. */
+    static final int PHASE = 0;
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalementIndexLoader.class);
+
+    private final SignalementRepository signalementRepository;
+    private final List<SignalementIndex> indexes;
+    private final SignalementStatusRepository signalementStatusRepository;
+    private final StatusTransitionIndex transitionIndex;
+    private final long minReloadIntervalMillis;
+    private long lastTransitionsReload;
+
+    public SignalementIndexLoader(SignalementRepository signalementRepository, List<SignalementIndex> indexes,
+            SignalementStatusRepository signalementStatusRepository, StatusTransitionIndex transitionIndex,
+            @Value("${statistics.transitions.min-reload-interval-ms:60000}") long minReloadIntervalMillis) {
+        this.signalementRepository = signalementRepository;
+        this.indexes = indexes;
+        this.signalementStatusRepository = signalementStatusRepository;
+        this.transitionIndex = transitionIndex;
+        this.minReloadIntervalMillis = minReloadIntervalMillis;
+    }
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        rebuildAll();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void rebuildAll() {
+        long start = System.currentTimeMillis();
+        List<SignalementPoint> points = signalementRepository.findAllPoints();
+        for (SignalementIndex index : indexes) {
+            index.rebuild(points);
+        }
+        logger.info("[index] {} signalements loaded into {} indexes in {} ms",
+                points.size(), indexes.size(), System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        List<StatusHistoryEntry> history = signalementStatusRepository.findAllHistoryEntries();
+        transitionIndex.rebuild(history);
+        lastTransitionsReload = System.currentTimeMillis();
+        logger.info("[index] {} status history entries loaded in {} ms",
+                history.size(), lastTransitionsReload - start);
+    }
+
+    /**
+     * Reloads the transition index from the status history if an event it could not apply
+     * incrementally made it stale, unless it was already reloaded less than the minimum
+     * interval ago (readers then get the slightly stale quantiles).
+     */
+    public synchronized void reloadTransitionsIfStale() {
+        long now = System.currentTimeMillis();
+        if (!transitionIndex.isStale() || now - lastTransitionsReload < minReloadIntervalMillis)
+            return;
+        long readVersion = transitionIndex.version();
+        List<StatusHistoryEntry> history = signalementStatusRepository.findAllHistoryEntries();
+        transitionIndex.rebuild(history, readVersion);
+        lastTransitionsReload = System.currentTimeMillis();
+        logger.info("[index] transition index reloaded from {} status history entries in {} ms",
+                history.size(), lastTransitionsReload - now);
+    }
+}
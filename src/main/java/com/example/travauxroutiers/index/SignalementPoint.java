@@ -0,0 +1,87 @@
+package com.example.travauxroutiers.index;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.example.travauxroutiers.model.Signalement;
+
+/**
+ * Immutable, entity-free view of the fields the in-memory indexes need.
+ * Built either from a managed entity or directly by a JPQL constructor expression.
+ */
+public final class SignalementPoint {
+    private final Long id;
+    private final double latitude;
+    private final double longitude;
+    private final Long statusId;
+    private final String statusName;
+    /** 0 when the column is null. */
+    private final double surfaceArea;
+    /** 0 when the column is null. */
+    private final double budget;
+    /** Validation status name; a missing validation counts as PENDING. */
+    private final String validationStatusName;
+    private final Long entrepriseId;
+    private final LocalDateTime dateSignalement;
+    /** Days from start to end of works; null until the works are finished. */
+    private final Long treatmentDays;
+
+    public SignalementPoint(Long id, double latitude, double longitude, Long statusId, String statusName,
+            double surfaceArea, double budget, String validationStatusName, Long entrepriseId,
+            LocalDateTime dateSignalement, Long treatmentDays) {
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.statusId = statusId;
+        this.statusName = statusName;
+        this.surfaceArea = surfaceArea;
+        this.budget = budget;
+        this.validationStatusName = validationStatusName != null ? validationStatusName : "PENDING";
+        this.entrepriseId = entrepriseId;
+        this.dateSignalement = dateSignalement;
+        this.treatmentDays = treatmentDays;
+    }
+
+    /** Constructor used by {@code select new ...SignalementPoint(...)} queries. */
+    public SignalementPoint(Long id, BigDecimal latitude, BigDecimal longitude, Long statusId, String statusName,
+            BigDecimal surfaceArea, BigDecimal budget, String validationStatusName, Long entrepriseId,
+            LocalDateTime dateSignalement, Long treatmentDays) {
+        this(id, latitude.doubleValue(), longitude.doubleValue(), statusId, statusName,
+                surfaceArea != null ? surfaceArea.doubleValue() : 0.0,
+                budget != null ? budget.doubleValue() : 0.0,
+                validationStatusName, entrepriseId, dateSignalement, treatmentDays);
+    }
+
+    /** Returns null when the entity has no id or no coordinates yet. */
+    public static SignalementPoint of(Signalement s) {
+        if (s == null || s.getId() == null || s.getLatitude() == null || s.getLongitude() == null) {
+            return null;
+        }
+        return new SignalementPoint(
+                s.getId(),
+                s.getLatitude().doubleValue(),
+                s.getLongitude().doubleValue(),
+                s.getStatus() != null ? s.getStatus().getId() : null,
+                s.getStatus() != null ? s.getStatus().getName() : null,
+                s.getSurfaceArea() != null ? s.getSurfaceArea().doubleValue() : 0.0,
+                s.getBudget() != null ? s.getBudget().doubleValue() : 0.0,
+                s.getValidation() != null && s.getValidation().getStatus() != null
+                        ? s.getValidation().getStatus().getName()
+                        : null,
+                s.getEntreprise() != null ? s.getEntreprise().getId() : null,
+                s.getDateSignalement(),
+                s.getTreatmentDays());
+    }
+
+    public Long getId() { return id; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public Long getStatusId() { return statusId; }
+    public String getStatusName() { return statusName; }
+    public double getSurfaceArea() { return surfaceArea; }
+    public double getBudget() { return budget; }
+    public String getValidationStatusName() { return validationStatusName; }
+    public Long getEntrepriseId() { return entrepriseId; }
+    public LocalDateTime getDateSignalement() { return dateSignalement; }
+    public Long getTreatmentDays() { return treatmentDays; }
+}
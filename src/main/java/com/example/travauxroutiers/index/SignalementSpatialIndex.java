@@ -0,0 +1,149 @@
+package com.example.travauxroutiers.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+
+/**
+ * In-process uniform grid over latitude/longitude.
+ *
+ * Each signalement lives in exactly one cell of {@code cellSizeDeg} degrees. A viewport query
+ * visits only the cells overlapping the box (or the occupied cells, whichever is fewer), so its
+ * cost is proportional to the viewport and to the number of hits, not to the table size.
+ * The grid is loaded once at startup and then kept current from {@link SignalementChangedEvent}s.
+ */
+@Component
+public class SignalementSpatialIndex implements SignalementIndex {
+    private final double cellSizeDeg;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Map<Long, SignalementPoint>> cells = new HashMap<>();
+    private final Map<Long, SignalementPoint> byId = new HashMap<>();
+
+    public SignalementSpatialIndex(@Value("${signalements.spatial-index.cell-size-deg:0.01}") double cellSizeDeg) {
+        this.cellSizeDeg = cellSizeDeg;
+    }
+
+    @Override
+    public void rebuild(Collection<SignalementPoint> points) {
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            byId.clear();
+            for (SignalementPoint p : points) {
+                insert(p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Runs first: listeners that re-read the grid (tile cache) must see the new position. */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getSignalementId());
+            if (event.getAfter() != null) {
+                insert(event.getAfter());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Points inside the box, bounds inclusive. Longitudes are not wrapped across the antimeridian. */
+    public List<SignalementPoint> query(double minLat, double minLng, double maxLat, double maxLng) {
+        long r0 = cellIndex(minLat);
+        long r1 = cellIndex(maxLat);
+        long c0 = cellIndex(minLng);
+        long c1 = cellIndex(maxLng);
+        List<SignalementPoint> result = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            double boxCells = (double) (r1 - r0 + 1) * (c1 - c0 + 1);
+            if (boxCells > cells.size()) {
+                // Very large viewport: walking the occupied cells is cheaper than the empty ones
+                for (Map.Entry<Long, Map<Long, SignalementPoint>> e : cells.entrySet()) {
+                    long row = e.getKey() >> 32;
+                    long col = (int) e.getKey().longValue();
+                    if (row >= r0 && row <= r1 && col >= c0 && col <= c1) {
+                        collect(e.getValue(), minLat, minLng, maxLat, maxLng, result);
+                    }
+                }
+            } else {
+                for (long row = r0; row <= r1; row++) {
+                    for (long col = c0; col <= c1; col++) {
+                        Map<Long, SignalementPoint> cell = cells.get(key(row, col));
+                        if (cell != null) {
+                            collect(cell, minLat, minLng, maxLat, maxLng, result);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void collect(Map<Long, SignalementPoint> cell, double minLat, double minLng,
+            double maxLat, double maxLng, List<SignalementPoint> out) {
+        for (SignalementPoint p : cell.values()) {
+            if (p.getLatitude() >= minLat && p.getLatitude() <= maxLat
+                    && p.getLongitude() >= minLng && p.getLongitude() <= maxLng) {
+                out.add(p);
+            }
+        }
+    }
+
+    private void insert(SignalementPoint p) {
+        byId.put(p.getId(), p);
+        cells.computeIfAbsent(keyOf(p), k -> new HashMap<>()).put(p.getId(), p);
+    }
+
+    private void remove(Long id) {
+        SignalementPoint old = byId.remove(id);
+        if (old == null) return;
+        long k = keyOf(old);
+        Map<Long, SignalementPoint> cell = cells.get(k);
+        if (cell != null) {
+            cell.remove(id);
+            if (cell.isEmpty()) cells.remove(k);
+        }
+    }
+
+    private long keyOf(SignalementPoint p) {
+        return key(cellIndex(p.getLatitude()), cellIndex(p.getLongitude()));
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellSizeDeg);
+    }
+
+    private static long key(long row, long col) {
+        return (row << 32) | (col & 0xffffffffL);
+    }
+}
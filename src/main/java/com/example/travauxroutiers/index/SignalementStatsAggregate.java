@@ -0,0 +1,87 @@
+package com.example.travauxroutiers.index;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+
+/**
+ * Running totals (count, surface, budget) per status, maintained from
+ * {@link SignalementChangedEvent}s so that the global statistics never scan the table.
+ *
+ * Updates are lock-free (one set of adders per status); a reader may observe a write
+ * half-applied across two statuses, which is acceptable for dashboard figures.
+ */
+@Component
+public class SignalementStatsAggregate implements SignalementIndex {
+    /** Key used for signalements without a status (status ids start at 1). */
+    public static final long NO_STATUS = 0L;
+
+    private volatile ConcurrentHashMap<Long, Totals> byStatus = new ConcurrentHashMap<>();
+
+    @Override
+    public void rebuild(Collection<SignalementPoint> points) {
+        ConcurrentHashMap<Long, Totals> fresh = new ConcurrentHashMap<>();
+        for (SignalementPoint p : points) {
+            apply(fresh, p, 1);
+        }
+        byStatus = fresh;
+    }
+
+    @EventListener
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        ConcurrentHashMap<Long, Totals> current = byStatus;
+        if (event.getBefore() != null) apply(current, event.getBefore(), -1);
+        if (event.getAfter() != null) apply(current, event.getAfter(), 1);
+    }
+
+    /** Copy of the current totals keyed by status id ({@link #NO_STATUS} for none). */
+    public Map<Long, StatusTotals> snapshot() {
+        Map<Long, StatusTotals> out = new HashMap<>();
+        byStatus.forEach((statusId, t) -> {
+            long count = t.count.sum();
+            if (count > 0) {
+                out.put(statusId, new StatusTotals(count, t.surface.sum(), t.budget.sum()));
+            }
+        });
+        return out;
+    }
+
+    private static void apply(ConcurrentHashMap<Long, Totals> map, SignalementPoint p, int sign) {
+        long key = p.getStatusId() != null ? p.getStatusId() : NO_STATUS;
+        Totals t = map.computeIfAbsent(key, k -> new Totals());
+        t.count.add(sign);
+        t.surface.add(sign * p.getSurfaceArea());
+        t.budget.add(sign * p.getBudget());
+    }
+
+    /** Point-in-time totals of one status. */
+    public static final class StatusTotals {
+        private final long count;
+        private final double surface;
+        private final double budget;
+
+        StatusTotals(long count, double surface, double budget) {
+            this.count = count;
+            this.surface = surface;
+            this.budget = budget;
+        }
+
+        public long getCount() { return count; }
+        public double getSurface() { return surface; }
+        public double getBudget() { return budget; }
+    }
+
+    private static final class Totals {
+        final LongAdder count = new LongAdder();
+        final DoubleAdder surface = new DoubleAdder();
+        final DoubleAdder budget = new DoubleAdder();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.travauxroutiers.index;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+
+/**
+ * Mapbox Vector Tiles of the signalements, encoded from {@link SignalementSpatialIndex} and kept
+ * in an LRU keyed by z/x/y. A write only evicts the tiles (at every zoom) whose buffered area
+ * contains the old or new position of the signalement; every other cached tile stays valid.
+ */
+@Component
+public class SignalementTileCache {
+    public static final String LAYER = "signalements";
+    public static final int MAX_ZOOM = 22;
+    /** Points this close to an edge (in tile units) are also drawn by the neighbour tile. */
+    private static final int BUFFER = 64;
+
+    private final SignalementSpatialIndex spatialIndex;
+    private final Map<String, byte[]> tiles;
+    /** Bumped on every eviction so a tile built concurrently with a write is not cached stale. */
+    private long generation;
+
+    public SignalementTileCache(SignalementSpatialIndex spatialIndex,
+            @Value("${signalements.tiles.cache-size:4096}") int capacity) {
+        this.spatialIndex = spatialIndex;
+        this.tiles = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public byte[] tile(int z, int x, int y) {
+        String key = key(z, x, y);
+        long gen;
+        synchronized (this) {
+            byte[] cached = tiles.get(key);
+            if (cached != null) return cached;
+            gen = generation;
+        }
+
+        byte[] encoded = encode(z, x, y);
+        synchronized (this) {
+            if (gen == generation) {
+                tiles.put(key, encoded);
+            }
+        }
+        return encoded;
+    }
+
+    @EventListener
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        synchronized (this) {
+            generation++;
+            if (event.getBefore() != null) evict(event.getBefore());
+            if (event.getAfter() != null) evict(event.getAfter());
+        }
+    }
+
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    private byte[] encode(int z, int x, int y) {
+        double n = 1 << z;
+        double margin = (double) BUFFER / VectorTileEncoder.EXTENT;
+        double north = TileMath.tileNorth(y, z);
+        double south = TileMath.tileNorth(y + 1, z);
+        double west = TileMath.tileWest(x, z);
+        double east = TileMath.tileWest(x + 1, z);
+        double padLat = (north - south) * margin;
+        double padLng = (east - west) * margin;
+
+        List<SignalementPoint> points = spatialIndex.query(south - padLat, west - padLng, north + padLat, east + padLng);
+        VectorTileEncoder encoder = new VectorTileEncoder(LAYER);
+        for (SignalementPoint p : points) {
+            int px = (int) Math.round((TileMath.worldX(p.getLongitude()) * n - x) * VectorTileEncoder.EXTENT);
+            int py = (int) Math.round((TileMath.worldY(p.getLatitude()) * n - y) * VectorTileEncoder.EXTENT);
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("status", p.getStatusName());
+            attributes.put("validation", p.getValidationStatusName());
+            attributes.put("budget", p.getBudget());
+            encoder.addPoint(p.getId(), px, py, attributes);
+        }
+        return encoder.encode();
+    }
+
+    private void evict(SignalementPoint p) {
+        double margin = (double) BUFFER / VectorTileEncoder.EXTENT;
+        double wx = TileMath.worldX(p.getLongitude());
+        double wy = TileMath.worldY(p.getLatitude());
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            int n = 1 << z;
+            int x0 = clamp((int) Math.floor(wx * n - margin), n);
+            int x1 = clamp((int) Math.floor(wx * n + margin), n);
+            int y0 = clamp((int) Math.floor(wy * n - margin), n);
+            int y1 = clamp((int) Math.floor(wy * n + margin), n);
+            for (int tx = x0; tx <= x1; tx++) {
+                for (int ty = y0; ty <= y1; ty++) {
+                    tiles.remove(key(z, tx, ty));
+                }
+            }
+        }
+    }
+
+    private static int clamp(int v, int n) {
+        return Math.max(0, Math.min(n - 1, v));
+    }
+
+    private static String key(int z, int x, int y) {
+        return z + "/" + x + "/" + y;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.travauxroutiers.index;
+
+import java.time.LocalDateTime;
+
+/** One row of the status history (signalement_status), as loaded by a JPQL constructor expression. */
+public final class StatusHistoryEntry {
+    private final Long signalementId;
+    private final Long statusId;
+    private final LocalDateTime dateStatus;
+
+    public StatusHistoryEntry(Long signalementId, Long statusId, LocalDateTime dateStatus) {
+        this.signalementId = signalementId;
+        this.statusId = statusId;
+        this.dateStatus = dateStatus;
+    }
+
+    public Long getSignalementId() { return signalementId; }
+    public Long getStatusId() { return statusId; }
+    public LocalDateTime getDateStatus() { return dateStatus; }
+}
@@ -0,0 +1,201 @@
+package com.example.travauxroutiers.index;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.travauxroutiers.event.SignalementStatusRecordedEvent;
+
+/**
+ * Time spent in a status before moving to the next one, as one {@link QuantileSketch} per
+ * (from, to) status pair. Consecutive entries with the same status count as a single stay.
+ *
+ * Only the current stay of each open signalement is kept in memory (status entered, when, and
+ * the date of its last entry); closed signalements (status {@link EntrepriseStatsIndex#CLOSED_STATUS_ID})
+ * are only remembered as an id in a bitmap. A new entry dated after the last one is applied
+ * exactly. Anything that needs the rest of a history (a removed entry, a back-dated entry,
+ * a closed signalement reopened) marks the index stale instead: {@link SignalementIndexLoader}
+ * reloads it from the database before the next read.
+ */
+@Component
+public class StatusTransitionIndex {
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Stay> open = new HashMap<>();
+    private IdBitmap closed = new IdBitmap();
+    private final Map<Long, QuantileSketch> sketches = new HashMap<>();
+    /** Incremented by every event, so a reload can tell whether one arrived while it read. */
+    private long version;
+    private boolean stale;
+
+    /** Entries must be sorted by signalement, then date. */
+    public void rebuild(Collection<StatusHistoryEntry> entries) {
+        lock.writeLock().lock();
+        try {
+            load(entries);
+            stale = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Like {@link #rebuild(Collection)} for entries read after {@link #version()} returned
+     * {@code readVersion}: if an event was applied meanwhile, the reloaded state may miss it
+     * and the index stays stale.
+     */
+    public void rebuild(Collection<StatusHistoryEntry> entries, long readVersion) {
+        lock.writeLock().lock();
+        try {
+            load(entries);
+            stale = version != readVersion;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isStale() {
+        lock.readLock().lock();
+        try {
+            return stale;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onStatusRecorded(SignalementStatusRecordedEvent event) {
+        if (event.getSignalementId() == null || event.getStatusId() == null || event.getDateStatus() == null) return;
+        lock.writeLock().lock();
+        try {
+            version++;
+            long id = event.getSignalementId();
+            Stay stay = open.get(id);
+            if (event.getDelta() < 0 || closed.contains(id)
+                    || (stay != null && event.getDateStatus().isBefore(stay.lastDate))) {
+                stale = true;
+                return;
+            }
+            if (stay != null && stay.statusId == event.getStatusId()) {
+                stay.lastDate = event.getDateStatus();
+                return;
+            }
+            if (stay != null) record(stay, event.getStatusId(), event.getDateStatus());
+            enter(id, new Stay(event.getStatusId(), event.getDateStatus()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Quantiles of every transition observed at least once, durations in seconds. */
+    public List<TransitionQuantiles> snapshot(double... quantiles) {
+        lock.readLock().lock();
+        try {
+            List<TransitionQuantiles> out = new ArrayList<>();
+            sketches.forEach((key, sketch) -> {
+                if (sketch.count() <= 0) return;
+                double[] values = new double[quantiles.length];
+                for (int i = 0; i < quantiles.length; i++) {
+                    values[i] = sketch.quantile(quantiles[i]);
+                }
+                out.add(new TransitionQuantiles(key >>> 32, key & 0xffffffffL, sketch.count(), values));
+            });
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load(Collection<StatusHistoryEntry> entries) {
+        open.clear();
+        closed = new IdBitmap();
+        sketches.clear();
+        Long currentId = null;
+        Stay stay = null;
+        for (StatusHistoryEntry e : entries) {
+            if (e.getSignalementId() == null || e.getStatusId() == null || e.getDateStatus() == null) continue;
+            if (!e.getSignalementId().equals(currentId)) {
+                currentId = e.getSignalementId();
+                stay = null;
+            }
+            if (stay != null && stay.statusId == e.getStatusId()) {
+                stay.lastDate = e.getDateStatus();
+                continue;
+            }
+            if (stay != null) record(stay, e.getStatusId(), e.getDateStatus());
+            stay = new Stay(e.getStatusId(), e.getDateStatus());
+            enter(currentId, stay);
+        }
+    }
+
+    /** Starts a new stay; a closed signalement keeps no stay, only its id. */
+    private void enter(long signalementId, Stay stay) {
+        if (stay.statusId == EntrepriseStatsIndex.CLOSED_STATUS_ID) {
+            open.remove(signalementId);
+            closed.add(signalementId);
+        } else {
+            open.put(signalementId, stay);
+        }
+    }
+
+    private void record(Stay from, long toStatusId, LocalDateTime at) {
+        long seconds = Duration.between(from.since, at).getSeconds();
+        sketches.computeIfAbsent(key(from.statusId, toStatusId),
+                k -> new QuantileSketch(RELATIVE_ACCURACY)).add(seconds, 1);
+    }
+
+    private static long key(long fromStatusId, long toStatusId) {
+        return (fromStatusId << 32) | (toStatusId & 0xffffffffL);
+    }
+
+    /** Status a signalement is in, since when, and the date of its latest entry. */
+    private static final class Stay {
+        final long statusId;
+        final LocalDateTime since;
+        LocalDateTime lastDate;
+
+        Stay(long statusId, LocalDateTime since) {
+            this.statusId = statusId;
+            this.since = since;
+            this.lastDate = since;
+        }
+    }
+
+    /** Point-in-time quantiles of one transition, in the order they were requested. */
+    public static final class TransitionQuantiles {
+        private final long fromStatusId;
+        private final long toStatusId;
+        private final long count;
+        private final double[] quantileSeconds;
+
+        TransitionQuantiles(long fromStatusId, long toStatusId, long count, double[] quantileSeconds) {
+            this.fromStatusId = fromStatusId;
+            this.toStatusId = toStatusId;
+            this.count = count;
+            this.quantileSeconds = quantileSeconds;
+        }
+
+        public long getFromStatusId() { return fromStatusId; }
+        public long getToStatusId() { return toStatusId; }
+        public long getCount() { return count; }
+        public double[] getQuantileSeconds() { return quantileSeconds; }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.travauxroutiers.index;
+
+/**
+ * Web Mercator (slippy map / XYZ) tile arithmetic shared by the map indexes.
+ * Tile (0, 0) is the north-west corner; levels follow the usual map zoom levels.
+ */
+public final class TileMath {
+    public static final double MAX_LATITUDE = 85.05112878;
+
+    private TileMath() {
+    }
+
+    /** Position across the world map in [0, 1], west to east. */
+    public static double worldX(double longitude) {
+        return (longitude + 180.0) / 360.0;
+    }
+
+    /** Position across the world map in [0, 1], north to south. */
+    public static double worldY(double latitude) {
+        double lat = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        return (1.0 - Math.log(Math.tan(lat) + 1.0 / Math.cos(lat)) / Math.PI) / 2.0;
+    }
+
+    public static int tileX(double longitude, int zoom) {
+        int n = 1 << zoom;
+        int x = (int) Math.floor(worldX(longitude) * n);
+        return Math.max(0, Math.min(n - 1, x));
+    }
+
+    public static int tileY(double latitude, int zoom) {
+        int n = 1 << zoom;
+        int y = (int) Math.floor(worldY(latitude) * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    /** Longitude of the west edge of column {@code x}. */
+    public static double tileWest(int x, int zoom) {
+        return x / (double) (1 << zoom) * 360.0 - 180.0;
+    }
+
+    /** Latitude of the north edge of row {@code y}. */
+    public static double tileNorth(int y, int zoom) {
+        double n = Math.PI - 2.0 * Math.PI * y / (double) (1 << zoom);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    /** Bing-style quadkey, one digit per level; also a prefix of every descendant's key. */
+    public static String quadkey(int x, int y, int zoom) {
+        StringBuilder sb = new StringBuilder(zoom);
+        for (int i = zoom; i > 0; i--) {
+            int mask = 1 << (i - 1);
+            int digit = ((x & mask) != 0 ? 1 : 0) + ((y & mask) != 0 ? 2 : 0);
+            sb.append((char) ('0' + digit));
+        }
+        return sb.toString();
+    }
+
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    public static int keyX(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int keyY(long key) {
+        return (int) key;
+    }
+}
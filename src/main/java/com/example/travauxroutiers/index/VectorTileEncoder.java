@@ -0,0 +1,128 @@
+package com.example.travauxroutiers.index;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal Mapbox Vector Tile (spec v2.1) writer for a single layer of point features.
+ * Hand-rolled protobuf encoding: points with scalar attributes are all we need, which
+ * keeps the build free of a protobuf/JTS dependency.
+ */
+public class VectorTileEncoder {
+    public static final int EXTENT = 4096;
+
+    // Wire types
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int LENGTH_DELIMITED = 2;
+
+    // Geometry commands
+    private static final int CMD_MOVE_TO = 1;
+    private static final int GEOM_POINT = 1;
+
+    private final String layerName;
+    private final Map<String, Integer> keys = new LinkedHashMap<>();
+    private final Map<Object, Integer> values = new LinkedHashMap<>();
+    private final List<byte[]> features = new ArrayList<>();
+
+    public VectorTileEncoder(String layerName) {
+        this.layerName = layerName;
+    }
+
+    /**
+     * Adds a point in tile coordinates (0..EXTENT, may fall slightly outside for the buffer).
+     * Attribute values may be String, Double/Float, Long/Integer or Boolean; nulls are skipped.
+     */
+    public void addPoint(long id, int x, int y, Map<String, Object> attributes) {
+        ByteArrayOutputStream tags = new ByteArrayOutputStream();
+        for (Map.Entry<String, Object> a : attributes.entrySet()) {
+            if (a.getValue() == null) continue;
+            writeVarint(tags, keys.computeIfAbsent(a.getKey(), k -> keys.size()));
+            writeVarint(tags, values.computeIfAbsent(a.getValue(), v -> values.size()));
+        }
+
+        ByteArrayOutputStream geometry = new ByteArrayOutputStream();
+        writeVarint(geometry, (CMD_MOVE_TO & 0x7) | (1 << 3));
+        writeVarint(geometry, zigZag(x));
+        writeVarint(geometry, zigZag(y));
+
+        ByteArrayOutputStream feature = new ByteArrayOutputStream();
+        writeTag(feature, 1, VARINT);
+        writeVarint(feature, id);
+        writeBytes(feature, 2, tags.toByteArray());
+        writeTag(feature, 3, VARINT);
+        writeVarint(feature, GEOM_POINT);
+        writeBytes(feature, 4, geometry.toByteArray());
+        features.add(feature.toByteArray());
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream layer = new ByteArrayOutputStream();
+        writeTag(layer, 15, VARINT);
+        writeVarint(layer, 2);
+        writeBytes(layer, 1, layerName.getBytes(StandardCharsets.UTF_8));
+        for (byte[] f : features) {
+            writeBytes(layer, 2, f);
+        }
+        for (String k : keys.keySet()) {
+            writeBytes(layer, 3, k.getBytes(StandardCharsets.UTF_8));
+        }
+        for (Object v : values.keySet()) {
+            writeBytes(layer, 4, encodeValue(v));
+        }
+        writeTag(layer, 5, VARINT);
+        writeVarint(layer, EXTENT);
+
+        ByteArrayOutputStream tile = new ByteArrayOutputStream();
+        writeBytes(tile, 3, layer.toByteArray());
+        return tile.toByteArray();
+    }
+
+    private static byte[] encodeValue(Object v) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (v instanceof String str) {
+            writeBytes(out, 1, str.getBytes(StandardCharsets.UTF_8));
+        } else if (v instanceof Double || v instanceof Float) {
+            writeTag(out, 3, FIXED64);
+            long bits = Double.doubleToLongBits(((Number) v).doubleValue());
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (bits >>> (8 * i)) & 0xff);
+            }
+        } else if (v instanceof Long || v instanceof Integer) {
+            writeTag(out, 6, VARINT);
+            writeVarint(out, zigZag(((Number) v).longValue()));
+        } else if (v instanceof Boolean b) {
+            writeTag(out, 7, VARINT);
+            writeVarint(out, b ? 1 : 0);
+        } else {
+            writeBytes(out, 1, String.valueOf(v).getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static long zigZag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private static void writeTag(ByteArrayOutputStream out, int field, int wireType) {
+        writeVarint(out, ((long) field << 3) | wireType);
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, int field, byte[] bytes) {
+        writeTag(out, field, LENGTH_DELIMITED);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
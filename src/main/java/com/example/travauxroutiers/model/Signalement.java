@@ -3,6 +3,9 @@ package com.example.travauxroutiers.model;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -58,6 +61,26 @@ public class Signalement {
     @Column(name = "user_uid", length = 128)
     private String userUid;
 
+    /** SHA-256 of the Firestore fields last synchronised (see SignalementSyncHash). */
+    @Column(name = "sync_hash", length = 64)
+    @JsonIgnore
+    private String syncHash;
+
+    // Chronologie de traitement dénormalisée depuis signalement_status : écrite uniquement
+    // par TreatmentTimelineService, jamais par un save() de l'entité
+    @Column(name = "date_debut_travaux", insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime dateDebutTravaux;
+
+    @Column(name = "date_fin_travaux", insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime dateFinTravaux;
+
+    /** Jours entre début et fin des travaux ; null tant que les travaux ne sont pas terminés. */
+    @Column(name = "treatment_days", insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long treatmentDays;
+
     @OneToOne(mappedBy = "signalement", cascade = CascadeType.ALL)
     private Validation validation;
 
@@ -166,6 +189,38 @@ public class Signalement {
         this.userUid = userUid;
     }
 
+    public String getSyncHash() {
+        return syncHash;
+    }
+
+    public void setSyncHash(String syncHash) {
+        this.syncHash = syncHash;
+    }
+
+    public LocalDateTime getDateDebutTravaux() {
+        return dateDebutTravaux;
+    }
+
+    public void setDateDebutTravaux(LocalDateTime dateDebutTravaux) {
+        this.dateDebutTravaux = dateDebutTravaux;
+    }
+
+    public LocalDateTime getDateFinTravaux() {
+        return dateFinTravaux;
+    }
+
+    public void setDateFinTravaux(LocalDateTime dateFinTravaux) {
+        this.dateFinTravaux = dateFinTravaux;
+    }
+
+    public Long getTreatmentDays() {
+        return treatmentDays;
+    }
+
+    public void setTreatmentDays(Long treatmentDays) {
+        this.treatmentDays = treatmentDays;
+    }
+
     public Validation getValidation() {
         return validation;
     }
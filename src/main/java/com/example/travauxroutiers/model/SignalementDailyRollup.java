@@ -0,0 +1,93 @@
+package com.example.travauxroutiers.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Pre-aggregated daily bucket of signalements, maintained incrementally on writes
+ * (see StatisticsRollupService).
+ *
+ * kind = CREATED: signalements reported that day, by their current status, entreprise and
+ * validation status (count, budget, surface).
+ * kind = ENTERED: status changes recorded that day into {@code statusId}, by the entreprise,
+ * validation status, budget and surface stored on each signalement_status entry.
+ * Missing status / entreprise are stored as 0 so the bucket key stays unique.
+ */
+@Entity
+@Table(name = "signalement_daily_rollup", uniqueConstraints = @UniqueConstraint(
+        name = "uk_signalement_daily_rollup",
+        columnNames = { "kind", "bucket_date", "status_id", "entreprise_id", "validation_status" }))
+public class SignalementDailyRollup {
+    public static final String KIND_CREATED = "CREATED";
+    public static final String KIND_ENTERED = "ENTERED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String kind;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "status_id", nullable = false)
+    private Long statusId;
+
+    @Column(name = "entreprise_id", nullable = false)
+    private Long entrepriseId;
+
+    @Column(name = "validation_status", nullable = false, length = 50)
+    private String validationStatus;
+
+    @Column(name = "item_count", nullable = false)
+    private long count;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal budget = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal surface = BigDecimal.ZERO;
+
+    public SignalementDailyRollup() {
+    }
+
+    public SignalementDailyRollup(String kind, LocalDate bucketDate, Long statusId, Long entrepriseId,
+            String validationStatus, long count, BigDecimal budget, BigDecimal surface) {
+        this.kind = kind;
+        this.bucketDate = bucketDate;
+        this.statusId = statusId;
+        this.entrepriseId = entrepriseId;
+        this.validationStatus = validationStatus;
+        this.count = count;
+        this.budget = budget;
+        this.surface = surface;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+    public LocalDate getBucketDate() { return bucketDate; }
+    public void setBucketDate(LocalDate bucketDate) { this.bucketDate = bucketDate; }
+    public Long getStatusId() { return statusId; }
+    public void setStatusId(Long statusId) { this.statusId = statusId; }
+    public Long getEntrepriseId() { return entrepriseId; }
+    public void setEntrepriseId(Long entrepriseId) { this.entrepriseId = entrepriseId; }
+    public String getValidationStatus() { return validationStatus; }
+    public void setValidationStatus(String validationStatus) { this.validationStatus = validationStatus; }
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public BigDecimal getBudget() { return budget; }
+    public void setBudget(BigDecimal budget) { this.budget = budget; }
+    public BigDecimal getSurface() { return surface; }
+    public void setSurface(BigDecimal surface) { this.surface = surface; }
+}
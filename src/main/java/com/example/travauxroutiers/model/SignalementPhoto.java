@@ -0,0 +1,70 @@
+package com.example.travauxroutiers.model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+/**
+ * Photo attached to a signalement. The bytes live in the content-addressed photo store
+ * (see PhotoStorageService); this row only references them by SHA-256.
+ */
+@Entity
+@Table(name = "signalement_photo")
+public class SignalementPhoto {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "signalement_id")
+    @JsonIgnore
+    private Signalement signalement;
+
+    /** Public URL of the streaming endpoint, e.g. /api/photos/{contentHash}. */
+    @Column(name = "photo_url", nullable = false, length = 255)
+    private String photoUrl;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    @Column(name = "uploaded_at")
+    private LocalDateTime uploadedAt = LocalDateTime.now();
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Signalement getSignalement() { return signalement; }
+    public void setSignalement(Signalement signalement) { this.signalement = signalement; }
+    public String getPhotoUrl() { return photoUrl; }
+    public void setPhotoUrl(String photoUrl) { this.photoUrl = photoUrl; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+    public LocalDateTime getUploadedAt() { return uploadedAt; }
+    public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+
+    /** Small rendition for lists and map popups (falls back to the original until generated). */
+    @Transient
+    public String getThumbnailUrl() { return photoUrl != null ? photoUrl + "?size=thumb" : null; }
+
+    @Transient
+    public String getMediumUrl() { return photoUrl != null ? photoUrl + "?size=medium" : null; }
+}
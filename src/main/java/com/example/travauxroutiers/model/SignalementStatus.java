@@ -1,7 +1,10 @@
 package com.example.travauxroutiers.model;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -44,6 +47,27 @@ public class SignalementStatus {
     @Column(columnDefinition = "TEXT")
     private String comment;
 
+    /*
+     * Seau ENTERED de signalement_daily_rollup où cette entrée est comptée : entreprise,
+     * validation, budget et surface du signalement à l'écriture, puis à chaque re-classement
+     * (StatisticsRollupService). Une suppression décrémente exactement ce seau.
+     */
+    @JsonIgnore
+    @Column(name = "rollup_entreprise_id")
+    private Long rollupEntrepriseId;
+
+    @JsonIgnore
+    @Column(name = "rollup_validation_status", length = 50)
+    private String rollupValidationStatus;
+
+    @JsonIgnore
+    @Column(name = "rollup_budget", precision = 19, scale = 2)
+    private BigDecimal rollupBudget;
+
+    @JsonIgnore
+    @Column(name = "rollup_surface_area", precision = 19, scale = 2)
+    private BigDecimal rollupSurfaceArea;
+
     // Constructeurs
     public SignalementStatus() {
     }
@@ -120,6 +144,38 @@ public class SignalementStatus {
         this.comment = comment;
     }
 
+    public Long getRollupEntrepriseId() {
+        return rollupEntrepriseId;
+    }
+
+    public void setRollupEntrepriseId(Long rollupEntrepriseId) {
+        this.rollupEntrepriseId = rollupEntrepriseId;
+    }
+
+    public String getRollupValidationStatus() {
+        return rollupValidationStatus;
+    }
+
+    public void setRollupValidationStatus(String rollupValidationStatus) {
+        this.rollupValidationStatus = rollupValidationStatus;
+    }
+
+    public BigDecimal getRollupBudget() {
+        return rollupBudget;
+    }
+
+    public void setRollupBudget(BigDecimal rollupBudget) {
+        this.rollupBudget = rollupBudget;
+    }
+
+    public BigDecimal getRollupSurfaceArea() {
+        return rollupSurfaceArea;
+    }
+
+    public void setRollupSurfaceArea(BigDecimal rollupSurfaceArea) {
+        this.rollupSurfaceArea = rollupSurfaceArea;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -144,6 +200,15 @@ public class SignalementStatus {
         if (this.dateStatus == null) {
             this.dateStatus = now;
         }
+        if (this.signalement != null) {
+            this.rollupEntrepriseId = signalement.getEntreprise() != null ? signalement.getEntreprise().getId() : null;
+            this.rollupValidationStatus = signalement.getValidation() != null
+                    && signalement.getValidation().getStatus() != null
+                            ? signalement.getValidation().getStatus().getName()
+                            : "PENDING";
+            this.rollupBudget = signalement.getBudget();
+            this.rollupSurfaceArea = signalement.getSurfaceArea();
+        }
     }
 
     @PreUpdate
@@ -0,0 +1,303 @@
+package com.example.travauxroutiers.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * One synchronisation run, kept as a resumable job. The row is created {@code running} and
+ * checkpointed after every fully applied page: cursor of that page and counters so far. A run
+ * that dies ({@code running} left behind), fails ({@code error}) or is cancelled keeps its
+ * checkpoint, and the next run of the same direction resumes from it.
+ */
+@Entity
+@Table(name = "sync_log")
+public class SyncLog {
+    public static final String FIREBASE_TO_LOCAL = "firebase_to_local";
+    public static final String LOCAL_TO_FIREBASE = "local_to_firebase";
+
+    public static final String RUNNING = "running";
+    public static final String SUCCESS = "success";
+    public static final String PARTIAL = "partial";
+    public static final String ERROR = "error";
+    public static final String CANCELLED = "cancelled";
+    /** Interrupted run replaced by a new one (e.g. a full run requested over an incremental one). */
+    public static final String SUPERSEDED = "superseded";
+    /** Statuses of an interrupted run, resumed by the next run of its direction. */
+    public static final List<String> RESUMABLE = List.of(RUNNING, ERROR, CANCELLED);
+
+    public static final String MODE_FULL = "full";
+    public static final String MODE_INCREMENTAL = "incremental";
+
+    public static final String PHASE_ALL = "all";
+    public static final String PHASE_UPDATED = "updated";
+    public static final String PHASE_LEGACY = "legacy";
+    public static final String PHASE_EXPORT = "export";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+
+    /** Start of the run. */
+    @Column(name = "sync_date")
+    private LocalDateTime syncDate;
+
+    @Column(nullable = false, length = 30)
+    private String direction;
+
+    /** Documents processed so far, whatever their outcome. */
+    @Column(name = "records_count")
+    private Integer recordsCount;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(length = 20)
+    private String mode;
+
+    /** Watermark an incremental run started from; null for a full run. */
+    @Column(name = "since_watermark")
+    private Instant sinceWatermark;
+
+    /** Query being paged, see the {@code PHASE_*} constants. */
+    @Column(length = 20)
+    private String phase;
+
+    /** Firestore document id ending the last fully applied page. */
+    @Column(name = "cursor_doc_id", length = 128)
+    private String cursorDocId;
+
+    /** orderBy value (updatedAt or createdAt) of {@link #cursorDocId}; null when paging by id. */
+    @Column(name = "cursor_time")
+    private Instant cursorTime;
+
+    /** Last exported signalement id (local → Firebase). */
+    @Column(name = "cursor_local_id")
+    private Long cursorLocalId;
+
+    @Column(name = "created_count", nullable = false)
+    private int createdCount;
+
+    @Column(name = "updated_count", nullable = false)
+    private int updatedCount;
+
+    @Column(name = "skipped_count", nullable = false)
+    private int skippedCount;
+
+    @Column(name = "error_count", nullable = false)
+    private int errorCount;
+
+    /** Documents whose content cannot be applied; not retried until they change. */
+    @Column(name = "rejected_count", nullable = false)
+    private int rejectedCount;
+
+    /** Greatest updatedAt applied so far. */
+    @Column(name = "max_applied_at")
+    private Instant maxAppliedAt;
+
+    /** Smallest updatedAt that failed so far. */
+    @Column(name = "min_failed_at")
+    private Instant minFailedAt;
+
+    /** Last checkpoint write. */
+    @Column(name = "checkpoint_at")
+    private LocalDateTime checkpointAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public SyncLog() {
+    }
+
+    public SyncLog(String direction, String mode, Instant sinceWatermark) {
+        this.direction = direction;
+        this.mode = mode;
+        this.sinceWatermark = sinceWatermark;
+        this.status = RUNNING;
+        this.syncDate = LocalDateTime.now();
+        this.recordsCount = 0;
+    }
+
+    public boolean isFull() {
+        return MODE_FULL.equals(mode);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getSyncDate() {
+        return syncDate;
+    }
+
+    public void setSyncDate(LocalDateTime syncDate) {
+        this.syncDate = syncDate;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+
+    public Integer getRecordsCount() {
+        return recordsCount;
+    }
+
+    public void setRecordsCount(Integer recordsCount) {
+        this.recordsCount = recordsCount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public Instant getSinceWatermark() {
+        return sinceWatermark;
+    }
+
+    public void setSinceWatermark(Instant sinceWatermark) {
+        this.sinceWatermark = sinceWatermark;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public String getCursorDocId() {
+        return cursorDocId;
+    }
+
+    public void setCursorDocId(String cursorDocId) {
+        this.cursorDocId = cursorDocId;
+    }
+
+    public Instant getCursorTime() {
+        return cursorTime;
+    }
+
+    public void setCursorTime(Instant cursorTime) {
+        this.cursorTime = cursorTime;
+    }
+
+    public Long getCursorLocalId() {
+        return cursorLocalId;
+    }
+
+    public void setCursorLocalId(Long cursorLocalId) {
+        this.cursorLocalId = cursorLocalId;
+    }
+
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    public void setCreatedCount(int createdCount) {
+        this.createdCount = createdCount;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public void setUpdatedCount(int updatedCount) {
+        this.updatedCount = updatedCount;
+    }
+
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    public void setSkippedCount(int skippedCount) {
+        this.skippedCount = skippedCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(int errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(int rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public Instant getMaxAppliedAt() {
+        return maxAppliedAt;
+    }
+
+    public void setMaxAppliedAt(Instant maxAppliedAt) {
+        this.maxAppliedAt = maxAppliedAt;
+    }
+
+    public Instant getMinFailedAt() {
+        return minFailedAt;
+    }
+
+    public void setMinFailedAt(Instant minFailedAt) {
+        this.minFailedAt = minFailedAt;
+    }
+
+    public LocalDateTime getCheckpointAt() {
+        return checkpointAt;
+    }
+
+    public void setCheckpointAt(LocalDateTime checkpointAt) {
+        this.checkpointAt = checkpointAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.travauxroutiers.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Position reached by an incremental synchronisation, one row per sync direction.
+ * {@code watermark} is the Firestore {@code updatedAt} up to which every document has been
+ * applied locally; the next run only reads documents updated from that instant on.
+ */
+@Entity
+@Table(name = "sync_watermark")
+public class SyncWatermark {
+    public static final String FIREBASE_SIGNALEMENTS = "firebase.signalements";
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private Instant watermark;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public SyncWatermark() {
+    }
+
+    public SyncWatermark(String name, Instant watermark) {
+        this.name = name;
+        this.watermark = watermark;
+        this.updatedAt = Instant.now();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Instant getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(Instant watermark) {
+        this.watermark = watermark;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
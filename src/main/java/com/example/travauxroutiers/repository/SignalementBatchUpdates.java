@@ -0,0 +1,13 @@
+package com.example.travauxroutiers.repository;
+
+import java.util.Map;
+
+/** Bulk column updates issued as JDBC batches rather than one entity save per row. */
+public interface SignalementBatchUpdates {
+
+    /** Sets firebase_doc_id for each (signalement id -> document id), in chunked batches. */
+    void updateFirebaseDocIds(Map<Long, String> docIdsBySignalementId);
+
+    /** Sets sync_hash for each (signalement id -> content hash), in chunked batches. */
+    void updateSyncHashes(Map<Long, String> hashesBySignalementId);
+}
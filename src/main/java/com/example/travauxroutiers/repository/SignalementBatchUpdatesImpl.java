@@ -0,0 +1,42 @@
+package com.example.travauxroutiers.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/** JDBC implementation of {@link SignalementBatchUpdates}, picked up as a repository fragment. */
+class SignalementBatchUpdatesImpl implements SignalementBatchUpdates {
+    /** Rows per executeBatch round trip. */
+    static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    SignalementBatchUpdatesImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void updateFirebaseDocIds(Map<Long, String> docIdsBySignalementId) {
+        updateColumn("UPDATE signalement SET firebase_doc_id = ? WHERE id = ?", docIdsBySignalementId);
+    }
+
+    @Override
+    @Transactional
+    public void updateSyncHashes(Map<Long, String> hashesBySignalementId) {
+        updateColumn("UPDATE signalement SET sync_hash = ? WHERE id = ?", hashesBySignalementId);
+    }
+
+    private void updateColumn(String sql, Map<Long, String> valuesById) {
+        if (valuesById.isEmpty()) return;
+        List<Object[]> rows = new ArrayList<>(valuesById.size());
+        valuesById.forEach((id, value) -> rows.add(new Object[] { value, id }));
+        jdbcTemplate.batchUpdate(sql, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setString(1, (String) row[0]);
+            ps.setLong(2, (Long) row[1]);
+        });
+    }
+}
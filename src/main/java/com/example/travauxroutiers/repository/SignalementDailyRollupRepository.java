@@ -0,0 +1,60 @@
+package com.example.travauxroutiers.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.travauxroutiers.model.SignalementDailyRollup;
+
+public interface SignalementDailyRollupRepository extends JpaRepository<SignalementDailyRollup, Long> {
+
+    /** Adds deltas to an existing bucket; returns 0 when the bucket does not exist yet. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SignalementDailyRollup r SET r.count = r.count + :count, r.budget = r.budget + :budget, "
+            + "r.surface = r.surface + :surface "
+            + "WHERE r.kind = :kind AND r.bucketDate = :day AND r.statusId = :statusId "
+            + "AND r.entrepriseId = :entrepriseId AND r.validationStatus = :validationStatus")
+    int increment(@Param("kind") String kind, @Param("day") LocalDate day, @Param("statusId") Long statusId,
+            @Param("entrepriseId") Long entrepriseId, @Param("validationStatus") String validationStatus,
+            @Param("count") long count, @Param("budget") BigDecimal budget, @Param("surface") BigDecimal surface);
+
+    /** Daily buckets of one kind in [from, to], optionally restricted to one dimension value. */
+    @Query("SELECT r FROM SignalementDailyRollup r WHERE r.kind = :kind "
+            + "AND r.bucketDate >= :fromDate AND r.bucketDate <= :toDate "
+            + "AND (:statusId IS NULL OR r.statusId = :statusId) "
+            + "AND (:entrepriseId IS NULL OR r.entrepriseId = :entrepriseId) "
+            + "AND (:validationStatus IS NULL OR r.validationStatus = :validationStatus) "
+            + "AND r.count <> 0 "
+            + "ORDER BY r.bucketDate")
+    List<SignalementDailyRollup> findSeries(@Param("kind") String kind, @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate, @Param("statusId") Long statusId,
+            @Param("entrepriseId") Long entrepriseId, @Param("validationStatus") String validationStatus);
+
+    /** CREATED buckets recomputed from the signalement table (used by the rebuild). */
+    @Query("SELECT cast(s.dateSignalement as LocalDate), st.id, e.id, vs.name, count(s), "
+            + "coalesce(sum(s.budget), 0), coalesce(sum(s.surfaceArea), 0) "
+            + "FROM Signalement s LEFT JOIN s.status st LEFT JOIN s.entreprise e "
+            + "LEFT JOIN s.validation v LEFT JOIN v.status vs "
+            + "WHERE s.dateSignalement IS NOT NULL "
+            + "GROUP BY cast(s.dateSignalement as LocalDate), st.id, e.id, vs.name")
+    List<Object[]> aggregateCreated();
+
+    /**
+     * ENTERED buckets recomputed from signalement_status (used by the rebuild), keyed by the
+     * bucket stored on each entry so the result matches the incremental updates.
+     */
+    @Query("SELECT cast(ss.dateStatus as LocalDate), ss.status.id, ss.rollupEntrepriseId, "
+            + "ss.rollupValidationStatus, count(ss), "
+            + "coalesce(sum(ss.rollupBudget), 0), coalesce(sum(ss.rollupSurfaceArea), 0) "
+            + "FROM SignalementStatus ss "
+            + "GROUP BY cast(ss.dateStatus as LocalDate), ss.status.id, ss.rollupEntrepriseId, "
+            + "ss.rollupValidationStatus")
+    List<Object[]> aggregateEntered();
+}
@@ -0,0 +1,19 @@
+package com.example.travauxroutiers.repository;
+
+import com.example.travauxroutiers.model.SignalementPhoto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SignalementPhotoRepository extends JpaRepository<SignalementPhoto, Long> {
+    List<SignalementPhoto> findBySignalementIdOrderByUploadedAtAsc(Long signalementId);
+
+    Optional<SignalementPhoto> findFirstByContentHash(String contentHash);
+
+    boolean existsBySignalementIdAndContentHash(Long signalementId, String contentHash);
+
+    @Transactional
+    void deleteBySignalementId(Long signalementId);
+}
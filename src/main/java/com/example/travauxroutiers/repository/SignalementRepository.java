@@ -1,16 +1,59 @@
 package com.example.travauxroutiers.repository;
 
+import com.example.travauxroutiers.dto.SignalementSummary;
+import com.example.travauxroutiers.dto.StatisticsDto;
+import com.example.travauxroutiers.index.SignalementPoint;
 import com.example.travauxroutiers.model.Signalement;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface SignalementRepository extends JpaRepository<Signalement, Long> {
+public interface SignalementRepository extends JpaRepository<Signalement, Long>, SignalementBatchUpdates {
 	Optional<Signalement> findByFirebaseDocId(String firebaseDocId);
 
+	/**
+	 * Signalements for the given Firestore document ids, with the associations the Firebase sync
+	 * reads (user, status, entreprise, validation) fetched in the same query.
+	 */
+	@Query("""
+			select s
+			from Signalement s
+			join fetch s.user u
+			join fetch u.typeUser
+			join fetch s.status
+			left join fetch s.entreprise
+			left join fetch s.validation v
+			left join fetch v.status
+			where s.firebaseDocId in :docIds
+			""")
+	List<Signalement> findWithAssociationsByFirebaseDocIdIn(@Param("docIds") Collection<String> docIds);
+
+	/**
+	 * Next signalements after {@code afterId} in id order, with the associations the Firestore
+	 * export writes; the export pages with it and checkpoints the last id of each page.
+	 */
+	@Query("""
+			select s
+			from Signalement s
+			join fetch s.user u
+			join fetch u.typeUser
+			join fetch s.status
+			left join fetch s.entreprise
+			left join fetch s.validation v
+			left join fetch v.status
+			where s.id > :afterId
+			order by s.id
+			""")
+	List<Signalement> findWithAssociationsByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
+
 	/**
 	 * Returns signalements filtered by validation status name.
 	 * Special case: when statusName is 'PENDING', includes rows where validation is missing.
@@ -26,4 +69,179 @@ public interface SignalementRepository extends JpaRepository<Signalement, Long>
 			)
 			""")
 	List<Signalement> findByValidationStatusName(@Param("statusName") String statusName);
+
+	/**
+	 * Keyset page ordered by (dateSignalement desc nulls last, id desc), starting strictly after
+	 * the (cursorDate, cursorId) position when cursorId is given; a null cursorDate is a position
+	 * among the undated rows. Filtered pages are resolved by
+	 * {@code SignalementBitmapIndex} instead. The page size comes from the Pageable; no count
+	 * query is issued.
+	 */
+	@Query("""
+			select new com.example.travauxroutiers.dto.SignalementSummary(
+				s.id, s.latitude, s.longitude, s.description, s.dateSignalement, s.surfaceArea, s.budget,
+				st.id, st.name, e.id, e.name, vs.name,
+				case when s.photoUrl is not null then true else false end)
+			from Signalement s
+			join s.status st
+			left join s.entreprise e
+			left join s.validation v
+			left join v.status vs
+			where (
+				:cursorId is null
+				or (:cursorDate is not null and (
+					s.dateSignalement is null
+					or s.dateSignalement < :cursorDate
+					or (s.dateSignalement = :cursorDate and s.id < :cursorId)))
+				or (:cursorDate is null and s.dateSignalement is null and s.id < :cursorId)
+			  )
+			order by s.dateSignalement desc nulls last, s.id desc
+			""")
+	List<SignalementSummary> findSummaryPage(@Param("cursorDate") LocalDateTime cursorDate,
+			@Param("cursorId") Long cursorId,
+			Pageable pageable);
+
+	@Query("""
+			select new com.example.travauxroutiers.dto.SignalementSummary(
+				s.id, s.latitude, s.longitude, s.description, s.dateSignalement, s.surfaceArea, s.budget,
+				st.id, st.name, e.id, e.name, vs.name,
+				case when s.photoUrl is not null then true else false end)
+			from Signalement s
+			join s.status st
+			left join s.entreprise e
+			left join s.validation v
+			left join v.status vs
+			where s.id in :ids
+			""")
+	List<SignalementSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+	/** Projection counterpart of {@link #findByValidationStatusName(String)}. */
+	@Query("""
+			select new com.example.travauxroutiers.dto.SignalementSummary(
+				s.id, s.latitude, s.longitude, s.description, s.dateSignalement, s.surfaceArea, s.budget,
+				st.id, st.name, e.id, e.name, vs.name,
+				case when s.photoUrl is not null then true else false end)
+			from Signalement s
+			join s.status st
+			left join s.entreprise e
+			left join s.validation v
+			left join v.status vs
+			where (
+				(:statusName = 'PENDING' and v is null)
+				or (vs.name = :statusName)
+			)
+			order by s.dateSignalement desc, s.id desc
+			""")
+	List<SignalementSummary> findSummariesByValidationStatusName(@Param("statusName") String statusName);
+
+	/** Lightweight rows used to (re)build the in-memory indexes, without loading entities. */
+	@Query("""
+			select new com.example.travauxroutiers.index.SignalementPoint(
+				s.id, s.latitude, s.longitude, st.id, st.name, s.surfaceArea, s.budget, vs.name,
+				e.id, s.dateSignalement, s.treatmentDays)
+			from Signalement s
+			left join s.status st
+			left join s.entreprise e
+			left join s.validation v
+			left join v.status vs
+			""")
+	List<SignalementPoint> findAllPoints();
+
+	/** Same projection as {@link #findAllPoints()} for a single row. */
+	@Query("""
+			select new com.example.travauxroutiers.index.SignalementPoint(
+				s.id, s.latitude, s.longitude, st.id, st.name, s.surfaceArea, s.budget, vs.name,
+				e.id, s.dateSignalement, s.treatmentDays)
+			from Signalement s
+			left join s.status st
+			left join s.entreprise e
+			left join s.validation v
+			left join v.status vs
+			where s.id = :id
+			""")
+	Optional<SignalementPoint> findPointById(@Param("id") Long id);
+
+	/** Ids of rows whose photo is still stored inline as a data URL, in id order. */
+	@Query("select s.id from Signalement s where s.photoUrl like 'data:%' and s.id > :afterId order by s.id")
+	List<Long> findInlinePhotoIds(@Param("afterId") Long afterId, Pageable pageable);
+
+	/** Reads only the photo column, without loading the entity graph. */
+	@Query("select s.photoUrl from Signalement s where s.id = :id")
+	String findPhotoUrlById(@Param("id") Long id);
+
+	@Modifying
+	@Transactional
+	@Query("update Signalement s set s.photoUrl = :photoUrl where s.id = :id")
+	int updatePhotoUrl(@Param("id") Long id, @Param("photoUrl") String photoUrl);
+
+	@Modifying
+	@Transactional
+	@Query("update Signalement s set s.photoUrl = :photoUrl where s.id = :id and s.photoUrl is null")
+	int setPhotoUrlIfMissing(@Param("id") Long id, @Param("photoUrl") String photoUrl);
+
+	/** Stores the denormalized treatment timeline (see TreatmentTimelineService). */
+	@Modifying
+	@Transactional
+	@Query("""
+			update Signalement s
+			set s.dateDebutTravaux = :debut, s.dateFinTravaux = :fin, s.treatmentDays = :days
+			where s.id = :id
+			""")
+	int updateTreatmentTimeline(@Param("id") Long id, @Param("debut") LocalDateTime debut,
+			@Param("fin") LocalDateTime fin, @Param("days") Long days);
+
+	/** Mean treatment days of finished works (a work finished without a start date counts as 0). */
+	@Query("select coalesce(avg(coalesce(s.treatmentDays, 0)), 0) from Signalement s where s.dateFinTravaux is not null")
+	double averageTreatmentDays();
+
+	/**
+	 * Treatment table sorted by duration, longest first; works not finished yet come last.
+	 * Keyset on (treatment_days, id); {@code afterId} null means first page.
+	 */
+	@Query("""
+			select new com.example.travauxroutiers.dto.StatisticsDto$TreatmentStatistic(
+				s.id, s.description, s.dateSignalement, st.id, coalesce(st.name, 'Inconnu'),
+				s.dateDebutTravaux, s.dateFinTravaux)
+			from Signalement s
+			left join s.status st
+			where :afterId is null
+			  or (:afterDays is not null and (s.treatmentDays < :afterDays
+				  or (s.treatmentDays = :afterDays and s.id < :afterId) or s.treatmentDays is null))
+			  or (:afterDays is null and s.treatmentDays is null and s.id < :afterId)
+			order by s.treatmentDays desc nulls last, s.id desc
+			""")
+	List<StatisticsDto.TreatmentStatistic> findTreatmentPageByDays(@Param("afterDays") Long afterDays,
+			@Param("afterId") Long afterId, Pageable pageable);
+
+	/** Treatment table sorted by start of works, most recent first; works not started come last. */
+	@Query("""
+			select new com.example.travauxroutiers.dto.StatisticsDto$TreatmentStatistic(
+				s.id, s.description, s.dateSignalement, st.id, coalesce(st.name, 'Inconnu'),
+				s.dateDebutTravaux, s.dateFinTravaux)
+			from Signalement s
+			left join s.status st
+			where :afterId is null
+			  or (:afterDate is not null and (s.dateDebutTravaux < :afterDate
+				  or (s.dateDebutTravaux = :afterDate and s.id < :afterId) or s.dateDebutTravaux is null))
+			  or (:afterDate is null and s.dateDebutTravaux is null and s.id < :afterId)
+			order by s.dateDebutTravaux desc nulls last, s.id desc
+			""")
+	List<StatisticsDto.TreatmentStatistic> findTreatmentPageByStart(@Param("afterDate") LocalDateTime afterDate,
+			@Param("afterId") Long afterId, Pageable pageable);
+
+	/** Treatment table in workflow order of the status, newest first within a status. */
+	@Query("""
+			select new com.example.travauxroutiers.dto.StatisticsDto$TreatmentStatistic(
+				s.id, s.description, s.dateSignalement, st.id, coalesce(st.name, 'Inconnu'),
+				s.dateDebutTravaux, s.dateFinTravaux)
+			from Signalement s
+			left join s.status st
+			where :afterId is null
+			  or (:afterStatusId is not null and (s.status.id > :afterStatusId
+				  or (s.status.id = :afterStatusId and s.id < :afterId) or s.status is null))
+			  or (:afterStatusId is null and s.status is null and s.id < :afterId)
+			order by s.status.id asc nulls last, s.id desc
+			""")
+	List<StatisticsDto.TreatmentStatistic> findTreatmentPageByStatus(@Param("afterStatusId") Long afterStatusId,
+			@Param("afterId") Long afterId, Pageable pageable);
 }
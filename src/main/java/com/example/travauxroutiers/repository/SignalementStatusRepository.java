@@ -1,11 +1,14 @@
 package com.example.travauxroutiers.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.example.travauxroutiers.dto.StatisticsDto;
+import com.example.travauxroutiers.index.StatusHistoryEntry;
 import com.example.travauxroutiers.model.Signalement;
 import com.example.travauxroutiers.model.SignalementStatus;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,4 +22,24 @@ public interface SignalementStatusRepository extends JpaRepository<SignalementSt
     List<SignalementStatus> findBySignalementIdOrderByDateStatusAsc(@Param("signalementId") Long signalementId);
     @Transactional
     void deleteBySignalementId(Long signalementId);
+
+    /** Whole status history without entities, ordered as {@code StatusTransitionIndex.rebuild} expects. */
+    @Query("SELECT new com.example.travauxroutiers.index.StatusHistoryEntry(ss.signalement.id, ss.status.id, ss.dateStatus) "
+            + "FROM SignalementStatus ss ORDER BY ss.signalement.id, ss.dateStatus, ss.id")
+    List<StatusHistoryEntry> findAllHistoryEntries();
+
+    /**
+     * Treatment timeline of one signalement in a single grouped pass over its history:
+     * the first date it entered the "in progress" and the "done" statuses (null if never).
+     */
+    @Query("SELECT new com.example.travauxroutiers.dto.StatisticsDto$TreatmentStatistic("
+            + "s.id, s.description, s.dateSignalement, st.id, coalesce(st.name, 'Inconnu'), "
+            + "min(case when ss.status.id = :startStatusId then ss.dateStatus end), "
+            + "min(case when ss.status.id = :endStatusId then ss.dateStatus end)) "
+            + "FROM Signalement s LEFT JOIN s.status st "
+            + "LEFT JOIN SignalementStatus ss ON ss.signalement = s "
+            + "WHERE s.id = :signalementId "
+            + "GROUP BY s.id, s.description, s.dateSignalement, st.id, st.name")
+    Optional<StatisticsDto.TreatmentStatistic> findTreatmentTimeline(@Param("signalementId") Long signalementId,
+            @Param("startStatusId") Long startStatusId, @Param("endStatusId") Long endStatusId);
 }
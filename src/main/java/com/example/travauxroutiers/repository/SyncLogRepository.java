@@ -0,0 +1,16 @@
+package com.example.travauxroutiers.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.example.travauxroutiers.model.SyncLog;
+
+public interface SyncLogRepository extends JpaRepository<SyncLog, Long> {
+    /** Latest run of a direction in one of the given statuses, e.g. {@link SyncLog#RESUMABLE}. */
+    Optional<SyncLog> findFirstByDirectionAndStatusInOrderByIdDesc(String direction, Collection<String> statuses);
+
+    List<SyncLog> findTop20ByOrderByIdDesc();
+}
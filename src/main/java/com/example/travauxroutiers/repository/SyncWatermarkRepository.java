@@ -0,0 +1,8 @@
+package com.example.travauxroutiers.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.example.travauxroutiers.model.SyncWatermark;
+
+public interface SyncWatermarkRepository extends JpaRepository<SyncWatermark, String> {
+}
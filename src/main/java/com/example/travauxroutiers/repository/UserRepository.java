@@ -3,9 +3,13 @@ package com.example.travauxroutiers.repository;
 import com.example.travauxroutiers.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 	Optional<User> findByEmail(String email);
 	Optional<User> findByUsername(String username);
+	List<User> findByEmailIn(Collection<String> emails);
+	List<User> findByUsernameIn(Collection<String> usernames);
 }
@@ -1,38 +1,82 @@
 package com.example.travauxroutiers.service;
 
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+import com.example.travauxroutiers.index.SignalementPoint;
 import com.example.travauxroutiers.model.Signalement;
 import com.example.travauxroutiers.model.Status;
+import com.example.travauxroutiers.model.SyncLog;
+import com.example.travauxroutiers.model.SyncWatermark;
 import com.example.travauxroutiers.model.TypeUser;
 import com.example.travauxroutiers.model.User;
+import com.example.travauxroutiers.model.Validation;
+import com.example.travauxroutiers.model.ValidationStatus;
 import com.example.travauxroutiers.repository.SignalementRepository;
 import com.example.travauxroutiers.repository.StatusRepository;
+import com.example.travauxroutiers.repository.SyncWatermarkRepository;
 import com.example.travauxroutiers.repository.TypeUserRepository;
 import com.example.travauxroutiers.repository.UserRepository;
+import com.example.travauxroutiers.repository.ValidationStatusRepository;
+import com.google.api.core.ApiFuture;
 import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterOptions;
+import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteResult;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.cloud.FirestoreClient;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Profile("cloud")
 public class FirebaseSignalementSyncService {
     private static final Logger logger = LoggerFactory.getLogger(FirebaseSignalementSyncService.class);
+    private static final int MAX_PAGES_IN_FLIGHT = 2;
 
     private final Firestore firestore;
     private final SignalementRepository signalementRepository;
@@ -40,7 +84,28 @@ public class FirebaseSignalementSyncService {
     private final UserRepository userRepository;
     private final TypeUserRepository typeUserRepository;
     private final PasswordEncoder passwordEncoder;
-    private final ValidationService validationService;
+    private final ValidationStatusRepository validationStatusRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SignalementPhotoService photoService;
+    private final SyncWatermarkRepository watermarkRepository;
+    /** Marge relue sous le filigrane. */
+    private final Duration overlap;
+    private final int pageSize;
+    private final int exportInitialOpsPerSecond;
+    private final TransactionTemplate transactionTemplate;
+    /** Voies parallèles de la synchro Firebase → local ({@code firebase.sync.concurrency}). */
+    private final PartitionedExecutor engine;
+    /** Rappels et renvois des lots de marques de synchro. */
+    private final ScheduledExecutorService markerScheduler;
+    private final int markersMaxInFlight;
+    private final SyncJobService syncJobs;
+    /** Sérialise les exports local → Firebase (les imports passent par le verrou de l'objet). */
+    private final Object exportLock = new Object();
+    /** Directions ayant un passage en cours, et demandes d'annulation lues entre deux pages. */
+    private final Set<String> activeRuns = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicBoolean> cancelRequests = Map.of(
+            SyncLog.FIREBASE_TO_LOCAL, new AtomicBoolean(),
+            SyncLog.LOCAL_TO_FIREBASE, new AtomicBoolean());
 
     public FirebaseSignalementSyncService(
             FirebaseApp firebaseApp,
@@ -49,101 +114,626 @@ public class FirebaseSignalementSyncService {
             UserRepository userRepository,
             TypeUserRepository typeUserRepository,
             PasswordEncoder passwordEncoder,
-            ValidationService validationService
+            ValidationStatusRepository validationStatusRepository,
+            ApplicationEventPublisher eventPublisher,
+            SignalementPhotoService photoService,
+            SyncWatermarkRepository watermarkRepository,
+            SyncJobService syncJobs,
+            TransactionTemplate transactionTemplate,
+            @Value("${firebase.sync.concurrency:4}") int concurrency,
+            @Value("${firebase.sync.markers.max-in-flight:4}") int markersMaxInFlight,
+            @Value("${firebase.sync.overlap-seconds:30}") long overlapSeconds,
+            @Value("${firebase.sync.page-size:500}") int pageSize,
+            @Value("${firebase.sync.export.initial-ops-per-second:500}") int exportInitialOpsPerSecond
     ) {
+        // photoUrl est exporté vers Firestore et affiché par l'app mobile : une URL relative
+        // n'y serait pas chargée, et remplacerait la photo base64 du document
+        if (!photoService.hasAbsoluteUrls()) {
+            throw new IllegalStateException(
+                    "photos.public-base-url must be an absolute http(s) URL when Firebase sync is enabled");
+        }
         this.firestore = FirestoreClient.getFirestore(firebaseApp);
         this.signalementRepository = signalementRepository;
         this.statusRepository = statusRepository;
         this.userRepository = userRepository;
         this.typeUserRepository = typeUserRepository;
         this.passwordEncoder = passwordEncoder;
-        this.validationService = validationService;
+        this.validationStatusRepository = validationStatusRepository;
+        this.eventPublisher = eventPublisher;
+        this.photoService = photoService;
+        this.watermarkRepository = watermarkRepository;
+        this.syncJobs = syncJobs;
+        this.transactionTemplate = transactionTemplate;
+        this.overlap = Duration.ofSeconds(overlapSeconds);
+        this.pageSize = pageSize;
+        this.exportInitialOpsPerSecond = exportInitialOpsPerSecond;
+        this.engine = new PartitionedExecutor("firebase-sync", concurrency);
+        this.markersMaxInFlight = markersMaxInFlight;
+        this.markerScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "firebase-sync-markers");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        engine.close();
+        markerScheduler.shutdownNow();
     }
 
-    public Map<String, Object> syncSignalements() {
-        int created = 0;
-        int updated = 0;
-        int skipped = 0;
-        int errors = 0;
+    /**
+     * Firebase → local. Sans filigrane enregistré (ou avec {@code full}), lit toute la collection ;
+     * sinon seulement les documents dont {@code updatedAt} est postérieur au filigrane, moins une
+     * marge pour les écritures encore en cours de validation côté Firestore. Un document relu
+     * dans la marge ne coûte qu'un SKIPPED : l'application d'un document est idempotente.
+     *
+     * Le filigrane avance jusqu'au plus grand updatedAt appliqué, sans dépasser le plus petit
+     * updatedAt d'un document en erreur (base, commit), qui sera donc relu au prochain passage.
+     * Un document dont le contenu est inapplicable (champ manquant ou mal typé) est rejeté :
+     * compté et journalisé, il ne retient pas le filigrane et n'est relu que s'il est modifié.
+     * Un passage complet sans erreur fait partir le filigrane au moins de son début : sans cela,
+     * une collection dont aucun document ne porte updatedAt (anciennes versions mobiles) n'aurait
+     * jamais de filigrane et chaque passage serait complet.
+     *
+     * Le passage est une tâche de {@code sync_log} ({@link SyncJobService}) : après chaque page
+     * appliquée, le curseur et les compteurs sont enregistrés. Un passage interrompu (arrêt du
+     * processus, erreur, {@link #requestCancel annulation}) est repris au passage suivant à partir
+     * de ce curseur, avec ses requêtes, ses compteurs et ses bornes de filigrane d'origine.
+     */
+    public synchronized Map<String, Object> syncSignalements(boolean full) {
+        Instant watermark = full ? null : currentWatermark();
+        SyncLog job = syncJobs.resumeOrStart(SyncLog.FIREBASE_TO_LOCAL, watermark == null, watermark);
+        boolean resumed = job.getCheckpointAt() != null;
+        Instant since = job.getSinceWatermark();
+        SyncRun run = SyncRun.resume(newMarkerWriter(), job);
+        beginRun(SyncLog.FIREBASE_TO_LOCAL);
 
         try {
-            QuerySnapshot snap = firestore.collection("signalements").get().get();
-            for (DocumentSnapshot doc : snap.getDocuments()) {
-                try {
-                    SyncDecision decision = upsertSignalementFromDoc(doc);
-                    switch (decision) {
-                        case CREATED -> created++;
-                        case UPDATED -> updated++;
-                        case SKIPPED -> skipped++;
-                    }
-                } catch (Exception e) {
-                    errors++;
-                    logger.warn("Sync signalement doc {} failed: {}", doc.getId(), e.getMessage());
+            if (job.isFull()) {
+                applyPages(job, SyncLog.PHASE_ALL, firestore.collection("signalements"), null, run, false);
+            } else {
+                if (!SyncLog.PHASE_LEGACY.equals(job.getPhase())) {
+                    applyPages(job, SyncLog.PHASE_UPDATED, changedSince(since), "updatedAt", run, false);
                 }
+                // Anciennes versions de l'app mobile : pas de updatedAt, seul createdAt est posé
+                applyPages(job, SyncLog.PHASE_LEGACY, createdSince(since), "createdAt", run, true);
             }
+        } catch (SyncCancelledException e) {
+            Map<String, Object> markers = run.markers.finish();
+            syncJobs.finish(run.copyTo(job), SyncLog.CANCELLED, null);
+            logger.info("Firestore sync job {} cancelled after {} records", job.getId(), job.getRecordsCount());
+            return syncResult(job, resumed, run, currentWatermark(), markers);
         } catch (Exception e) {
+            run.markers.finish();
+            syncJobs.finish(run.copyTo(job), SyncLog.ERROR, e.getMessage());
             throw new RuntimeException("firestore-sync-failed: " + e.getMessage(), e);
+        } finally {
+            endRun(SyncLog.FIREBASE_TO_LOCAL);
         }
 
-        return Map.of(
-                "success", true,
-                "created", created,
-                "updated", updated,
-                "skipped", skipped,
-                "errors", errors
-        );
+        boolean cleanFull = job.isFull() && run.errors.get() == 0;
+        Instant next = advanceWatermark(cleanFull ? job.getSyncDate().atZone(ZoneId.systemDefault()).toInstant() : since,
+                run);
+        Map<String, Object> markers = run.markers.finish();
+        syncJobs.finish(run.copyTo(job), run.errors.get() + run.rejected.get() > 0 ? SyncLog.PARTIAL : SyncLog.SUCCESS,
+                null);
+        return syncResult(job, resumed, run, next, markers);
+    }
+
+    private static Map<String, Object> syncResult(SyncLog job, boolean resumed, SyncRun run, Instant watermark,
+            Map<String, Object> markers) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("jobId", job.getId());
+        result.put("status", job.getStatus());
+        result.put("resumed", resumed);
+        result.put("mode", job.getMode());
+        result.put("created", run.created.get());
+        result.put("updated", run.updated.get());
+        result.put("skipped", run.skipped.get());
+        result.put("errors", run.errors.get());
+        result.put("rejected", run.rejected.get());
+        result.put("watermark", watermark != null ? watermark.toString() : null);
+        result.put("markers", markers);
+        return result;
+    }
+
+    /**
+     * Demande l'arrêt du passage en cours de la direction ({@link SyncLog#FIREBASE_TO_LOCAL} ou
+     * {@link SyncLog#LOCAL_TO_FIREBASE}). Le passage s'arrête après la page en cours, enregistre
+     * son point de reprise et passe {@code cancelled}. Renvoie false si aucun passage ne tourne.
+     */
+    public boolean requestCancel(String direction) {
+        AtomicBoolean request = cancelRequests.get(direction);
+        if (request == null || !activeRuns.contains(direction)) return false;
+        request.set(true);
+        return true;
+    }
+
+    private void beginRun(String direction) {
+        cancelRequests.get(direction).set(false);
+        activeRuns.add(direction);
+    }
+
+    private void endRun(String direction) {
+        activeRuns.remove(direction);
+        cancelRequests.get(direction).set(false);
+    }
+
+    private boolean cancelRequested(String direction) {
+        return cancelRequests.get(direction).get();
+    }
+
+    /** Arrêt demandé par {@link #requestCancel}, une fois le point de reprise enregistré. */
+    private static final class SyncCancelledException extends RuntimeException {
+        SyncCancelledException() {
+            super("sync-cancelled");
+        }
+    }
+
+    /**
+     * Applique des documents reçus par l'écoute temps réel ({@link FirestoreSignalementListener})
+     * et avance le filigrane comme un passage incrémental. Renvoie le nombre d'erreurs.
+     */
+    public synchronized int applyDocuments(Collection<DocumentSnapshot> docs) {
+        Instant since = currentWatermark();
+        SyncRun run = new SyncRun(newMarkerWriter());
+        CompletableFuture.allOf(applyPartitioned(new ArrayList<>(docs), run)).join();
+        advanceWatermark(since, run);
+        Map<String, Object> markers = run.markers.finish();
+        logger.debug("Applied {} Firestore changes: {} created, {} updated, {} skipped, {} errors, {} rejected, markers {}",
+                docs.size(), run.created, run.updated, run.skipped, run.errors, run.rejected, markers);
+        return run.errors.get();
     }
 
-    public Map<String, Object> syncLocalToFirebase() {
-        int created = 0;
-        int updated = 0;
-        int skipped = 0;
-        int errors = 0;
+    private SyncMarkerWriter newMarkerWriter() {
+        return new SyncMarkerWriter(firestore, markerScheduler, markersMaxInFlight);
+    }
+
+    /** Filigrane enregistré, ou null si aucun passage n'a encore abouti. */
+    public Instant currentWatermark() {
+        return watermarkRepository.findById(SyncWatermark.FIREBASE_SIGNALEMENTS)
+                .map(SyncWatermark::getWatermark)
+                .orElse(null);
+    }
 
+    /** Requête des documents modifiés depuis {@code since}, marge comprise. */
+    Query changedSince(Instant since) {
+        return firestore.collection("signalements")
+                .whereGreaterThanOrEqualTo("updatedAt", toTimestamp(since.minus(overlap)));
+    }
+
+    /** Requête des documents sans updatedAt (anciennes versions mobiles) créés depuis {@code since}. */
+    Query createdSince(Instant since) {
+        return firestore.collection("signalements")
+                .whereGreaterThanOrEqualTo("createdAt", toTimestamp(since.minus(overlap)));
+    }
+
+    /**
+     * Part du plus récent entre {@code since} et le filigrane enregistré : un passage repris garde
+     * le {@code since} de son départ, et l'écoute temps réel a pu avancer le filigrane depuis. Seul
+     * un document en erreur du passage peut le faire reculer.
+     */
+    private Instant advanceWatermark(Instant since, SyncRun run) {
+        Instant stored = currentWatermark();
+        Instant base = stored == null || (since != null && since.isAfter(stored)) ? since : stored;
+        Instant next = run.nextWatermark(base);
+        if (next != null && !next.equals(stored)) {
+            watermarkRepository.save(new SyncWatermark(SyncWatermark.FIREBASE_SIGNALEMENTS, next));
+        }
+        return next;
+    }
+
+    /**
+     * Parcourt la requête par pages de {@code pageSize} documents (curseur startAfter), triée sur
+     * {@code orderField} puis l'id du document (sur l'id seul si null). La page suivante est
+     * demandée avant d'appliquer la courante, et au plus deux pages sont en cours d'application :
+     * la latence Firestore recouvre le travail en base sans tout charger en mémoire.
+     *
+     * Quand une page est entièrement appliquée (les pages se terminent dans l'ordre, chaque voie
+     * traitant ses lots dans l'ordre), son dernier document devient le point de reprise du passage.
+     * Si le passage en était déjà à cette phase, la lecture repart juste après ce point.
+     */
+    private void applyPages(SyncLog job, String phase, Query base, String orderField, SyncRun run,
+            boolean legacyOnly) throws Exception {
+        Query query = orderField != null
+                ? base.orderBy(orderField).orderBy(FieldPath.documentId())
+                : base.orderBy(FieldPath.documentId());
+        Query first = query;
+        if (phase.equals(job.getPhase()) && job.getCursorDocId() != null) {
+            first = orderField != null
+                    ? query.startAfter(toTimestamp(job.getCursorTime()), job.getCursorDocId())
+                    : query.startAfter(job.getCursorDocId());
+        } else if (!phase.equals(job.getPhase())) {
+            job.setPhase(phase);
+            job.setCursorDocId(null);
+            job.setCursorTime(null);
+            syncJobs.checkpoint(job);
+        }
+
+        Deque<PageInFlight> inFlight = new ArrayDeque<>();
+        boolean cancelled = false;
         try {
-            for (Signalement sig : signalementRepository.findAll()) {
+            ApiFuture<QuerySnapshot> next = first.limit(pageSize).get();
+            while (next != null) {
+                if (cancelRequested(SyncLog.FIREBASE_TO_LOCAL)) {
+                    cancelled = true;
+                    break;
+                }
+                List<QueryDocumentSnapshot> docs = next.get().getDocuments();
+                if (docs.isEmpty()) break;
+                QueryDocumentSnapshot last = docs.get(docs.size() - 1);
+                next = docs.size() < pageSize ? null : query.startAfter(last).limit(pageSize).get();
+                List<DocumentSnapshot> chunk = new ArrayList<>(docs.size());
+                for (DocumentSnapshot doc : docs) {
+                    if (legacyOnly && doc.contains("updatedAt")) continue;
+                    chunk.add(doc);
+                }
+                if (inFlight.size() >= MAX_PAGES_IN_FLIGHT) completePage(inFlight.removeFirst(), job, run);
+                SyncRun page = run.page();
+                inFlight.addLast(new PageInFlight(CompletableFuture.allOf(applyPartitioned(chunk, page)), page,
+                        last.getId(), orderField != null ? toInstant(last.getTimestamp(orderField)) : null));
+            }
+            while (!inFlight.isEmpty()) {
+                completePage(inFlight.removeFirst(), job, run);
+            }
+        } finally {
+            // Sortie sur erreur : attendre les pages encore appliquées par les voies, pour qu'aucune
+            // n'écrive après la fin du passage (ni pendant le suivant). Leur point de reprise n'est pas
+            // enregistré : elles seront relues à la reprise.
+            for (PageInFlight page : inFlight) {
                 try {
-                    // Skip if already synced to Firebase
-                    if (sig.getFirebaseDocId() != null && !sig.getFirebaseDocId().isEmpty()) {
-                        // Check if doc exists in Firebase, update if needed
-                        DocumentReference docRef = firestore.collection("signalements").document(sig.getFirebaseDocId());
-                        DocumentSnapshot doc = docRef.get().get();
-                        
-                        if (doc.exists()) {
-                            // Update existing doc
-                            docRef.update(buildFirebaseData(sig)).get();
-                            updated++;
+                    page.done.join();
+                } catch (RuntimeException ignored) {
+                    // Déjà compté document par document ; l'erreur qui nous fait sortir prime
+                }
+            }
+        }
+        if (cancelled) throw new SyncCancelledException();
+    }
+
+    /** Attend la page, ajoute ses compteurs au passage et enregistre son dernier document comme point de reprise. */
+    private void completePage(PageInFlight page, SyncLog job, SyncRun run) {
+        page.done.join();
+        run.merge(page.run);
+        job.setCursorDocId(page.lastDocId);
+        job.setCursorTime(page.lastOrderValue);
+        syncJobs.checkpoint(run.copyTo(job));
+    }
+
+    /** Page en cours d'application, avec ses propres compteurs et sa position dans la requête. */
+    private static final class PageInFlight {
+        final CompletableFuture<Void> done;
+        final SyncRun run;
+        final String lastDocId;
+        final Instant lastOrderValue;
+
+        PageInFlight(CompletableFuture<Void> done, SyncRun run, String lastDocId, Instant lastOrderValue) {
+            this.done = done;
+            this.run = run;
+            this.lastDocId = lastDocId;
+            this.lastOrderValue = lastOrderValue;
+        }
+    }
+
+    /**
+     * Répartit les documents entre les voies de {@link #engine} (un document donné tombe toujours
+     * dans la même voie, donc ses versions s'appliquent dans l'ordre) ; un sous-lot par voie.
+     */
+    private CompletableFuture<?>[] applyPartitioned(List<DocumentSnapshot> docs, SyncRun run) {
+        List<List<DocumentSnapshot>> parts = new ArrayList<>(engine.lanes());
+        for (int i = 0; i < engine.lanes(); i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (DocumentSnapshot doc : docs) {
+            parts.get(engine.laneOf(doc.getId())).add(doc);
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int lane = 0; lane < parts.size(); lane++) {
+            List<DocumentSnapshot> part = parts.get(lane);
+            if (!part.isEmpty()) futures.add(engine.submit(lane, () -> applyChunk(part, run)));
+        }
+        return futures.toArray(new CompletableFuture<?>[0]);
+    }
+
+    /**
+     * Applique un lot de documents dans une seule transaction. Utilisateurs, statuts et
+     * signalements existants (avec leur validation) sont chargés d'avance par requêtes IN
+     * ({@link #preload}) : aucune lecture par document, et les mises à jour partent au commit.
+     * Les événements et les marques syncedToLocalAt ne sont émis qu'après le commit. Si le
+     * commit échoue, les documents du lot sont repris un par un pour isoler le fautif.
+     *
+     * Un document dont l'empreinte ({@link SignalementSyncHash}) est celle de la ligne locale
+     * préchargée, et qui la porte déjà, est compté SKIPPED sans autre travail ni écriture en
+     * retour. Un passage complet ne se fie pas aux empreintes : il sert à reconstruire les lignes.
+     */
+    private void applyChunk(List<DocumentSnapshot> docs, SyncRun run) {
+        List<Applied> results;
+        try {
+            results = transactionTemplate.execute(tx -> {
+                SyncLookups lookups = preload(docs);
+                List<Applied> out = new ArrayList<>(docs.size());
+                for (DocumentSnapshot doc : docs) {
+                    try {
+                        out.add(upsertSignalementFromDoc(doc, lookups, run.full));
+                    } catch (RuntimeException e) {
+                        // Erreur base (transaction perdue) ou disque : le lot sera repris document par document
+                        if (tx.isRollbackOnly() || e instanceof UncheckedIOException) throw e;
+                        // Sinon le contenu du document est en cause : le relire ne changera rien
+                        out.add(Applied.rejected(doc, e));
+                    }
+                }
+                return out;
+            });
+        } catch (RuntimeException e) {
+            if (docs.size() == 1) {
+                record(Applied.failed(docs.get(0), e), run);
+                return;
+            }
+            logger.warn("Sync chunk of {} Firestore docs failed ({}), retrying one by one", docs.size(), e.getMessage());
+            for (DocumentSnapshot doc : docs) {
+                applyChunk(List.of(doc), run);
+            }
+            return;
+        }
+        for (Applied result : results) {
+            record(result, run);
+        }
+    }
+
+    private void record(Applied result, SyncRun run) {
+        if (result.error != null && result.rejected) {
+            run.rejected.incrementAndGet();
+            run.applied(result.updatedAt);
+            logger.warn("Sync signalement doc {} rejected, skipped until modified: {}", result.doc.getId(),
+                    result.error.getMessage());
+            return;
+        }
+        if (result.error != null) {
+            run.errors.incrementAndGet();
+            run.failed(result.updatedAt);
+            logger.warn("Sync signalement doc {} failed: {}", result.doc.getId(), result.error.getMessage());
+            return;
+        }
+        switch (result.decision) {
+            case CREATED -> run.created.incrementAndGet();
+            case UPDATED -> run.updated.incrementAndGet();
+            case SKIPPED -> run.skipped.incrementAndGet();
+        }
+        run.applied(result.updatedAt);
+        if (result.event != null) eventPublisher.publishEvent(result.event);
+        if (result.syncHash != null) markDocSynced(result.doc.getReference(), result.localId, result.syncHash, run);
+    }
+
+    private static Instant toInstant(Timestamp ts) {
+        return ts != null ? Instant.ofEpochSecond(ts.getSeconds(), ts.getNanos()) : null;
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano());
+    }
+
+    /**
+     * Compteurs d'un passage (ou d'une page) et bornes du prochain filigrane, mis à jour sans
+     * verrou par les voies. {@code markers} est null pour l'export local → Firebase.
+     */
+    private static final class SyncRun {
+        final SyncMarkerWriter markers;
+        /** Passage complet : les empreintes ne permettent pas de sauter un document. */
+        final boolean full;
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger updated = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        /** Documents au contenu inapplicable : ne retiennent pas le filigrane. */
+        final AtomicInteger rejected = new AtomicInteger();
+        /** Plus grand updatedAt appliqué (ou rejeté). */
+        final AtomicReference<Instant> maxApplied = new AtomicReference<>();
+        /** Plus petit updatedAt en erreur. */
+        final AtomicReference<Instant> minFailed = new AtomicReference<>();
+
+        SyncRun(SyncMarkerWriter markers) {
+            this(markers, false);
+        }
+
+        SyncRun(SyncMarkerWriter markers, boolean full) {
+            this.markers = markers;
+            this.full = full;
+        }
+
+        /** Repart des compteurs et bornes enregistrés au dernier point de reprise de la tâche. */
+        static SyncRun resume(SyncMarkerWriter markers, SyncLog job) {
+            SyncRun run = new SyncRun(markers, job.isFull());
+            run.created.set(job.getCreatedCount());
+            run.updated.set(job.getUpdatedCount());
+            run.skipped.set(job.getSkippedCount());
+            run.errors.set(job.getErrorCount());
+            run.rejected.set(job.getRejectedCount());
+            run.maxApplied.set(job.getMaxAppliedAt());
+            run.minFailed.set(job.getMinFailedAt());
+            return run;
+        }
+
+        /** Compteurs d'une page, ajoutés au passage ({@link #merge}) seulement une fois la page appliquée. */
+        SyncRun page() {
+            return new SyncRun(markers, full);
+        }
+
+        void merge(SyncRun page) {
+            created.addAndGet(page.created.get());
+            updated.addAndGet(page.updated.get());
+            skipped.addAndGet(page.skipped.get());
+            errors.addAndGet(page.errors.get());
+            rejected.addAndGet(page.rejected.get());
+            applied(page.maxApplied.get());
+            failed(page.minFailed.get());
+        }
+
+        SyncLog copyTo(SyncLog job) {
+            job.setCreatedCount(created.get());
+            job.setUpdatedCount(updated.get());
+            job.setSkippedCount(skipped.get());
+            job.setErrorCount(errors.get());
+            job.setRejectedCount(rejected.get());
+            job.setRecordsCount(created.get() + updated.get() + skipped.get() + errors.get() + rejected.get());
+            job.setMaxAppliedAt(maxApplied.get());
+            job.setMinFailedAt(minFailed.get());
+            return job;
+        }
+
+        void applied(Instant updatedAt) {
+            if (updatedAt != null) maxApplied.accumulateAndGet(updatedAt, (a, b) -> a == null || b.isAfter(a) ? b : a);
+        }
+
+        void failed(Instant updatedAt) {
+            if (updatedAt != null) minFailed.accumulateAndGet(updatedAt, (a, b) -> a == null || b.isBefore(a) ? b : a);
+        }
+
+        Instant nextWatermark(Instant since) {
+            Instant next = since;
+            Instant max = maxApplied.get();
+            Instant min = minFailed.get();
+            if (max != null && (next == null || max.isAfter(next))) next = max;
+            if (min != null && (next == null || min.isBefore(next))) next = min;
+            return next;
+        }
+    }
+
+    /**
+     * Local → Firebase par BulkWriter : un set(merge) par signalement, sans lecture préalable
+     * (merge crée le document s'il manque et ne touche pas aux champs que nous n'écrivons pas).
+     * Un nouveau document reçoit un id dérivé de l'id local ({@link #exportDocId}) : une reprise
+     * après un échec réécrit le même document au lieu d'en créer un second. Les firebaseDocId
+     * des nouveaux documents sont enregistrés ensuite, en lots JDBC.
+     *
+     * Un signalement déjà exporté dont l'empreinte n'a pas changé ({@link SignalementSyncHash})
+     * n'est pas réécrit, sauf avec {@code full} (par exemple pour recréer des documents supprimés).
+     *
+     * Les signalements sont lus par pages dans l'ordre des ids ; après chaque page écrite et
+     * enregistrée, le dernier id devient le point de reprise de la tâche {@code sync_log}.
+     */
+    public Map<String, Object> syncLocalToFirebase(boolean full) {
+        synchronized (exportLock) {
+            SyncLog job = syncJobs.resumeOrStart(SyncLog.LOCAL_TO_FIREBASE, full, null);
+            boolean resumed = job.getCheckpointAt() != null;
+            SyncRun run = SyncRun.resume(null, job);
+            beginRun(SyncLog.LOCAL_TO_FIREBASE);
+            try {
+                exportPages(job, run);
+                syncJobs.finish(run.copyTo(job), run.errors.get() > 0 ? SyncLog.PARTIAL : SyncLog.SUCCESS, null);
+            } catch (SyncCancelledException e) {
+                syncJobs.finish(run.copyTo(job), SyncLog.CANCELLED, null);
+                logger.info("Local to Firebase sync job {} cancelled after {} records", job.getId(), job.getRecordsCount());
+            } catch (Exception e) {
+                syncJobs.finish(run.copyTo(job), SyncLog.ERROR, e.getMessage());
+                throw new RuntimeException("local-to-firebase-sync-failed: " + e.getMessage(), e);
+            } finally {
+                endRun(SyncLog.LOCAL_TO_FIREBASE);
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("success", true);
+            result.put("jobId", job.getId());
+            result.put("status", job.getStatus());
+            result.put("resumed", resumed);
+            result.put("created", run.created.get());
+            result.put("updated", run.updated.get());
+            result.put("skipped", run.skipped.get());
+            result.put("errors", run.errors.get());
+            return result;
+        }
+    }
+
+    private void exportPages(SyncLog job, SyncRun run) throws Exception {
+        boolean full = job.isFull();
+        CollectionReference collection = firestore.collection("signalements");
+        job.setPhase(SyncLog.PHASE_EXPORT);
+        long afterId = job.getCursorLocalId() != null ? job.getCursorLocalId() : 0L;
+        BulkWriter writer = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setInitialOpsPerSecond(exportInitialOpsPerSecond)
+                .build());
+        try {
+            while (true) {
+                if (cancelRequested(SyncLog.LOCAL_TO_FIREBASE)) throw new SyncCancelledException();
+                List<Signalement> page = signalementRepository.findWithAssociationsByIdGreaterThan(afterId,
+                        PageRequest.of(0, pageSize));
+                if (page.isEmpty()) break;
+
+                List<PendingWrite> pending = new ArrayList<>();
+                for (Signalement sig : page) {
+                    try {
+                        boolean isNew = sig.getFirebaseDocId() == null || sig.getFirebaseDocId().isEmpty();
+                        Map<String, Object> data = buildFirebaseData(sig);
+                        String hash = (String) data.get(SignalementSyncHash.FIELD);
+                        if (!full && !isNew && hash.equals(sig.getSyncHash())) {
+                            run.skipped.incrementAndGet();
+                            continue;
+                        }
+                        String docId = isNew ? exportDocId(sig.getId()) : sig.getFirebaseDocId();
+                        ApiFuture<WriteResult> result = writer.set(collection.document(docId), data, SetOptions.merge());
+                        pending.add(new PendingWrite(sig.getId(), docId, isNew, hash, result));
+                    } catch (Exception e) {
+                        run.errors.incrementAndGet();
+                        logger.warn("Sync local signalement {} to Firebase failed: {}", sig.getId(), e.getMessage());
+                    }
+                }
+                // Envoie les écritures de la page et attend la fin de toutes
+                writer.flush().get();
+
+                Map<Long, String> newDocIds = new LinkedHashMap<>();
+                Map<Long, String> hashes = new LinkedHashMap<>();
+                for (PendingWrite write : pending) {
+                    try {
+                        write.result.get();
+                        hashes.put(write.signalementId, write.syncHash);
+                        if (write.isNew) {
+                            newDocIds.put(write.signalementId, write.docId);
+                            run.created.incrementAndGet();
                         } else {
-                            // Doc was deleted in Firebase, recreate
-                            docRef.set(buildFirebaseData(sig)).get();
-                            created++;
+                            run.updated.incrementAndGet();
                         }
-                    } else {
-                        // Create new Firebase document
-                        DocumentReference docRef = firestore.collection("signalements").document();
-                        docRef.set(buildFirebaseData(sig)).get();
-                        
-                        // Save Firebase doc ID back to local DB
-                        sig.setFirebaseDocId(docRef.getId());
-                        signalementRepository.save(sig);
-                        created++;
+                    } catch (ExecutionException e) {
+                        run.errors.incrementAndGet();
+                        logger.warn("Sync local signalement {} to Firebase failed: {}", write.signalementId,
+                                e.getCause().getMessage());
                     }
-                } catch (Exception e) {
-                    errors++;
-                    logger.warn("Sync local signalement {} to Firebase failed: {}", sig.getId(), e.getMessage());
                 }
+                signalementRepository.updateFirebaseDocIds(newDocIds);
+                signalementRepository.updateSyncHashes(hashes);
+
+                afterId = page.get(page.size() - 1).getId();
+                job.setCursorLocalId(afterId);
+                syncJobs.checkpoint(run.copyTo(job));
+                if (page.size() < pageSize) break;
             }
-        } catch (Exception e) {
-            throw new RuntimeException("local-to-firebase-sync-failed: " + e.getMessage(), e);
+        } finally {
+            writer.close();
         }
+    }
+
+    /**
+     * Id Firestore d'un signalement exporté pour la première fois : stable pour une reprise,
+     * mais réparti uniformément (des ids croissants créeraient un point chaud dans Firestore).
+     */
+    static String exportDocId(Long signalementId) {
+        return UUID.nameUUIDFromBytes(("signalement:" + signalementId).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static final class PendingWrite {
+        final Long signalementId;
+        final String docId;
+        final boolean isNew;
+        final String syncHash;
+        final ApiFuture<WriteResult> result;
 
-        return Map.of(
-                "success", true,
-                "created", created,
-                "updated", updated,
-                "skipped", skipped,
-                "errors", errors
-        );
+        PendingWrite(Long signalementId, String docId, boolean isNew, String syncHash, ApiFuture<WriteResult> result) {
+            this.signalementId = signalementId;
+            this.docId = docId;
+            this.isNew = isNew;
+            this.syncHash = syncHash;
+            this.result = result;
+        }
     }
 
     private Map<String, Object> buildFirebaseData(Signalement sig) {
@@ -160,22 +750,21 @@ public class FirebaseSignalementSyncService {
             data.put("validationStatusName", "PENDING");
         }
         
-        if (sig.getSurfaceArea() != null) {
-            data.put("surfaceArea", sig.getSurfaceArea().doubleValue());
-        }
-        if (sig.getBudget() != null) {
-            data.put("budget", sig.getBudget().doubleValue());
-        }
-        if (sig.getPhotoUrl() != null) {
-            data.put("photoUrl", sig.getPhotoUrl());
-        }
-        
+        // Champs de l'empreinte toujours écrits, même nuls : avec merge, un champ absent
+        // garderait sa valeur Firestore et le document ne correspondrait plus à l'empreinte
+        data.put("surfaceArea", sig.getSurfaceArea() != null ? sig.getSurfaceArea().doubleValue() : null);
+        data.put("budget", sig.getBudget() != null ? sig.getBudget().doubleValue() : null);
+        data.put("photoUrl", photoService.publicUrl(sig.getPhotoUrl()));
+        data.put("userUid", sig.getUserUid());
+        data.put("userEmail", sig.getUser() != null ? sig.getUser().getEmail() : null);
         if (sig.getUser() != null) {
-            data.put("userEmail", sig.getUser().getEmail());
             data.put("userDisplayName", sig.getUser().getUsername());
         }
+        data.put(SignalementSyncHash.FIELD, SignalementSyncHash.of(data::get));
         
         data.put("syncedToLocalAt", Timestamp.now());
+        // Filigrane de la synchro Firebase → local (voir syncSignalements)
+        data.put("updatedAt", FieldValue.serverTimestamp());
         data.put("localId", sig.getId());
         
         return data;
@@ -183,7 +772,102 @@ public class FirebaseSignalementSyncService {
 
     private enum SyncDecision { CREATED, UPDATED, SKIPPED }
 
-    private SyncDecision upsertSignalementFromDoc(DocumentSnapshot doc) throws Exception {
+    /** Issue d'un document dans un lot ; événement et marque Firestore émis après le commit. */
+    private static final class Applied {
+        final DocumentSnapshot doc;
+        final SyncDecision decision;
+        final Instant updatedAt;
+        final Long localId;
+        final SignalementChangedEvent event;
+        /** Empreinte à reporter sur le document Firestore ; null si rien à écrire. */
+        final String syncHash;
+        final Exception error;
+        /** Erreur due au contenu du document (permanente), par opposition à une erreur base. */
+        final boolean rejected;
+
+        Applied(DocumentSnapshot doc, SyncDecision decision, Instant updatedAt, Long localId,
+                SignalementChangedEvent event, String syncHash, Exception error) {
+            this(doc, decision, updatedAt, localId, event, syncHash, error, false);
+        }
+
+        private Applied(DocumentSnapshot doc, SyncDecision decision, Instant updatedAt, Long localId,
+                SignalementChangedEvent event, String syncHash, Exception error, boolean rejected) {
+            this.doc = doc;
+            this.decision = decision;
+            this.updatedAt = updatedAt;
+            this.localId = localId;
+            this.event = event;
+            this.syncHash = syncHash;
+            this.error = error;
+            this.rejected = rejected;
+        }
+
+        static Applied failed(DocumentSnapshot doc, Exception error) {
+            return new Applied(doc, null, updatedAtOf(doc), null, null, null, error);
+        }
+
+        static Applied rejected(DocumentSnapshot doc, Exception error) {
+            return new Applied(doc, null, updatedAtOf(doc), null, null, null, error, true);
+        }
+
+        private static Instant updatedAtOf(DocumentSnapshot doc) {
+            try {
+                return toInstant(doc.getTimestamp("updatedAt"));
+            } catch (RuntimeException e) {
+                // updatedAt illisible : le filigrane n'est simplement pas borné par ce document
+                return null;
+            }
+        }
+    }
+
+    /** Données de référence d'un lot, chargées en quelques requêtes IN. */
+    private static final class SyncLookups {
+        final Map<String, Signalement> signalementsByDocId = new HashMap<>();
+        final Map<String, User> usersByEmail = new HashMap<>();
+        final Set<String> takenUsernames = new HashSet<>();
+        final Map<String, Status> statusesByName = new HashMap<>();
+        ValidationStatus pending;
+        TypeUser userType;
+    }
+
+    private SyncLookups preload(List<DocumentSnapshot> docs) {
+        Set<String> docIds = new HashSet<>();
+        Map<String, String> usernameByEmail = new HashMap<>();
+        for (DocumentSnapshot doc : docs) {
+            docIds.add(doc.getId());
+            String email = localEmail(doc.getString("userEmail"), doc.getString("userUid"));
+            if (email != null) usernameByEmail.put(email, baseUsername(doc.getString("userDisplayName"), email));
+        }
+
+        SyncLookups lookups = new SyncLookups();
+        for (Signalement s : signalementRepository.findWithAssociationsByFirebaseDocIdIn(docIds)) {
+            lookups.signalementsByDocId.put(s.getFirebaseDocId(), s);
+        }
+        if (!usernameByEmail.isEmpty()) {
+            for (User u : userRepository.findByEmailIn(usernameByEmail.keySet())) {
+                lookups.usersByEmail.put(u.getEmail(), u);
+            }
+        }
+        // Noms d'utilisateur déjà pris, seulement pour les comptes à créer
+        Set<String> candidates = new HashSet<>();
+        usernameByEmail.forEach((email, username) -> {
+            if (!lookups.usersByEmail.containsKey(email)) candidates.add(username);
+        });
+        if (!candidates.isEmpty()) {
+            for (User u : userRepository.findByUsernameIn(candidates)) {
+                lookups.takenUsernames.add(u.getUsername());
+            }
+        }
+        for (Status status : statusRepository.findAll()) {
+            lookups.statusesByName.put(status.getName(), status);
+        }
+        return lookups;
+    }
+
+    private Applied upsertSignalementFromDoc(DocumentSnapshot doc, SyncLookups lookups, boolean full) {
+        Instant updatedAt = toInstant(doc.getTimestamp("updatedAt"));
+        String hash = SignalementSyncHash.of(doc::get);
+
         // Minimal required fields
         Double lat = doc.getDouble("latitude");
         Double lng = doc.getDouble("longitude");
@@ -191,21 +875,20 @@ public class FirebaseSignalementSyncService {
         String statusName = Optional.ofNullable(doc.getString("statusName")).orElse("NOUVEAU").toUpperCase();
 
         if (lat == null || lng == null || description == null || description.isBlank()) {
-            return SyncDecision.SKIPPED;
+            return new Applied(doc, SyncDecision.SKIPPED, updatedAt, null, null, null, null);
         }
 
         String userEmail = doc.getString("userEmail");
         String userDisplayName = doc.getString("userDisplayName");
         String userUid = doc.getString("userUid");
-        User localUser = ensureLocalUser(userEmail, userDisplayName, userUid);
-
-        Status status = statusRepository.findByName(statusName)
-                .orElseGet(() -> {
-                    Status s = new Status();
-                    s.setName(statusName);
-                    s.setDescription(null);
-                    return statusRepository.save(s);
-                });
+        User localUser = ensureLocalUser(userEmail, userDisplayName, userUid, lookups);
+
+        Status status = lookups.statusesByName.computeIfAbsent(statusName, name -> {
+            Status s = new Status();
+            s.setName(name);
+            s.setDescription(null);
+            return statusRepository.save(s);
+        });
 
         LocalDateTime date = LocalDateTime.now();
         com.google.cloud.Timestamp createdAt = doc.getTimestamp("createdAt");
@@ -214,9 +897,16 @@ public class FirebaseSignalementSyncService {
             date = LocalDateTime.ofInstant(inst, ZoneId.systemDefault());
         }
 
-        Optional<Signalement> existingOpt = signalementRepository.findByFirebaseDocId(doc.getId());
-        if (existingOpt.isPresent()) {
-            Signalement existing = existingOpt.get();
+        Signalement existing = lookups.signalementsByDocId.get(doc.getId());
+        if (!full && existing != null && hash.equals(existing.getSyncHash())) {
+            // Déjà appliqué ; marque le document seulement s'il ne porte pas encore l'empreinte
+            String marked = hash.equals(doc.get(SignalementSyncHash.FIELD)) ? null : hash;
+            return new Applied(doc, SyncDecision.SKIPPED, updatedAt, existing.getId(), null, marked, null);
+        }
+        if (existing != null) {
+            // Entité gérée par la transaction du lot : les modifications partent au commit
+            SignalementPoint before = SignalementPoint.of(existing);
+            existing.setSyncHash(hash);
             boolean changed = false;
 
             BigDecimal newLat = BigDecimal.valueOf(lat);
@@ -265,20 +955,25 @@ public class FirebaseSignalementSyncService {
 
             String photoUrl = doc.getString("photoUrl");
             String newPhotoUrl = (photoUrl != null && !photoUrl.isBlank()) ? photoUrl : null;
+            // base64 côté mobile : comparer sur l'URL du contenu stocké (même contenu = même URL)
+            PhotoStorageService.StoredPhoto inlinePhoto = storeInlinePhoto(doc, newPhotoUrl);
+            if (inlinePhoto != null) newPhotoUrl = photoService.urlFor(inlinePhoto);
+            else if (photoService.isInline(newPhotoUrl)) newPhotoUrl = existing.getPhotoUrl();
             if (!java.util.Objects.equals(existing.getPhotoUrl(), newPhotoUrl)) {
                 existing.setPhotoUrl(newPhotoUrl);
+                if (inlinePhoto != null) photoService.record(existing.getId(), inlinePhoto);
                 changed = true;
             }
 
             if (!changed) {
-                markDocSynced(doc.getReference(), existing.getId());
-                return SyncDecision.SKIPPED;
+                return new Applied(doc, SyncDecision.SKIPPED, updatedAt, existing.getId(), null, hash, null);
             }
 
-            signalementRepository.save(existing);
-            validationService.ensureForSignalement(existing);
-            markDocSynced(doc.getReference(), existing.getId());
-            return SyncDecision.UPDATED;
+            if (existing.getValidation() == null) {
+                existing.setValidation(pendingValidation(existing, lookups));
+            }
+            return new Applied(doc, SyncDecision.UPDATED, updatedAt, existing.getId(),
+                    new SignalementChangedEvent(existing.getId(), before, SignalementPoint.of(existing)), hash, null);
         }
 
         Signalement s = new Signalement();
@@ -290,6 +985,7 @@ public class FirebaseSignalementSyncService {
         s.setLongitude(BigDecimal.valueOf(lng));
         s.setDescription(description);
         s.setDateSignalement(date);
+        s.setSyncHash(hash);
 
         // Optional numeric fields (may be stored as number)
         Double surfaceArea = doc.getDouble("surfaceArea");
@@ -297,47 +993,96 @@ public class FirebaseSignalementSyncService {
         Double budget = doc.getDouble("budget");
         if (budget != null) s.setBudget(BigDecimal.valueOf(budget));
         String photoUrl = doc.getString("photoUrl");
-        if (photoUrl != null && !photoUrl.isBlank()) s.setPhotoUrl(photoUrl);
+        PhotoStorageService.StoredPhoto inlinePhoto = storeInlinePhoto(doc, photoUrl);
+        if (inlinePhoto != null) s.setPhotoUrl(photoService.urlFor(inlinePhoto));
+        else if (photoUrl != null && !photoUrl.isBlank() && !photoService.isInline(photoUrl)) s.setPhotoUrl(photoUrl);
 
+        // La validation PENDING est insérée avec le signalement (cascade)
+        s.setValidation(pendingValidation(s, lookups));
         Signalement saved = signalementRepository.save(s);
-        validationService.ensureForSignalement(saved);
+        lookups.signalementsByDocId.put(doc.getId(), saved);
+        if (inlinePhoto != null) photoService.record(saved.getId(), inlinePhoto);
+
+        return new Applied(doc, SyncDecision.CREATED, updatedAt, saved.getId(),
+                SignalementChangedEvent.created(SignalementPoint.of(saved)), hash, null);
+    }
+
+    /**
+     * Photo base64 du document, stockée ; null si ce n'en est pas une. Une photo inutilisable
+     * (mal encodée, trop grande, type refusé) est ignorée et journalisée : le reste du document
+     * s'applique, et la data URL n'est jamais recopiée dans photo_url.
+     */
+    private PhotoStorageService.StoredPhoto storeInlinePhoto(DocumentSnapshot doc, String photoUrl) {
+        try {
+            return photoService.storeIfInline(photoUrl);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Inline photo of Firestore doc {} dropped: {}", doc.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /** Même validation initiale que {@link ValidationService#ensureForSignalement}. */
+    private Validation pendingValidation(Signalement s, SyncLookups lookups) {
+        if (lookups.pending == null) {
+            lookups.pending = validationStatusRepository.findByName("PENDING").orElseGet(() -> {
+                ValidationStatus ps = new ValidationStatus();
+                ps.setName("PENDING");
+                ps.setDescription("En attente de validation");
+                return validationStatusRepository.save(ps);
+            });
+        }
+        Validation v = new Validation();
+        v.setSignalement(s);
+        v.setStatus(lookups.pending);
+        v.setNote(null);
+        v.setValidatedAt(null);
+        return v;
+    }
+
+    /** Email local d'un auteur Firebase ; synthétisé depuis l'uid s'il manque (unique, exigé par la base). */
+    private static String localEmail(String email, String uid) {
+        if (email != null && !email.isBlank()) return email;
+        return uid != null && !uid.isBlank() ? uid + "@firebase.local" : null;
+    }
 
-        markDocSynced(doc.getReference(), saved.getId());
-        return SyncDecision.CREATED;
+    private static String baseUsername(String displayName, String safeEmail) {
+        String baseUsername = (displayName != null && !displayName.isBlank())
+                ? displayName
+                : safeEmail.split("@", 2)[0];
+        baseUsername = baseUsername.replaceAll("[^a-zA-Z0-9._-]", "_");
+        if (baseUsername.length() > 50) baseUsername = baseUsername.substring(0, 50);
+        if (baseUsername.isBlank()) baseUsername = "user";
+        return baseUsername;
     }
 
-    private User ensureLocalUser(String email, String displayName, String uid) {
-        // If we have no email, synthesize one from uid (still unique / required by DB)
-        String safeEmail = (email != null && !email.isBlank()) ? email : (uid != null && !uid.isBlank() ? (uid + "@firebase.local") : null);
+    private User ensureLocalUser(String email, String displayName, String uid, SyncLookups lookups) {
+        String safeEmail = localEmail(email, uid);
         if (safeEmail == null) {
             throw new IllegalArgumentException("missing-user-email-and-uid");
         }
 
-        return userRepository.findByEmail(safeEmail).orElseGet(() -> {
-            TypeUser type = typeUserRepository.findByName("USER").orElseGet(() -> {
-                TypeUser t = new TypeUser();
-                t.setName("USER");
-                return typeUserRepository.save(t);
-            });
+        return lookups.usersByEmail.computeIfAbsent(safeEmail, key -> {
+            if (lookups.userType == null) {
+                lookups.userType = typeUserRepository.findByName("USER").orElseGet(() -> {
+                    TypeUser t = new TypeUser();
+                    t.setName("USER");
+                    return typeUserRepository.save(t);
+                });
+            }
 
             User u = new User();
             u.setEmail(safeEmail);
-            u.setTypeUser(type);
-
-            String baseUsername = (displayName != null && !displayName.isBlank())
-                    ? displayName
-                    : safeEmail.split("@", 2)[0];
-            baseUsername = baseUsername.replaceAll("[^a-zA-Z0-9._-]", "_");
-            if (baseUsername.length() > 50) baseUsername = baseUsername.substring(0, 50);
-            if (baseUsername.isBlank()) baseUsername = "user";
+            u.setTypeUser(lookups.userType);
 
+            String baseUsername = baseUsername(displayName, safeEmail);
             String username = baseUsername;
-            if (userRepository.findByUsername(username).isPresent()) {
+            if (lookups.takenUsernames.contains(username)) {
                 String suffix = (uid != null && uid.length() >= 6) ? uid.substring(0, 6) : String.valueOf(System.currentTimeMillis() % 100000);
                 username = (baseUsername + "_" + suffix);
                 if (username.length() > 50) username = username.substring(0, 50);
             }
             u.setUsername(username);
+            lookups.takenUsernames.add(username);
 
             // local password is required by schema, but not used for Firebase users
             u.setPasswordHash(passwordEncoder.encode("firebase"));
@@ -346,14 +1091,12 @@ public class FirebaseSignalementSyncService {
         });
     }
 
-    private void markDocSynced(DocumentReference ref, Long localId) {
-        try {
-            Map<String, Object> patch = new HashMap<>();
-            patch.put("syncedToLocalAt", Timestamp.now());
-            patch.put("localId", localId);
-            ref.update(patch);
-        } catch (Exception e) {
-            logger.debug("Could not mark Firestore doc synced: {}", e.getMessage());
-        }
+    /** Marque le document synchronisé ; l'écriture part avec les autres dans un lot de {@link SyncMarkerWriter}. */
+    private void markDocSynced(DocumentReference ref, Long localId, String syncHash, SyncRun run) {
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("syncedToLocalAt", Timestamp.now());
+        patch.put("localId", localId);
+        patch.put(SignalementSyncHash.FIELD, syncHash);
+        run.markers.add(ref, patch);
     }
 }
@@ -0,0 +1,255 @@
+package com.example.travauxroutiers.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Écoute temps réel de la collection Firestore {@code signalements} (activée par
+ * {@code firebase.sync.listener.enabled=true}).
+ *
+ * Deux écoutes partent du filigrane de {@link FirebaseSignalementSyncService} : sur updatedAt,
+ * et sur createdAt pour les anciennes versions mobiles. Les rappels Firestore ne bloquent
+ * jamais : ils versent les changements dans une file, qu'un thread unique vide par lots (la
+ * dernière version de chaque document), ce qui avance le filigrane.
+ *
+ * Contre-pression : quand la file atteint {@code firebase.sync.listener.queue-capacity}, ou que
+ * les rappels eux-mêmes s'accumulent (file bornée de l'exécuteur de rappels), l'écoute est
+ * suspendue (désabonnement) ; une fois la file vidée, on se réabonne à partir du filigrane, qui
+ * n'a pas dépassé les changements non encore reçus. Les instantanés en attente ne s'empilent
+ * donc pas en mémoire.
+ *
+ * Après une erreur d'écoute, ou un lot dont des documents n'ont pas pu être appliqués (erreur
+ * base passagère), on se réabonne à partir du filigrane courant (attente exponentielle
+ * plafonnée) : le filigrane est resté avant les documents en échec, qui sont donc relus avec
+ * ceux modifiés entre-temps. Les suppressions Firestore ne sont pas propagées, comme pour la
+ * synchro manuelle.
+ */
+@Service
+@Profile("cloud")
+@ConditionalOnProperty(name = "firebase.sync.listener.enabled", havingValue = "true")
+public class FirestoreSignalementListener {
+    private static final Logger logger = LoggerFactory.getLogger(FirestoreSignalementListener.class);
+    private static final long MAX_BACKOFF_SECONDS = 60;
+    /** Instantanés Firestore en attente de rappel au-delà desquels l'écoute est suspendue. */
+    private static final int CALLBACK_QUEUE_CAPACITY = 16;
+
+    private final FirebaseSignalementSyncService syncService;
+    private final BlockingQueue<DocumentSnapshot> queue = new LinkedBlockingQueue<>();
+    /** Seuil de suspension de l'écoute ; un seul instantané peut le dépasser. */
+    private final int queueCapacity;
+    private final int batchSize;
+    private final ThreadPoolExecutor callbackExecutor;
+    /** Abonnements (le premier peut lancer une synchro complète) et réabonnements. */
+    private final ScheduledExecutorService retryScheduler;
+    private final Thread consumer;
+    private final Counter pauses;
+
+    private final List<ListenerRegistration> registrations = new ArrayList<>();
+    /** Incrémentée à chaque (ré)abonnement ; les rappels d'une écoute antérieure sont ignorés. */
+    private volatile long generation;
+    private final AtomicInteger failures = new AtomicInteger();
+    /** Lots en échec consécutifs ; remis à zéro par un lot appliqué sans erreur. */
+    private final AtomicInteger batchFailures = new AtomicInteger();
+    private volatile boolean running;
+    /** Écoute suspendue jusqu'à ce que la file soit vidée. */
+    private volatile boolean paused;
+
+    public FirestoreSignalementListener(FirebaseSignalementSyncService syncService, MeterRegistry meterRegistry,
+            @Value("${firebase.sync.listener.queue-capacity:1000}") int queueCapacity,
+            @Value("${firebase.sync.listener.batch-size:100}") int batchSize) {
+        this.syncService = syncService;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.callbackExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(CALLBACK_QUEUE_CAPACITY), r -> daemon(r, "firestore-listener"),
+                // Rappel refusé : ses changements seront relus après le réabonnement
+                (task, executor) -> pause(generation));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "firestore-listener-retry"));
+        this.consumer = daemon(this::drain, "firestore-ingest");
+        this.pauses = meterRegistry.counter("firebase.listener.pauses");
+        meterRegistry.gaugeCollectionSize("firebase.listener.queue", Tags.empty(), queue);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        consumer.start();
+        // Hors du thread de démarrage : sans filigrane, l'abonnement commence par une synchro complète
+        retryScheduler.execute(this::subscribe);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        synchronized (this) {
+            generation++;
+            unsubscribe();
+        }
+        retryScheduler.shutdownNow();
+        callbackExecutor.shutdownNow();
+        consumer.interrupt();
+    }
+
+    private synchronized void subscribe() {
+        // Suspendue : c'est la fin de la vidange qui réabonnera ; déjà abonnée : réabonnement en double
+        if (!running || paused || !registrations.isEmpty()) return;
+        try {
+            Instant since = syncService.currentWatermark();
+            if (since == null) {
+                // Premier démarrage : une lecture complète pose le filigrane
+                syncService.syncSignalements(false);
+                since = syncService.currentWatermark();
+                if (since == null) since = Instant.now();
+            }
+            long gen = ++generation;
+            registrations.add(syncService.changedSince(since)
+                    .addSnapshotListener(callbackExecutor, (snap, error) -> onSnapshot(gen, snap, error, false)));
+            registrations.add(syncService.createdSince(since)
+                    .addSnapshotListener(callbackExecutor, (snap, error) -> onSnapshot(gen, snap, error, true)));
+            logger.info("Listening to Firestore signalements changed since {}", since);
+        } catch (RuntimeException e) {
+            logger.warn("Firestore listener subscription failed: {}", e.getMessage());
+            scheduleResubscribe(failures.incrementAndGet());
+        }
+    }
+
+    private void onSnapshot(long gen, QuerySnapshot snap, FirestoreException error, boolean legacyOnly) {
+        if (gen != generation) return;
+        if (error != null) {
+            onListenerError(gen, error);
+            return;
+        }
+        failures.set(0);
+        for (DocumentChange change : snap.getDocumentChanges()) {
+            if (change.getType() == DocumentChange.Type.REMOVED) continue;
+            DocumentSnapshot doc = change.getDocument();
+            if (legacyOnly && doc.contains("updatedAt")) continue;
+            queue.add(doc);
+        }
+        if (queue.size() >= queueCapacity) pause(gen);
+    }
+
+    /**
+     * Suspend l'écoute : les rappels déjà en attente sont ignorés, leurs changements seront relus
+     * au réabonnement qui suit la vidange de la file ({@link #resumeIfDrained}).
+     */
+    private synchronized void pause(long gen) {
+        if (gen != generation || paused || !running) return;
+        generation++;
+        unsubscribe();
+        paused = true;
+        pauses.increment();
+        logger.info("Firestore listener paused, {} changes queued", queue.size());
+    }
+
+    private synchronized void resumeIfDrained() {
+        if (!paused || !queue.isEmpty() || !running) return;
+        paused = false;
+        logger.info("Firestore listener queue drained, resubscribing from the watermark");
+        retryScheduler.execute(this::subscribe);
+    }
+
+    private synchronized void onListenerError(long gen, FirestoreException error) {
+        // Les deux écoutes peuvent échouer ensemble : un seul réabonnement
+        if (gen != generation) return;
+        generation++;
+        unsubscribe();
+        logger.warn("Firestore listener failed: {}", error.getMessage());
+        scheduleResubscribe(failures.incrementAndGet());
+    }
+
+    /**
+     * Des documents du lot n'ont pas été appliqués : le filigrane est resté avant eux, mais
+     * l'écoute ne les renverra pas. On se désabonne, et le réabonnement les relit.
+     */
+    private synchronized void resubscribeAfterFailedBatch() {
+        if (!running) return;
+        generation++;
+        unsubscribe();
+        // Suspendue : le réabonnement de fin de vidange repart aussi du filigrane
+        if (!paused) scheduleResubscribe(batchFailures.incrementAndGet());
+    }
+
+    private void scheduleResubscribe(int attempt) {
+        if (!running) return;
+        long delay = Math.min(MAX_BACKOFF_SECONDS, 1L << Math.min(attempt, 6));
+        retryScheduler.schedule(this::subscribe, delay, TimeUnit.SECONDS);
+    }
+
+    private void unsubscribe() {
+        registrations.forEach(ListenerRegistration::remove);
+        registrations.clear();
+    }
+
+    private void drain() {
+        List<DocumentSnapshot> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                // Le lot précédent est appliqué : le filigrane couvre tout ce qui a été reçu
+                if (paused) resumeIfDrained();
+                DocumentSnapshot first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                // Un document modifié plusieurs fois dans le lot n'est appliqué qu'une fois
+                Map<String, DocumentSnapshot> latest = new LinkedHashMap<>();
+                for (DocumentSnapshot doc : batch) {
+                    latest.remove(doc.getId());
+                    latest.put(doc.getId(), doc);
+                }
+                int errors = syncService.applyDocuments(latest.values());
+                if (errors > 0) {
+                    logger.warn("Firestore ingest batch: {} of {} documents failed, resubscribing", errors, latest.size());
+                    resubscribeAfterFailedBatch();
+                } else {
+                    batchFailures.set(0);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Firestore ingest batch failed, resubscribing: {}", e.getMessage());
+                resubscribeAfterFailedBatch();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
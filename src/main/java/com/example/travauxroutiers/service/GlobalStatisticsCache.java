@@ -0,0 +1,159 @@
+package com.example.travauxroutiers.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.travauxroutiers.dto.StatisticsDto;
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+import com.example.travauxroutiers.event.SignalementStatusRecordedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cache stale-while-revalidate devant {@link StatisticsService#getGlobalStatistics()}.
+ *
+ * Chaque écriture (événements de SignalementService, de la synchro et de l'historique des
+ * statuts) rend l'instantané périmé sans le jeter : les lecteurs continuent de le recevoir
+ * pendant qu'un seul recalcul tourne en arrière-plan. Seul le tout premier appel attend,
+ * et les appels simultanés attendent ce même calcul (single-flight). Un recalcul en échec
+ * garde l'instantané précédent ; sans instantané, l'appel échoue au lieu de servir des zéros.
+ *
+ * Métriques Micrometer : {@code statistics.global.cache} (tag result = hit, stale ou miss)
+ * et {@code statistics.global.refresh} (durée des recalculs).
+ */
+@Service
+public class GlobalStatisticsCache {
+    private static final Logger logger = LoggerFactory.getLogger(GlobalStatisticsCache.class);
+
+    private final StatisticsService statisticsService;
+    /** Filet de sécurité pour ce qui ne publie pas d'événement (table des statuts). */
+    private final long maxAgeMillis;
+    private final ExecutorService executor;
+
+    /** Incrémentée à chaque écriture ; un instantané d'une version antérieure est périmé. */
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Timer refreshTimer;
+
+    public GlobalStatisticsCache(StatisticsService statisticsService, MeterRegistry meterRegistry,
+            @Value("${statistics.global.max-age-ms:60000}") long maxAgeMillis) {
+        this.statisticsService = statisticsService;
+        this.maxAgeMillis = maxAgeMillis;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "statistics-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        this.hits = meterRegistry.counter("statistics.global.cache", "result", "hit");
+        this.staleHits = meterRegistry.counter("statistics.global.cache", "result", "stale");
+        this.misses = meterRegistry.counter("statistics.global.cache", "result", "miss");
+        this.refreshTimer = meterRegistry.timer("statistics.global.refresh");
+    }
+
+    public StatisticsDto get() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            if (snapshot.isFresh(version.get(), maxAgeMillis)) {
+                hits.increment();
+            } else {
+                staleHits.increment();
+                refresh();
+            }
+            return snapshot.statistics;
+        }
+        misses.increment();
+        try {
+            return refresh().get().statistics;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("statistics-refresh-interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("statistics-refresh-failed", e.getCause());
+        }
+    }
+
+    @EventListener
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    public void onStatusRecorded(SignalementStatusRecordedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Lance un recalcul, ou renvoie celui déjà en cours. */
+    private CompletableFuture<Snapshot> refresh() {
+        CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+        CompletableFuture<Snapshot> running = inFlight.compareAndExchange(null, mine);
+        if (running != null)
+            return running;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    // Version lue avant le calcul : une écriture pendant le calcul laisse l'instantané périmé
+                    long startVersion = version.get();
+                    long start = System.nanoTime();
+                    StatisticsDto statistics = statisticsService.getGlobalStatistics();
+                    refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    Snapshot snapshot = new Snapshot(statistics, startVersion, System.currentTimeMillis());
+                    current.set(snapshot);
+                    inFlight.set(null);
+                    mine.complete(snapshot);
+                } catch (Throwable e) {
+                    // Errors comprises : sinon inFlight resterait posé et les appelants attendraient sans fin
+                    logger.warn("Global statistics refresh failed", e);
+                    inFlight.set(null);
+                    mine.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Exécuteur arrêté (fermeture du contexte)
+            inFlight.set(null);
+            mine.completeExceptionally(e);
+        }
+        return mine;
+    }
+
+    private static final class Snapshot {
+        final StatisticsDto statistics;
+        final long version;
+        final long computedAt;
+
+        Snapshot(StatisticsDto statistics, long version, long computedAt) {
+            this.statistics = statistics;
+            this.version = version;
+            this.computedAt = computedAt;
+        }
+
+        boolean isFresh(long currentVersion, long maxAgeMillis) {
+            return version == currentVersion && System.currentTimeMillis() - computedAt < maxAgeMillis;
+        }
+    }
+}
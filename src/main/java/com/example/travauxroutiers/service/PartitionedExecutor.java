@@ -0,0 +1,51 @@
+package com.example.travauxroutiers.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool borné où les tâches d'une même clé s'exécutent dans l'ordre de soumission : chaque clé
+ * tombe dans une voie (hash modulo le nombre de voies) et une voie n'exécute qu'une tâche à la
+ * fois. Les voies avancent en parallèle, une par thread du pool au plus.
+ */
+final class PartitionedExecutor implements AutoCloseable {
+    private final ExecutorService pool;
+    /** Dernière tâche soumise sur chaque voie ; la suivante s'enchaîne derrière. */
+    private final CompletableFuture<?>[] lanes;
+
+    PartitionedExecutor(String threadName, int lanes) {
+        if (lanes < 1) throw new IllegalArgumentException("lanes must be >= 1");
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(lanes, r -> {
+            Thread t = new Thread(r, threadName + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.lanes = new CompletableFuture<?>[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = CompletableFuture.completedFuture(null);
+        }
+    }
+
+    int lanes() {
+        return lanes.length;
+    }
+
+    int laneOf(Object key) {
+        return Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    /** Exécute {@code task} après les tâches déjà soumises sur la voie, même si elles ont échoué. */
+    synchronized CompletableFuture<Void> submit(int lane, Runnable task) {
+        CompletableFuture<Void> next = lanes[lane].handle((r, e) -> null).thenRunAsync(task, pool);
+        lanes[lane] = next;
+        return next;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.travauxroutiers.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Génère en arrière-plan les déclinaisons réduites (miniature, moyenne) des photos stockées.
+ *
+ * Le pool de threads et sa file d'attente sont bornés : une rafale d'envois ne peut ni saturer
+ * le CPU ni accumuler des images décodées en mémoire. Une tâche refusée (file pleine) n'est
+ * pas perdue : la déclinaison sera redemandée au premier téléchargement qui en a besoin.
+ *
+ * Les dimensions sont lues dans l'en-tête avant tout décodage : une image qui annonce plus de
+ * {@code photos.renditions.max-pixels} pixels n'est pas décodée (une petite image compressée peut
+ * annoncer des dimensions énormes), et une grande image est décodée sous-échantillonnée, à peine
+ * plus grande que la plus grande déclinaison.
+ *
+ * Une photo dont aucune déclinaison ne peut être tirée (format sans lecteur ImageIO comme WebP,
+ * image trop grande ou illisible) est marquée dans le stockage ({@link PhotoStorageService#markNoRenditions}) :
+ * elle n'est plus remise en file, et l'original est servi à sa place comme contenu définitif.
+ */
+@Service
+public class PhotoRenditionService {
+    private static final Logger logger = LoggerFactory.getLogger(PhotoRenditionService.class);
+
+    /** Déclinaisons générées : nom et plus grand côté en pixels. */
+    public enum Rendition {
+        THUMB("thumb", 256),
+        MEDIUM("medium", 1024);
+
+        private final String name;
+        private final int maxSide;
+
+        Rendition(String name, int maxSide) {
+            this.name = name;
+            this.maxSide = maxSide;
+        }
+
+        public String getName() { return name; }
+        public int getMaxSide() { return maxSide; }
+
+        /** Déclinaison correspondant au paramètre {@code size}, null si inconnue. */
+        public static Rendition fromName(String name) {
+            for (Rendition r : values()) {
+                if (r.name.equalsIgnoreCase(name)) return r;
+            }
+            return null;
+        }
+    }
+
+    private final PhotoStorageService storage;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    /** Photos en cours de traitement ou en attente, pour ne pas les mettre deux fois en file. */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public PhotoRenditionService(PhotoStorageService storage,
+            @Value("${photos.renditions.threads:2}") int threads,
+            @Value("${photos.renditions.queue-size:256}") int queueSize,
+            @Value("${photos.renditions.jpeg-quality:0.8}") float jpegQuality,
+            @Value("${photos.renditions.max-pixels:50000000}") long maxPixels) {
+        this.storage = storage;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "photo-rendition-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Met en file la génération des déclinaisons manquantes d'une photo (sans attendre). */
+    public void schedule(String hash) {
+        if (hash == null || !pending.add(hash))
+            return;
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(hash);
+                } finally {
+                    pending.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(hash);
+            logger.debug("Rendition queue full, {} will be generated on demand", hash);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void generate(String hash) {
+        try {
+            Path original = storage.resolve(hash);
+            if (original == null || storage.hasNoRenditions(hash))
+                return;
+            BufferedImage source = null;
+            for (Rendition r : Rendition.values()) {
+                if (storage.resolveRendition(hash, r.getName()) != null)
+                    continue;
+                if (source == null) {
+                    try {
+                        source = decode(original, hash);
+                    } catch (IIOException e) {
+                        logger.warn("Photo {} cannot be decoded: {}", hash, e.getMessage());
+                    }
+                    if (source == null) {
+                        // Format non supporté, image trop grande ou illisible : l'original sert de déclinaison
+                        storage.markNoRenditions(hash);
+                        return;
+                    }
+                }
+                write(resize(source, r.getMaxSide()), storage.renditionPath(hash, r.getName()));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Rendition generation failed for photo {}: {}", hash, e.getMessage());
+        }
+    }
+
+    /**
+     * Décode l'original après avoir vérifié ses dimensions, en sous-échantillonnant les grandes
+     * images ; null si le format n'est pas reconnu ou si l'image dépasse {@link #maxPixels}.
+     */
+    private BufferedImage decode(Path original, String hash) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            if (in == null)
+                return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext())
+                return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if (w <= 0 || h <= 0 || (long) w * h > maxPixels) {
+                    logger.warn("Photo {} declares {}x{} pixels, over the {} limit: no rendition", hash, w, h, maxPixels);
+                    return null;
+                }
+                // Une ligne ou colonne sur n suffit tant que le résultat reste au moins deux fois
+                // plus grand que la plus grande déclinaison (qui est ensuite lissée par resize)
+                int target = 2 * Rendition.MEDIUM.getMaxSide();
+                int step = Math.max(1, Math.max(w, h) / target);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (step > 1)
+                    param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int maxSide) {
+        int w = source.getWidth();
+        int h = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSide / Math.max(w, h));
+        int tw = Math.max(1, (int) Math.round(w * scale));
+        int th = Math.max(1, (int) Math.round(h * scale));
+
+        // JPEG sans transparence : dessiner sur fond blanc en RGB
+        BufferedImage out = new BufferedImage(tw, th, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(java.awt.Color.WHITE);
+            g.fillRect(0, 0, tw, th);
+            g.drawImage(source, 0, 0, tw, th, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private void write(BufferedImage image, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext())
+            throw new IOException("no-jpeg-writer");
+        ImageWriter writer = writers.next();
+        Path tmp = storage.createTempFile();
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.travauxroutiers.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Content-addressed photo store on the local filesystem.
+ *
+ * A photo is written once under {@code <root>/<h0h1>/<h2h3>/<sha256>}; uploading the same bytes
+ * again is a no-op. Files are immutable, which is what lets the streaming endpoint cache them
+ * forever and serve them with zero-copy transfers.
+ *
+ * Only raster images are accepted, and their type is taken from the magic bytes of the content,
+ * never from what the client declares: the store never holds anything a browser would run
+ * (HTML, SVG, ...) on the API origin.
+ */
+@Service
+public class PhotoStorageService {
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    /** Types {@link #sniff} can return; the only ones served inline. */
+    public static final Set<String> IMAGE_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/webp");
+    /** Bytes needed by {@link #sniff}. */
+    private static final int SNIFF_BYTES = 12;
+
+    private final Path root;
+    private final long maxBytes;
+    private final String publicBaseUrl;
+
+    public PhotoStorageService(@Value("${photos.storage-dir:data/photos}") String storageDir,
+            @Value("${photos.max-size-bytes:20971520}") long maxBytes,
+            @Value("${photos.public-base-url:}") String publicBaseUrl) throws IOException {
+        this.root = Paths.get(storageDir).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.publicBaseUrl = publicBaseUrl.replaceAll("/+$", "");
+        Files.createDirectories(root.resolve("tmp"));
+    }
+
+    /** Result of a store: the content hash is also the photo's identity. */
+    public static class StoredPhoto {
+        private final String hash;
+        private final String contentType;
+        private final long size;
+
+        public StoredPhoto(String hash, String contentType, long size) {
+            this.hash = hash;
+            this.contentType = contentType;
+            this.size = size;
+        }
+
+        public String getHash() { return hash; }
+        public String getContentType() { return contentType; }
+        public long getSize() { return size; }
+    }
+
+    /**
+     * Streams {@code in} to disk while hashing it; the caller keeps ownership of the stream.
+     * The stored content type is the one sniffed from the first bytes.
+     * @throws IllegalArgumentException if the content exceeds the configured maximum size or
+     *         is not a JPEG, PNG, GIF or WebP image
+     */
+    public StoredPhoto store(InputStream in) throws IOException {
+        Path tmp = Files.createTempFile(root.resolve("tmp"), "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            byte[] head = new byte[SNIFF_BYTES];
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tmp), digest)) {
+                byte[] buf = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buf)) != -1) {
+                    if (size < SNIFF_BYTES) {
+                        System.arraycopy(buf, 0, head, (int) size, (int) Math.min(n, SNIFF_BYTES - size));
+                    }
+                    size += n;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("photo-too-large");
+                    }
+                    out.write(buf, 0, n);
+                }
+            }
+            if (size == 0) {
+                throw new IllegalArgumentException("empty-photo");
+            }
+            String contentType = sniff(head, (int) Math.min(size, SNIFF_BYTES));
+            if (contentType == null) {
+                throw new IllegalArgumentException("unsupported-photo-type");
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same bytes stored concurrently: keep the existing file
+                }
+            }
+            return new StoredPhoto(hash, contentType, size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Image type recognised from the leading bytes, or null if it is not an accepted image. */
+    static String sniff(byte[] b, int n) {
+        if (n >= 3 && (b[0] & 0xff) == 0xFF && (b[1] & 0xff) == 0xD8 && (b[2] & 0xff) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (n >= 8 && (b[0] & 0xff) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G'
+                && b[4] == 0x0D && b[5] == 0x0A && b[6] == 0x1A && b[7] == 0x0A) {
+            return "image/png";
+        }
+        if (n >= 6 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8'
+                && (b[4] == '7' || b[4] == '9') && b[5] == 'a') {
+            return "image/gif";
+        }
+        if (n >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    /** Path of a stored photo, or null if the hash is malformed or unknown. */
+    public Path resolve(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) return null;
+        Path p = pathFor(hash);
+        return Files.isRegularFile(p) ? p : null;
+    }
+
+    /**
+     * Path of a rendition (thumbnail, ...) of a stored photo: a sibling file
+     * {@code <sha256>.<name>.jpg}, immutable like the original.
+     */
+    public Path renditionPath(String hash, String name) {
+        return pathFor(hash).resolveSibling(hash + "." + name + ".jpg");
+    }
+
+    /** Existing rendition file, or null if the hash is malformed or the rendition not generated yet. */
+    public Path resolveRendition(String hash, String name) {
+        if (hash == null || !HASH.matcher(hash).matches()) return null;
+        Path p = renditionPath(hash, name);
+        return Files.isRegularFile(p) ? p : null;
+    }
+
+    /**
+     * Records that no rendition can be made from a stored photo (format without an ImageIO
+     * reader, such as WebP, or an image over the pixel limit): an empty sibling file
+     * {@code <sha256>.norendition}. Like the content, this never changes.
+     */
+    public void markNoRenditions(String hash) throws IOException {
+        try {
+            Files.createFile(noRenditionsPath(hash));
+        } catch (FileAlreadyExistsException e) {
+            // Already recorded
+        }
+    }
+
+    /** Whether {@link #markNoRenditions(String)} was recorded for this photo. */
+    public boolean hasNoRenditions(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) return false;
+        return Files.exists(noRenditionsPath(hash));
+    }
+
+    private Path noRenditionsPath(String hash) {
+        return pathFor(hash).resolveSibling(hash + ".norendition");
+    }
+
+    /** Scratch file in the store's volume, so that it can be moved into place atomically. */
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(root.resolve("tmp"), "rendition-", ".part");
+    }
+
+    public String urlFor(String hash) {
+        return publicBaseUrl + "/api/photos/" + hash;
+    }
+
+    /**
+     * Whether {@link #urlFor(String)} gives absolute URLs. Without {@code photos.public-base-url}
+     * they are relative to the API origin, which only the web manager can resolve.
+     */
+    public boolean hasAbsoluteUrls() {
+        return publicBaseUrl.startsWith("http://") || publicBaseUrl.startsWith("https://");
+    }
+
+    /** Extracts the hash from a URL produced by {@link #urlFor(String)}, or null. */
+    public String hashFromUrl(String url) {
+        if (url == null) return null;
+        int i = url.lastIndexOf("/api/photos/");
+        if (i < 0) return null;
+        String hash = url.substring(i + "/api/photos/".length());
+        return HASH.matcher(hash).matches() ? hash : null;
+    }
+
+    private Path pathFor(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.travauxroutiers.service;
+
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.example.travauxroutiers.dto.SignalementDtos;
+import com.example.travauxroutiers.index.SignalementClusterIndex;
+import com.example.travauxroutiers.index.SignalementTileCache;
+
+/**
+ * Lectures cartographiques agrégées, servies uniquement par les index en mémoire
+ * (aucune requête JPA).
+ */
+@Service
+public class SignalementMapService {
+    public static final int MAX_ZOOM = SignalementTileCache.MAX_ZOOM;
+
+    private final SignalementClusterIndex clusterIndex;
+    private final SignalementTileCache tileCache;
+
+    public SignalementMapService(SignalementClusterIndex clusterIndex, SignalementTileCache tileCache) {
+        this.clusterIndex = clusterIndex;
+        this.tileCache = tileCache;
+    }
+
+    public List<SignalementDtos.Cluster> clusters(double minLat, double minLng, double maxLat, double maxLng, int zoom) {
+        checkZoom(zoom);
+        return clusterIndex.query(minLat, minLng, maxLat, maxLng, zoom);
+    }
+
+    /** Grille de densité pondérée (weight = count, budget ou surface ; défaut count). */
+    public SignalementDtos.Heatmap heatmap(double minLat, double minLng, double maxLat, double maxLng, int zoom,
+            String weight) {
+        checkZoom(zoom);
+        SignalementClusterIndex.HeatWeight w = weight == null || weight.isBlank()
+                ? SignalementClusterIndex.HeatWeight.COUNT
+                : SignalementClusterIndex.HeatWeight.fromName(weight);
+        if (w == null)
+            throw new IllegalArgumentException("invalid-weight");
+        return clusterIndex.heatmap(minLat, minLng, maxLat, maxLng, zoom, w);
+    }
+
+    public SignalementClusterIndex.TileClusters clusterTile(int z, int x, int y) {
+        checkTile(z, x, y);
+        return clusterIndex.tile(z, x, y);
+    }
+
+    /** Tuile vectorielle (MVT) encodée, couche "signalements". */
+    public byte[] vectorTile(int z, int x, int y) {
+        checkTile(z, x, y);
+        return tileCache.tile(z, x, y);
+    }
+
+    static void checkZoom(int zoom) {
+        if (zoom < 0 || zoom > MAX_ZOOM)
+            throw new IllegalArgumentException("invalid-zoom");
+    }
+
+    static void checkTile(int z, int x, int y) {
+        checkZoom(z);
+        int n = 1 << z;
+        if (x < 0 || y < 0 || x >= n || y >= n)
+            throw new IllegalArgumentException("invalid-tile");
+    }
+}
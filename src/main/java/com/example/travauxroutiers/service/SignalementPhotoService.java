@@ -0,0 +1,180 @@
+package com.example.travauxroutiers.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.travauxroutiers.model.SignalementPhoto;
+import com.example.travauxroutiers.repository.SignalementPhotoRepository;
+import com.example.travauxroutiers.repository.SignalementRepository;
+
+/**
+ * Photos des signalements : dépôt dans le stockage adressé par contenu, référencement dans
+ * signalement_photo, et extraction des anciennes photos base64 (data URL) stockées en ligne
+ * dans signalement.photo_url.
+ */
+@Service
+public class SignalementPhotoService {
+    private static final Logger logger = LoggerFactory.getLogger(SignalementPhotoService.class);
+
+    private final PhotoStorageService storage;
+    private final SignalementPhotoRepository photoRepository;
+    private final SignalementRepository signalementRepository;
+    private final PhotoRenditionService renditionService;
+
+    public SignalementPhotoService(PhotoStorageService storage, SignalementPhotoRepository photoRepository,
+            SignalementRepository signalementRepository, PhotoRenditionService renditionService) {
+        this.storage = storage;
+        this.photoRepository = photoRepository;
+        this.signalementRepository = signalementRepository;
+        this.renditionService = renditionService;
+    }
+
+    /**
+     * Enregistre une photo envoyée en flux. La première photo d'un signalement devient aussi
+     * sa photo principale (photo_url). Le type est reconnu sur le contenu, pas sur l'en-tête
+     * du client.
+     * @throws IllegalArgumentException signalement inconnu, photo vide, trop grande ou d'un type refusé
+     */
+    public SignalementPhoto upload(Long signalementId, InputStream in) throws IOException {
+        if (!signalementRepository.existsById(signalementId)) {
+            throw new IllegalArgumentException("signalement-not-found");
+        }
+        PhotoStorageService.StoredPhoto stored = storage.store(in);
+        SignalementPhoto photo = record(signalementId, stored);
+        signalementRepository.setPhotoUrlIfMissing(signalementId, photo.getPhotoUrl());
+        return photo;
+    }
+
+    public List<SignalementPhoto> list(Long signalementId) {
+        return photoRepository.findBySignalementIdOrderByUploadedAtAsc(signalementId);
+    }
+
+    /** Type MIME enregistré pour un contenu, null si inconnu. */
+    public String contentTypeOf(String hash) {
+        return photoRepository.findFirstByContentHash(hash).map(SignalementPhoto::getContentType).orElse(null);
+    }
+
+    /**
+     * Si {@code photoUrl} est une data URL base64, stocke son contenu et renvoie la photo
+     * stockée ; renvoie null pour une URL déjà externe ou vide. Le type annoncé par la data URL
+     * est ignoré : il est reconnu sur le contenu. Une data URL n'est jamais gardée telle quelle
+     * dans photo_url : si elle ne peut pas être stockée, l'appelant la refuse ou l'ignore.
+     * @throws IllegalArgumentException data URL mal formée, image vide, trop grande ou d'un type refusé
+     * @throws UncheckedIOException écriture du stockage impossible
+     */
+    public PhotoStorageService.StoredPhoto storeIfInline(String photoUrl) {
+        if (!isInline(photoUrl))
+            return null;
+        int comma = photoUrl.indexOf(',');
+        if (comma < 0 || !photoUrl.substring(5, comma).endsWith(";base64"))
+            throw new IllegalArgumentException("invalid-inline-photo");
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(photoUrl.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid-inline-photo", e);
+        }
+        try {
+            return storage.store(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Photo envoyée en ligne (data URL) plutôt que par URL. */
+    public boolean isInline(String photoUrl) {
+        return photoUrl != null && photoUrl.startsWith("data:");
+    }
+
+    public String urlFor(PhotoStorageService.StoredPhoto stored) {
+        return storage.urlFor(stored.getHash());
+    }
+
+    /** Voir {@link PhotoStorageService#hasAbsoluteUrls()}. */
+    public boolean hasAbsoluteUrls() {
+        return storage.hasAbsoluteUrls();
+    }
+
+    /**
+     * URL d'une photo du stockage récrite avec la base publique actuelle (une ligne enregistrée
+     * avant sa configuration garde une URL relative) ; toute autre URL est renvoyée telle quelle.
+     */
+    public String publicUrl(String photoUrl) {
+        String hash = storage.hashFromUrl(photoUrl);
+        return hash != null ? storage.urlFor(hash) : photoUrl;
+    }
+
+    /**
+     * Référence une photo déjà stockée (idempotent pour un même contenu) et lance la génération
+     * de ses déclinaisons en arrière-plan.
+     */
+    public SignalementPhoto record(Long signalementId, PhotoStorageService.StoredPhoto stored) {
+        if (photoRepository.existsBySignalementIdAndContentHash(signalementId, stored.getHash())) {
+            return photoRepository.findBySignalementIdOrderByUploadedAtAsc(signalementId).stream()
+                    .filter(p -> stored.getHash().equals(p.getContentHash()))
+                    .findFirst()
+                    .orElseThrow();
+        }
+        SignalementPhoto photo = new SignalementPhoto();
+        photo.setSignalement(signalementRepository.getReferenceById(signalementId));
+        photo.setPhotoUrl(storage.urlFor(stored.getHash()));
+        photo.setContentHash(stored.getHash());
+        photo.setContentType(stored.getContentType());
+        photo.setSizeBytes(stored.getSize());
+        SignalementPhoto saved = photoRepository.save(photo);
+        renditionService.schedule(stored.getHash());
+        return saved;
+    }
+
+    public void deleteForSignalement(Long signalementId) {
+        // Les fichiers restent : ils sont adressés par contenu et peuvent être partagés
+        photoRepository.deleteBySignalementId(signalementId);
+    }
+
+    /**
+     * Migration : parcourt par lots (keyset sur id) les signalements dont photo_url contient
+     * encore une data URL, écrit l'image dans le stockage, crée la ligne signalement_photo et
+     * remplace photo_url par l'URL du endpoint de streaming. Seule la colonne photo_url est lue,
+     * une ligne à la fois. Rejouable : les lignes déjà migrées ne sont plus sélectionnées.
+     */
+    public Map<String, Object> migrateInlinePhotos(int batchSize) {
+        int migrated = 0;
+        int errors = 0;
+        long afterId = 0L;
+
+        while (true) {
+            List<Long> ids = signalementRepository.findInlinePhotoIds(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty())
+                break;
+            for (Long id : ids) {
+                afterId = id;
+                try {
+                    PhotoStorageService.StoredPhoto stored = storeIfInline(signalementRepository.findPhotoUrlById(id));
+                    SignalementPhoto photo = record(id, stored);
+                    signalementRepository.updatePhotoUrl(id, photo.getPhotoUrl());
+                    migrated++;
+                } catch (Exception e) {
+                    errors++;
+                    logger.warn("Inline photo migration failed for signalement {}: {}", id, e.getMessage());
+                }
+            }
+        }
+
+        logger.info("Inline photo migration done: {} migrated, {} errors", migrated, errors);
+        return Map.of(
+                "success", true,
+                "migrated", migrated,
+                "errors", errors
+        );
+    }
+}
@@ -1,11 +1,23 @@
 package com.example.travauxroutiers.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.example.travauxroutiers.dto.SignalementDtos;
+import com.example.travauxroutiers.dto.SignalementSummary;
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+import com.example.travauxroutiers.event.SignalementStatusRecordedEvent;
+import com.example.travauxroutiers.index.IdBitmap;
+import com.example.travauxroutiers.index.SignalementBitmapIndex;
+import com.example.travauxroutiers.index.SignalementPoint;
+import com.example.travauxroutiers.index.SignalementSpatialIndex;
 import com.example.travauxroutiers.model.Signalement;
 import com.example.travauxroutiers.model.SignalementStatus;
 import com.example.travauxroutiers.model.Status;
@@ -16,20 +28,38 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 @Service
 public class SignalementService implements GenericService<Signalement, Long> {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    /** Nombre maximal d'identifiants par clause IN. */
+    private static final int ID_CHUNK_SIZE = 1000;
+
     private final SignalementRepository repo;
     private final StatusRepository statusRepository;
     private final SignalementStatusRepository signalementStatusRepository;
     private final ValidationService validationService;
+    private final SignalementSpatialIndex spatialIndex;
+    private final SignalementBitmapIndex bitmapIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SignalementPhotoService photoService;
+    private final TreatmentTimelineService treatmentTimelineService;
     
     @Autowired(required = false)
     private PushNotificationService pushNotificationService;
 
     public SignalementService(SignalementRepository repo, StatusRepository statusRepository,
-            SignalementStatusRepository signalementStatusRepository, ValidationService validationService) {
+            SignalementStatusRepository signalementStatusRepository, ValidationService validationService,
+            SignalementSpatialIndex spatialIndex, SignalementBitmapIndex bitmapIndex,
+            ApplicationEventPublisher eventPublisher, SignalementPhotoService photoService,
+            TreatmentTimelineService treatmentTimelineService) {
         this.repo = repo;
         this.statusRepository = statusRepository;
         this.signalementStatusRepository = signalementStatusRepository;
         this.validationService = validationService;
+        this.spatialIndex = spatialIndex;
+        this.bitmapIndex = bitmapIndex;
+        this.eventPublisher = eventPublisher;
+        this.photoService = photoService;
+        this.treatmentTimelineService = treatmentTimelineService;
     }
 
     public List<Signalement> listAll() {
@@ -42,18 +72,108 @@ public class SignalementService implements GenericService<Signalement, Long> {
         return repo.findByValidationStatusName(statusName.trim().toUpperCase());
     }
 
+    /**
+     * Pagination par curseur (keyset sur date_signalement, id) : le coût d'une page ne dépend
+     * que de sa taille, pas de la taille de la table. Une ligne supplémentaire est lue pour
+     * savoir s'il reste une page suivante.
+     */
+    public SignalementDtos.CursorPage<SignalementSummary> listPage(SignalementDtos.ListFilter filter, String cursor,
+            Integer limit) {
+        int size = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        SignalementDtos.Cursor after = (cursor == null || cursor.isBlank()) ? null
+                : SignalementDtos.Cursor.decode(cursor.trim());
+
+        List<SignalementSummary> rows = filter.isEmpty()
+                ? repo.findSummaryPage(
+                        after != null ? after.getDate() : null,
+                        after != null ? after.getId() : null,
+                        PageRequest.of(0, size + 1))
+                : filteredPage(filter, after, size + 1);
+
+        boolean hasMore = rows.size() > size;
+        List<SignalementSummary> items = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            SignalementSummary last = items.get(items.size() - 1);
+            nextCursor = new SignalementDtos.Cursor(last.getDateSignalement(), last.getId()).encode();
+        }
+        return new SignalementDtos.CursorPage<>(items, size, hasMore, nextCursor);
+    }
+
+    /**
+     * Nombre de signalements correspondant au filtre, par opérations sur les bitmaps
+     * (aucune requête).
+     */
+    public long count(SignalementDtos.ListFilter filter) {
+        return bitmapIndex.count(filter);
+    }
+
+    /**
+     * Page filtrée : les identifiants viennent de l'index bitmap (jours les plus récents
+     * d'abord, par jours entiers, puis les signalements sans date), puis seules ces lignes
+     * sont chargées et triées dans l'ordre de la page non filtrée.
+     */
+    private List<SignalementSummary> filteredPage(SignalementDtos.ListFilter filter, SignalementDtos.Cursor after,
+            int wanted) {
+        IdBitmap candidates = bitmapIndex.select(filter);
+        long[] ids = bitmapIndex.latestDays(candidates, after != null ? after.getDate() : null,
+                after != null ? after.getId() : null, wanted).toArray();
+        List<SignalementSummary> rows = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i += ID_CHUNK_SIZE) {
+            List<Long> chunk = new ArrayList<>(Math.min(ID_CHUNK_SIZE, ids.length - i));
+            for (int j = i; j < Math.min(ids.length, i + ID_CHUNK_SIZE); j++) {
+                chunk.add(ids[j]);
+            }
+            rows.addAll(repo.findSummariesByIdIn(chunk));
+        }
+        rows.sort(Comparator.comparing(SignalementSummary::getDateSignalement,
+                        Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                .thenComparing(SignalementSummary::getId)
+                .reversed());
+        return rows.size() > wanted ? rows.subList(0, wanted) : rows;
+    }
+
+    /**
+     * Signalements dont la position est dans le rectangle donné, servis par l'index spatial
+     * en mémoire (seuls les identifiants trouvés sont ensuite chargés depuis la base).
+     */
+    public List<SignalementSummary> listInBoundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+        List<Long> ids = spatialIndex.query(minLat, minLng, maxLat, maxLng).stream()
+                .map(SignalementPoint::getId)
+                .toList();
+        List<SignalementSummary> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            result.addAll(repo.findSummariesByIdIn(ids.subList(i, Math.min(ids.size(), i + ID_CHUNK_SIZE))));
+        }
+        return result;
+    }
+
+    /** Version allégée (projection) pour la file de validation. */
+    public List<SignalementSummary> listSummariesByValidationStatusName(String statusName) {
+        return repo.findSummariesByValidationStatusName(statusName.trim().toUpperCase());
+    }
+
     public Optional<Signalement> get(Long id) {
         return repo.findById(id);
     }
 
+    /** @throws IllegalArgumentException photo base64 qui ne peut pas être stockée (voir {@link SignalementPhotoService#storeIfInline}) */
     public Signalement create(Signalement t) {
         // S'assurer que createdAt est défini
         if (t.getCreatedAt() == null) {
             t.setCreatedAt(LocalDateTime.now());
         }
+        // Le client n'envoie que {"status": {"id": ...}} : charger le statut complet
+        t.setStatus(resolveStatus(t.getStatus()));
+        // Photo envoyée en base64 : stockée à part, la ligne ne garde que l'URL
+        PhotoStorageService.StoredPhoto inlinePhoto = photoService.storeIfInline(t.getPhotoUrl());
+        if (inlinePhoto != null)
+            t.setPhotoUrl(photoService.urlFor(inlinePhoto));
 
         Signalement saved = repo.save(t);
-        validationService.ensureForSignalement(saved);
+        saved.setValidation(validationService.ensureForSignalement(saved));
+        if (inlinePhoto != null)
+            photoService.record(saved.getId(), inlinePhoto);
 
         // Créer une entrée dans signalement_status pour le statut initial
         if (saved.getStatus() != null) {
@@ -62,14 +182,21 @@ public class SignalementService implements GenericService<Signalement, Long> {
                     saved.getStatus(),
                     "Création du signalement");
             signalementStatusRepository.save(statusEntry);
+            eventPublisher.publishEvent(SignalementStatusRecordedEvent.recorded(statusEntry));
+            treatmentTimelineService.refresh(saved);
         }
 
+        publishChange(saved.getId(), null, SignalementPoint.of(saved));
         return saved;
     }
 
+    /** @throws IllegalArgumentException photo base64 qui ne peut pas être stockée (voir {@link SignalementPhotoService#storeIfInline}) */
     public Signalement update(Long id, Signalement t) {
+        // Photo base64 stockée avant toute modification : refusée, elle n'en laisse aucune à moitié faite
+        PhotoStorageService.StoredPhoto inlinePhoto = photoService.storeIfInline(t.getPhotoUrl());
         return repo.findById(id).map(existing -> {
             Status oldStatus = existing.getStatus();
+            SignalementPoint before = SignalementPoint.of(existing);
 
             if (t.getDescription() != null)
                 existing.setDescription(t.getDescription());
@@ -78,17 +205,21 @@ public class SignalementService implements GenericService<Signalement, Long> {
             if (t.getLongitude() != null)
                 existing.setLongitude(t.getLongitude());
             if (t.getStatus() != null)
-                existing.setStatus(t.getStatus());
+                existing.setStatus(resolveStatus(t.getStatus()));
             if (t.getEntreprise() != null)
                 existing.setEntreprise(t.getEntreprise());
             if (t.getSurfaceArea() != null)
                 existing.setSurfaceArea(t.getSurfaceArea());
             if (t.getBudget() != null)
                 existing.setBudget(t.getBudget());
-            if (t.getPhotoUrl() != null)
+            if (inlinePhoto != null)
+                existing.setPhotoUrl(photoService.urlFor(inlinePhoto));
+            else if (t.getPhotoUrl() != null)
                 existing.setPhotoUrl(t.getPhotoUrl());
 
             Signalement updated = repo.save(existing);
+            if (inlinePhoto != null)
+                photoService.record(updated.getId(), inlinePhoto);
 
             // Si le statut a changé, créer une entrée dans signalement_status
             if (t.getStatus() != null && (oldStatus == null || !oldStatus.getId().equals(t.getStatus().getId()))) {
@@ -97,6 +228,8 @@ public class SignalementService implements GenericService<Signalement, Long> {
                         t.getStatus(),
                         "Modification du signalement");
                 signalementStatusRepository.save(statusEntry);
+                eventPublisher.publishEvent(SignalementStatusRecordedEvent.recorded(statusEntry));
+                treatmentTimelineService.refresh(updated);
                 
                 // Send push notification if service is available
                 if (pushNotificationService != null && oldStatus != null) {
@@ -106,20 +239,28 @@ public class SignalementService implements GenericService<Signalement, Long> {
                             userUid,
                             updated.getId(),
                             oldStatus.getName(),
-                            t.getStatus().getName(),
+                            updated.getStatus().getName(),
                             updated.getDescription()
                         );
                     }
                 }
             }
 
+            publishChange(updated.getId(), before, SignalementPoint.of(updated));
             return updated;
         }).orElseGet(() -> {
             t.setId(id);
             if (t.getCreatedAt() == null) {
                 t.setCreatedAt(LocalDateTime.now());
             }
-            return repo.save(t);
+            t.setStatus(resolveStatus(t.getStatus()));
+            if (inlinePhoto != null)
+                t.setPhotoUrl(photoService.urlFor(inlinePhoto));
+            Signalement saved = repo.save(t);
+            if (inlinePhoto != null)
+                photoService.record(saved.getId(), inlinePhoto);
+            publishChange(saved.getId(), null, SignalementPoint.of(saved));
+            return saved;
         });
     }
 
@@ -131,10 +272,17 @@ public class SignalementService implements GenericService<Signalement, Long> {
             });
             
             // 2. Supprimer les entrées de signalement_status
+            signalementStatusRepository.findBySignalementIdOrderByDateStatusAsc(id)
+                    .forEach(entry -> eventPublisher.publishEvent(SignalementStatusRecordedEvent.removed(entry)));
             signalementStatusRepository.deleteBySignalementId(id);
+
+            // 3. Supprimer les références de photos (les fichiers restent dans le stockage)
+            photoService.deleteForSignalement(id);
             
-            // 3. Supprimer le signalement lui-même
+            // 4. Supprimer le signalement lui-même
+            SignalementPoint before = SignalementPoint.of(signalement);
             repo.deleteById(id);
+            publishChange(id, before, null);
         });
     }
 
@@ -144,6 +292,7 @@ public class SignalementService implements GenericService<Signalement, Long> {
                     .orElseThrow(() -> new RuntimeException("Status not found: " + statusId));
 
             Status oldStatus = signalement.getStatus();
+            SignalementPoint before = SignalementPoint.of(signalement);
             signalement.setStatus(newStatus);
             Signalement updated = repo.save(signalement);
 
@@ -153,6 +302,8 @@ public class SignalementService implements GenericService<Signalement, Long> {
                     newStatus,
                     "Changement de statut via bouton rapide");
             signalementStatusRepository.save(statusEntry);
+            eventPublisher.publishEvent(SignalementStatusRecordedEvent.recorded(statusEntry));
+            treatmentTimelineService.refresh(updated);
             
             // Send push notification if service is available
             if (pushNotificationService != null && oldStatus != null) {
@@ -168,7 +319,20 @@ public class SignalementService implements GenericService<Signalement, Long> {
                 }
             }
 
+            publishChange(updated.getId(), before, SignalementPoint.of(updated));
             return updated;
         }).orElseThrow(() -> new RuntimeException("Signalement not found: " + id));
     }
+
+    private Status resolveStatus(Status status) {
+        if (status == null || status.getId() == null || status.getName() != null)
+            return status;
+        return statusRepository.findById(status.getId()).orElse(status);
+    }
+
+    private void publishChange(Long id, SignalementPoint before, SignalementPoint after) {
+        if (before == null && after == null)
+            return;
+        eventPublisher.publishEvent(new SignalementChangedEvent(id, before, after));
+    }
 }
@@ -1,7 +1,11 @@
 package com.example.travauxroutiers.service;
 
+import com.example.travauxroutiers.event.SignalementStatusRecordedEvent;
+import com.example.travauxroutiers.model.Signalement;
 import com.example.travauxroutiers.model.SignalementStatus;
+import com.example.travauxroutiers.repository.SignalementRepository;
 import com.example.travauxroutiers.repository.SignalementStatusRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -10,17 +14,53 @@ import java.util.Optional;
 @Service
 public class SignalementStatusService implements GenericService<SignalementStatus, Long> {
     private final SignalementStatusRepository repo;
+    private final SignalementRepository signalementRepository;
+    private final TreatmentTimelineService treatmentTimelineService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public SignalementStatusService(SignalementStatusRepository repo) { this.repo = repo; }
+    public SignalementStatusService(SignalementStatusRepository repo, SignalementRepository signalementRepository,
+            TreatmentTimelineService treatmentTimelineService, ApplicationEventPublisher eventPublisher) {
+        this.repo = repo;
+        this.signalementRepository = signalementRepository;
+        this.treatmentTimelineService = treatmentTimelineService;
+        this.eventPublisher = eventPublisher;
+    }
 
     public List<SignalementStatus> listAll() { return repo.findAll(); }
     public Optional<SignalementStatus> get(Long id) { return repo.findById(id); }
-    public SignalementStatus create(SignalementStatus t) { return repo.save(t); }
+    public SignalementStatus create(SignalementStatus t) { return recorded(repo.save(resolveSignalement(t))); }
     public SignalementStatus update(Long id, SignalementStatus t) {
         return repo.findById(id).map(existing -> {
+            eventPublisher.publishEvent(SignalementStatusRecordedEvent.removed(existing));
             existing.setStatus(t.getStatus()); existing.setComment(t.getComment()); existing.setChangedBy(t.getChangedBy());
-            return repo.save(existing);
-        }).orElseGet(() -> { t.setId(id); return repo.save(t); });
+            return recorded(repo.save(existing));
+        }).orElseGet(() -> { t.setId(id); return recorded(repo.save(resolveSignalement(t))); });
+    }
+    public void delete(Long id) {
+        repo.findById(id).ifPresent(existing -> {
+            repo.deleteById(id);
+            eventPublisher.publishEvent(SignalementStatusRecordedEvent.removed(existing));
+            refreshTimeline(existing);
+        });
+    }
+
+    private SignalementStatus recorded(SignalementStatus entry) {
+        eventPublisher.publishEvent(SignalementStatusRecordedEvent.recorded(entry));
+        return refreshTimeline(entry);
+    }
+
+    // Le client n'envoie que {"signalement": {"id": ...}} : charger le signalement complet, dont
+    // l'entreprise, la validation et le budget notés sur l'entrée pour les statistiques
+    private SignalementStatus resolveSignalement(SignalementStatus entry) {
+        Signalement s = entry.getSignalement();
+        if (s != null && s.getId() != null)
+            signalementRepository.findById(s.getId()).ifPresent(entry::setSignalement);
+        return entry;
+    }
+
+    // La chronologie de traitement dénormalisée dépend de cet historique
+    private SignalementStatus refreshTimeline(SignalementStatus entry) {
+        if (entry.getSignalement() != null) treatmentTimelineService.refresh(entry.getSignalement().getId());
+        return entry;
     }
-    public void delete(Long id) { repo.deleteById(id); }
 }
@@ -0,0 +1,49 @@
+package com.example.travauxroutiers.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Empreinte SHA-256 des champs synchronisés d'un signalement Firestore. Elle est calculée de
+ * la même façon sur un document lu (import) et sur les données écrites (export), et enregistrée
+ * sur la ligne locale : un document dont l'empreinte est celle de sa ligne n'a pas changé depuis
+ * la dernière synchro.
+ */
+final class SignalementSyncHash {
+    /** Champ du document Firestore qui porte l'empreinte. */
+    static final String FIELD = "syncHash";
+
+    /** Champs couverts, dans l'ordre de l'empreinte. */
+    static final List<String> FIELDS = List.of("latitude", "longitude", "description", "statusName",
+            "userEmail", "userUid", "surfaceArea", "budget", "photoUrl");
+
+    private SignalementSyncHash() {
+    }
+
+    /** Les nombres sont normalisés en double : 12 (entier côté mobile) et 12.0 donnent la même empreinte. */
+    static String of(Function<String, Object> field) {
+        StringBuilder canonical = new StringBuilder("v1");
+        for (String name : FIELDS) {
+            Object value = field.apply(name);
+            canonical.append('\u001f');
+            if (value instanceof Number n) {
+                canonical.append(n.doubleValue());
+            } else if (value != null) {
+                canonical.append(value);
+            } else {
+                canonical.append('\u0000');
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.travauxroutiers.service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.travauxroutiers.dto.StatisticsDto;
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+import com.example.travauxroutiers.event.SignalementStatusRecordedEvent;
+import com.example.travauxroutiers.index.SignalementPoint;
+import com.example.travauxroutiers.model.Entreprise;
+import com.example.travauxroutiers.model.SignalementDailyRollup;
+import com.example.travauxroutiers.model.SignalementStatus;
+import com.example.travauxroutiers.model.Status;
+import com.example.travauxroutiers.repository.EntrepriseRepository;
+import com.example.travauxroutiers.repository.SignalementDailyRollupRepository;
+import com.example.travauxroutiers.repository.SignalementStatusRepository;
+import com.example.travauxroutiers.repository.StatusRepository;
+
+/**
+ * Statistiques par période à partir de la table signalement_daily_rollup : un seau par jour
+ * et par (statut, entreprise, statut de validation), tenu à jour à chaque écriture. Les séries
+ * par jour, semaine ou mois ne lisent que ces seaux, jamais les signalements.
+ *
+ * Une entrée d'historique est comptée dans le seau ENTERED noté sur sa ligne (colonnes
+ * {@code rollup_*} de signalement_status) : sa suppression retire exactement ce qu'on a ajouté.
+ * Quand l'entreprise, la validation, le budget ou la surface du signalement changent, ses
+ * entrées sont re-classées comme ses seaux CREATED.
+ */
+@Service
+public class StatisticsRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsRollupService.class);
+    /** Valeur stockée pour un statut ou une entreprise absent (clé de seau non nulle). */
+    private static final long NONE = 0L;
+    private static final int MAX_RANGE_DAYS = 3660;
+
+    private final SignalementDailyRollupRepository rollupRepository;
+    private final SignalementStatusRepository signalementStatusRepository;
+    private final StatusRepository statusRepository;
+    private final EntrepriseRepository entrepriseRepository;
+
+    public StatisticsRollupService(SignalementDailyRollupRepository rollupRepository,
+            SignalementStatusRepository signalementStatusRepository, StatusRepository statusRepository,
+            EntrepriseRepository entrepriseRepository) {
+        this.rollupRepository = rollupRepository;
+        this.signalementStatusRepository = signalementStatusRepository;
+        this.statusRepository = statusRepository;
+        this.entrepriseRepository = entrepriseRepository;
+    }
+
+    @EventListener
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        SignalementPoint before = event.getBefore();
+        SignalementPoint after = event.getAfter();
+        if (before != null && after != null && sameBucket(before, after)
+                && before.getBudget() == after.getBudget() && before.getSurfaceArea() == after.getSurfaceArea()) {
+            return; // Déplacement ou description modifiée : aucun seau ne change
+        }
+        try {
+            if (before != null) addCreated(before, -1);
+            if (after != null) addCreated(after, 1);
+            if (before != null && after != null && !sameEnteredBucket(before, after)) rebucketEntered(after);
+        } catch (RuntimeException e) {
+            // Les seaux peuvent être reconstruits (rebuild) : ne pas faire échouer l'écriture
+            logger.warn("Rollup update failed for signalement {}: {}", event.getSignalementId(), e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onStatusRecorded(SignalementStatusRecordedEvent event) {
+        try {
+            addEntered(event);
+        } catch (RuntimeException e) {
+            logger.warn("Rollup update failed for status entry of signalement {}: {}",
+                    event.getSignalementId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Série temporelle lue dans les seaux journaliers.
+     * @param metric created (signalements créés) ou entered (changements de statut)
+     * @param granularity day, week (lundi) ou month
+     * @param groupBy none, status, entreprise ou validationStatus
+     * @throws IllegalArgumentException paramètre invalide
+     */
+    public List<StatisticsDto.TimeBucket> timeSeries(String metric, String granularity, LocalDate from, LocalDate to,
+            Long statusId, Long entrepriseId, String validationStatus, String groupBy) {
+        String kind = switch (metric == null ? "created" : metric.trim().toLowerCase()) {
+            case "created" -> SignalementDailyRollup.KIND_CREATED;
+            case "entered" -> SignalementDailyRollup.KIND_ENTERED;
+            default -> throw new IllegalArgumentException("invalid-metric");
+        };
+        String unit = granularity == null ? "day" : granularity.trim().toLowerCase();
+        if (!unit.equals("day") && !unit.equals("week") && !unit.equals("month"))
+            throw new IllegalArgumentException("invalid-granularity");
+        String group = groupBy == null ? "none" : groupBy.trim();
+        if (!group.equals("none") && !group.equals("status") && !group.equals("entreprise")
+                && !group.equals("validationStatus"))
+            throw new IllegalArgumentException("invalid-group-by");
+
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end) || start.plusDays(MAX_RANGE_DAYS).isBefore(end))
+            throw new IllegalArgumentException("invalid-range");
+        String validation = validationStatus == null || validationStatus.isBlank() ? null
+                : validationStatus.trim().toUpperCase();
+
+        List<SignalementDailyRollup> days = rollupRepository.findSeries(kind, start, end, statusId, entrepriseId,
+                validation);
+
+        // Regroupement par période puis par valeur de groupe, dans l'ordre chronologique
+        Map<String, StatisticsDto.TimeBucket> buckets = new LinkedHashMap<>();
+        for (SignalementDailyRollup r : days) {
+            LocalDate period = periodStart(r.getBucketDate(), unit);
+            String groupKey = switch (group) {
+                case "status" -> String.valueOf(r.getStatusId());
+                case "entreprise" -> String.valueOf(r.getEntrepriseId());
+                case "validationStatus" -> r.getValidationStatus();
+                default -> "";
+            };
+            StatisticsDto.TimeBucket b = buckets.computeIfAbsent(period + "|" + groupKey, k -> {
+                StatisticsDto.TimeBucket t = new StatisticsDto.TimeBucket();
+                t.setPeriod(period);
+                return t;
+            });
+            switch (group) {
+                case "status" -> b.setGroupId(r.getStatusId() == NONE ? null : r.getStatusId());
+                case "entreprise" -> b.setGroupId(r.getEntrepriseId() == NONE ? null : r.getEntrepriseId());
+                case "validationStatus" -> b.setGroupName(r.getValidationStatus());
+                default -> { }
+            }
+            b.setCount(b.getCount() + r.getCount());
+            b.setBudget(b.getBudget() + r.getBudget().doubleValue());
+            b.setSurface(b.getSurface() + r.getSurface().doubleValue());
+        }
+
+        List<StatisticsDto.TimeBucket> result = new ArrayList<>(buckets.values());
+        nameGroups(result, group);
+        return result;
+    }
+
+    /** Recalcule toute la table depuis signalement et signalement_status (requêtes groupées). */
+    @Transactional
+    public Map<String, Object> rebuild() {
+        rollupRepository.deleteAllInBatch();
+        Map<List<Object>, SignalementDailyRollup> rows = new HashMap<>();
+        collect(rows, SignalementDailyRollup.KIND_CREATED, rollupRepository.aggregateCreated());
+        collect(rows, SignalementDailyRollup.KIND_ENTERED, rollupRepository.aggregateEntered());
+        rollupRepository.saveAll(rows.values());
+        logger.info("Daily rollups rebuilt: {} buckets", rows.size());
+        return Map.of("success", true, "buckets", rows.size());
+    }
+
+    private static void collect(Map<List<Object>, SignalementDailyRollup> rows, String kind, List<Object[]> aggregates) {
+        for (Object[] a : aggregates) {
+            LocalDate day = (LocalDate) a[0];
+            long statusId = a[1] != null ? ((Number) a[1]).longValue() : NONE;
+            long entrepriseId = a[2] != null ? ((Number) a[2]).longValue() : NONE;
+            String validation = a[3] != null ? (String) a[3] : "PENDING";
+            // Une validation absente et PENDING tombent dans le même seau
+            SignalementDailyRollup r = rows.computeIfAbsent(List.of(kind, day, statusId, entrepriseId, validation),
+                    k -> new SignalementDailyRollup(kind, day, statusId, entrepriseId, validation, 0,
+                            BigDecimal.ZERO, BigDecimal.ZERO));
+            r.setCount(r.getCount() + ((Number) a[4]).longValue());
+            r.setBudget(r.getBudget().add(toDecimal(a[5])));
+            r.setSurface(r.getSurface().add(toDecimal(a[6])));
+        }
+    }
+
+    private static BigDecimal toDecimal(Object o) {
+        if (o instanceof BigDecimal bd) return bd;
+        return o != null ? BigDecimal.valueOf(((Number) o).doubleValue()) : BigDecimal.ZERO;
+    }
+
+    private void addCreated(SignalementPoint p, int sign) {
+        if (p.getDateSignalement() == null)
+            return;
+        add(SignalementDailyRollup.KIND_CREATED, p.getDateSignalement().toLocalDate(), p.getStatusId(),
+                p.getEntrepriseId(), p.getValidationStatusName(), sign, sign * p.getBudget(), sign * p.getSurfaceArea());
+    }
+
+    private void addEntered(SignalementStatusRecordedEvent e) {
+        if (e.getDateStatus() == null)
+            return;
+        add(SignalementDailyRollup.KIND_ENTERED, e.getDateStatus().toLocalDate(), e.getStatusId(),
+                e.getEntrepriseId(), e.getValidationStatusName(),
+                e.getDelta(), e.getDelta() * e.getBudget(), e.getDelta() * e.getSurfaceArea());
+    }
+
+    /**
+     * Déplace les entrées d'historique du signalement vers le seau de ses valeurs actuelles.
+     * Seules les entrées notées ailleurs bougent : une entrée écrite juste avant cet événement
+     * avec les nouvelles valeurs n'est pas comptée deux fois.
+     */
+    private void rebucketEntered(SignalementPoint p) {
+        List<SignalementStatus> moved = new ArrayList<>();
+        for (SignalementStatus entry : signalementStatusRepository.findBySignalementIdOrderByDateStatusAsc(p.getId())) {
+            SignalementStatusRecordedEvent old = SignalementStatusRecordedEvent.removed(entry);
+            if (Objects.equals(old.getEntrepriseId(), p.getEntrepriseId())
+                    && old.getValidationStatusName().equals(p.getValidationStatusName())
+                    && old.getBudget() == p.getBudget() && old.getSurfaceArea() == p.getSurfaceArea())
+                continue;
+            addEntered(old);
+            entry.setRollupEntrepriseId(p.getEntrepriseId());
+            entry.setRollupValidationStatus(p.getValidationStatusName());
+            entry.setRollupBudget(BigDecimal.valueOf(p.getBudget()));
+            entry.setRollupSurfaceArea(BigDecimal.valueOf(p.getSurfaceArea()));
+            addEntered(SignalementStatusRecordedEvent.recorded(entry));
+            moved.add(entry);
+        }
+        signalementStatusRepository.saveAll(moved);
+    }
+
+    private void add(String kind, LocalDate day, Long statusId, Long entrepriseId, String validation,
+            long count, double budgetDelta, double surfaceDelta) {
+        long status = statusId != null ? statusId : NONE;
+        long entreprise = entrepriseId != null ? entrepriseId : NONE;
+        BigDecimal budget = BigDecimal.valueOf(budgetDelta);
+        BigDecimal surface = BigDecimal.valueOf(surfaceDelta);
+        if (rollupRepository.increment(kind, day, status, entreprise, validation, count, budget, surface) > 0)
+            return;
+        try {
+            rollupRepository.save(new SignalementDailyRollup(kind, day, status, entreprise, validation,
+                    count, budget, surface));
+        } catch (DataIntegrityViolationException e) {
+            // Seau créé entre-temps par une écriture concurrente
+            rollupRepository.increment(kind, day, status, entreprise, validation, count, budget, surface);
+        }
+    }
+
+    private static boolean sameBucket(SignalementPoint a, SignalementPoint b) {
+        return Objects.equals(a.getStatusId(), b.getStatusId())
+                && Objects.equals(a.getEntrepriseId(), b.getEntrepriseId())
+                && Objects.equals(a.getValidationStatusName(), b.getValidationStatusName())
+                && Objects.equals(a.getDateSignalement() != null ? a.getDateSignalement().toLocalDate() : null,
+                        b.getDateSignalement() != null ? b.getDateSignalement().toLocalDate() : null);
+    }
+
+    private static boolean sameEnteredBucket(SignalementPoint a, SignalementPoint b) {
+        return Objects.equals(a.getEntrepriseId(), b.getEntrepriseId())
+                && Objects.equals(a.getValidationStatusName(), b.getValidationStatusName())
+                && a.getBudget() == b.getBudget() && a.getSurfaceArea() == b.getSurfaceArea();
+    }
+
+    private static LocalDate periodStart(LocalDate day, String unit) {
+        return switch (unit) {
+            case "week" -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case "month" -> day.withDayOfMonth(1);
+            default -> day;
+        };
+    }
+
+    private void nameGroups(List<StatisticsDto.TimeBucket> buckets, String group) {
+        if (group.equals("status")) {
+            Map<Long, String> names = new HashMap<>();
+            for (Status s : statusRepository.findAll()) names.put(s.getId(), s.getName());
+            buckets.forEach(b -> b.setGroupName(b.getGroupId() != null ? names.get(b.getGroupId()) : null));
+        } else if (group.equals("entreprise")) {
+            List<Long> ids = buckets.stream().map(StatisticsDto.TimeBucket::getGroupId)
+                    .filter(Objects::nonNull).distinct().toList();
+            Map<Long, String> names = new HashMap<>();
+            for (Entreprise e : entrepriseRepository.findAllById(ids)) names.put(e.getId(), e.getName());
+            buckets.forEach(b -> b.setGroupName(b.getGroupId() != null ? names.get(b.getGroupId()) : null));
+        }
+    }
+}
@@ -1,157 +1,245 @@
 package com.example.travauxroutiers.service;
 
-import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.example.travauxroutiers.dto.SignalementDtos;
 import com.example.travauxroutiers.dto.StatisticsDto;
-import com.example.travauxroutiers.model.Signalement;
-import com.example.travauxroutiers.model.SignalementStatus;
+import com.example.travauxroutiers.index.EntrepriseStatsIndex;
+import com.example.travauxroutiers.index.SignalementBitmapIndex;
+import com.example.travauxroutiers.index.SignalementColumns;
+import com.example.travauxroutiers.index.SignalementStatsAggregate;
+import com.example.travauxroutiers.index.SignalementIndexLoader;
+import com.example.travauxroutiers.index.StatusTransitionIndex;
+import com.example.travauxroutiers.model.Entreprise;
 import com.example.travauxroutiers.model.Status;
+import com.example.travauxroutiers.repository.EntrepriseRepository;
 import com.example.travauxroutiers.repository.SignalementRepository;
-import com.example.travauxroutiers.repository.SignalementStatusRepository;
 import com.example.travauxroutiers.repository.StatusRepository;
 
 @Service
 public class StatisticsService {
+    public static final String SORT_TREATMENT_DAYS = "treatmentDays";
+    public static final String SORT_DATE_DEBUT = "dateDebutTravaux";
+    public static final String SORT_STATUS = "status";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final double SECONDS_PER_DAY = 86400.0;
 
     private final SignalementRepository signalementRepository;
-    private final SignalementStatusRepository signalementStatusRepository;
     private final StatusRepository statusRepository;
+    private final SignalementStatsAggregate statsAggregate;
+    private final EntrepriseStatsIndex entrepriseStats;
+    private final SignalementColumns columns;
+    private final SignalementBitmapIndex bitmapIndex;
+    private final StatusTransitionIndex transitionIndex;
+    private final SignalementIndexLoader indexLoader;
+    private final EntrepriseRepository entrepriseRepository;
+    private final int overdueDays;
 
     public StatisticsService(SignalementRepository signalementRepository,
-            SignalementStatusRepository signalementStatusRepository,
-            StatusRepository statusRepository) {
+            StatusRepository statusRepository,
+            SignalementStatsAggregate statsAggregate,
+            EntrepriseStatsIndex entrepriseStats,
+            SignalementColumns columns,
+            SignalementBitmapIndex bitmapIndex,
+            StatusTransitionIndex transitionIndex,
+            SignalementIndexLoader indexLoader,
+            EntrepriseRepository entrepriseRepository,
+            @Value("${statistics.entreprises.overdue-days:30}") int overdueDays) {
         this.signalementRepository = signalementRepository;
-        this.signalementStatusRepository = signalementStatusRepository;
         this.statusRepository = statusRepository;
+        this.statsAggregate = statsAggregate;
+        this.entrepriseStats = entrepriseStats;
+        this.columns = columns;
+        this.bitmapIndex = bitmapIndex;
+        this.transitionIndex = transitionIndex;
+        this.indexLoader = indexLoader;
+        this.entrepriseRepository = entrepriseRepository;
+        this.overdueDays = overdueDays;
     }
 
-    public StatisticsDto getGlobalStatistics() {
-        try {
-            System.out.println("🔄 Calcul des statistiques globales...");
-            List<Signalement> allSignalements = signalementRepository.findAll();
-            System.out.println("📊 Nombre de signalements trouvés: " + allSignalements.size());
+    /**
+     * Percentiles p50/p90/p99 du temps passé dans chaque statut avant chaque transition,
+     * lus dans les sketches de {@link StatusTransitionIndex} (mémoire et coût constants).
+     * Après une suppression ou une correction de l'historique, l'index est d'abord rechargé.
+     */
+    public List<StatisticsDto.TransitionPercentile> getTransitionPercentiles() {
+        indexLoader.reloadTransitionsIfStale();
+        Map<Long, String> statusNames = new HashMap<>();
+        for (Status status : statusRepository.findAll()) {
+            statusNames.put(status.getId(), status.getName());
+        }
+        List<StatisticsDto.TransitionPercentile> result = new ArrayList<>();
+        for (StatusTransitionIndex.TransitionQuantiles t : transitionIndex.snapshot(0.5, 0.9, 0.99)) {
+            StatisticsDto.TransitionPercentile stat = new StatisticsDto.TransitionPercentile();
+            stat.setFromStatusId(t.getFromStatusId());
+            stat.setFromStatusName(statusNames.get(t.getFromStatusId()));
+            stat.setToStatusId(t.getToStatusId());
+            stat.setToStatusName(statusNames.get(t.getToStatusId()));
+            stat.setCount(t.getCount());
+            stat.setP50Days(t.getQuantileSeconds()[0] / SECONDS_PER_DAY);
+            stat.setP90Days(t.getQuantileSeconds()[1] / SECONDS_PER_DAY);
+            stat.setP99Days(t.getQuantileSeconds()[2] / SECONDS_PER_DAY);
+            result.add(stat);
+        }
+        result.sort(Comparator.comparing(StatisticsDto.TransitionPercentile::getFromStatusId)
+                .thenComparing(StatisticsDto.TransitionPercentile::getToStatusId));
+        return result;
+    }
 
-            StatisticsDto stats = new StatisticsDto();
+    /**
+     * Indicateurs par entreprise lus dans {@link EntrepriseStatsIndex} : le coût ne dépend que du
+     * nombre d'entreprises, pas de l'historique. Un signalement ouvert est en retard s'il a été
+     * déclaré il y a plus de {@code overdueDays} jours (défaut : statistics.entreprises.overdue-days).
+     */
+    public List<StatisticsDto.EntrepriseStatistic> getEntrepriseStatistics(Integer overdueDays) {
+        int days = overdueDays != null ? overdueDays : this.overdueDays;
+        if (days < 0)
+            throw new IllegalArgumentException("overdueDays must be >= 0");
+        List<EntrepriseStatsIndex.EntrepriseTotals> totals = entrepriseStats.snapshot(LocalDate.now().minusDays(days));
+
+        Map<Long, String> names = new HashMap<>();
+        List<Long> ids = new ArrayList<>(totals.size());
+        totals.forEach(t -> ids.add(t.getEntrepriseId()));
+        for (Entreprise e : entrepriseRepository.findAllById(ids)) {
+            names.put(e.getId(), e.getName());
+        }
 
-            // Calcul des statistiques de base
-            stats.setTotalPoints(allSignalements.size());
+        List<StatisticsDto.EntrepriseStatistic> result = new ArrayList<>(totals.size());
+        for (EntrepriseStatsIndex.EntrepriseTotals t : totals) {
+            StatisticsDto.EntrepriseStatistic stat = new StatisticsDto.EntrepriseStatistic();
+            stat.setEntrepriseId(t.getEntrepriseId());
+            stat.setEntrepriseName(names.get(t.getEntrepriseId()));
+            stat.setOpenCount(t.getOpenCount());
+            stat.setClosedCount(t.getClosedCount());
+            stat.setTotalBudget(t.getBudget());
+            stat.setTotalSurface(t.getSurface());
+            stat.setAverageTreatmentDays(t.getAverageTreatmentDays());
+            stat.setP50TreatmentDays(t.getP50TreatmentDays());
+            stat.setP90TreatmentDays(t.getP90TreatmentDays());
+            stat.setP99TreatmentDays(t.getP99TreatmentDays());
+            stat.setOverdueCount(t.getOverdueCount());
+            result.add(stat);
+        }
+        result.sort(Comparator.comparing(StatisticsDto.EntrepriseStatistic::getEntrepriseName,
+                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        return result;
+    }
 
-            double totalSurface = allSignalements.stream()
-                    .filter(s -> s.getSurfaceArea() != null)
-                    .mapToDouble(s -> s.getSurfaceArea().doubleValue())
-                    .sum();
-            stats.setTotalSurfaceArea(totalSurface);
+    /**
+     * Les totaux (nombre, surface, budget par statut) viennent de {@link SignalementStatsAggregate},
+     * tenu à jour à chaque écriture : ce calcul ne parcourt que la table des statuts.
+     */
+    public StatisticsDto getGlobalStatistics() {
+        System.out.println("🔄 Calcul des statistiques globales...");
+        StatisticsDto stats = buildStatistics(statsAggregate.snapshot());
 
-            double totalBudget = allSignalements.stream()
-                    .filter(s -> s.getBudget() != null)
-                    .mapToDouble(s -> s.getBudget().doubleValue())
-                    .sum();
-            stats.setTotalBudget(totalBudget);
+        // Temps moyen de traitement (le détail est servi paginé par listTreatmentPage)
+        stats.setAverageTreatmentDays(signalementRepository.averageTreatmentDays());
 
-            // Charger tous les statuts depuis la base de données
-            List<Status> allStatuses = statusRepository.findAll();
-            System.out.println("📊 Statuts trouvés dans la base: " + allStatuses.size());
+        System.out.println("✅ Statistiques calculées avec succès");
+        return stats;
+    }
 
-            // Comptage dynamique par statut
-            Map<Long, Long> statusCountsById = allSignalements.stream()
-                    .filter(s -> s.getStatus() != null)
-                    .collect(Collectors.groupingBy(
-                            s -> s.getStatus().getId(),
-                            Collectors.counting()));
+    /**
+     * Mêmes indicateurs que {@link #getGlobalStatistics()}, restreints par le filtre (période,
+     * statut, entreprise, statut de validation) et une zone optionnelle. Les critères sont
+     * résolus par l'index bitmap, puis les lignes retenues sont agrégées dans l'instantané en
+     * colonnes {@link SignalementColumns}, sans requête JPA hormis la table des statuts.
+     */
+    public StatisticsDto getFilteredStatistics(SignalementDtos.ListFilter filter, double[] bbox) {
+        if (bbox != null && (bbox[0] > bbox[2] || bbox[1] > bbox[3]))
+            throw new IllegalArgumentException("invalid-bbox");
+        if (filter.getFrom() != null && filter.getTo() != null && !filter.getFrom().isBefore(filter.getTo()))
+            throw new IllegalArgumentException("invalid-range");
+        SignalementColumns.Aggregate aggregate = columns.aggregate(
+                filter.isEmpty() ? null : bitmapIndex.select(filter), bbox);
+        StatisticsDto stats = buildStatistics(aggregate.totalsByStatus());
+        stats.setAverageTreatmentDays(aggregate.averageTreatmentDays());
+        return stats;
+    }
 
-            // Définir les compteurs spécifiques (pour compatibilité avec le frontend
-            // actuel)
-            int countNouveau = 0;
-            int countEnCours = 0;
-            int countTermine = 0;
+    /** Totaux, compteurs par statut et avancement à partir des totaux par statut. */
+    private StatisticsDto buildStatistics(Map<Long, SignalementStatsAggregate.StatusTotals> totalsByStatus) {
+        StatisticsDto stats = new StatisticsDto();
+
+        // Calcul des statistiques de base
+        long totalPoints = 0;
+        double totalSurface = 0;
+        double totalBudget = 0;
+        for (SignalementStatsAggregate.StatusTotals t : totalsByStatus.values()) {
+            totalPoints += t.getCount();
+            totalSurface += t.getSurface();
+            totalBudget += t.getBudget();
+        }
+        stats.setTotalPoints((int) totalPoints);
+        stats.setTotalSurfaceArea(totalSurface);
+        stats.setTotalBudget(totalBudget);
+        System.out.println("📊 Nombre de signalements: " + totalPoints);
 
-            // Parcourir tous les statuts pour identifier ceux qui correspondent aux
-            // catégories
-            for (Status status : allStatuses) {
-                Long count = statusCountsById.getOrDefault(status.getId(), 0L);
-                String statusName = status.getName().toLowerCase();
-                System.out.println("📊 Statut: " + status.getName() + " (ID: " + status.getId() + ") -> " + count
-                        + " signalements");
+        // Charger tous les statuts depuis la base de données
+        List<Status> allStatuses = statusRepository.findAll();
 
-                // Mapping intelligent basé sur l'ID et le nom
-                if (status.getId() == 1L || statusName.contains("nouveau") || statusName.contains("new")) {
-                    countNouveau += count.intValue();
-                } else if (status.getId() == 2L || statusName.contains("cours") || statusName.contains("progress")
-                        || statusName.contains("en_cours")) {
-                    countEnCours += count.intValue();
-                } else if (status.getId() == 3L || statusName.contains("terminé") || statusName.contains("termine")
-                        || statusName.contains("completed") || statusName.contains("fini")) {
-                    countTermine += count.intValue();
-                }
-            }
+        // Définir les compteurs spécifiques (pour compatibilité avec le frontend
+        // actuel)
+        int countNouveau = 0;
+        int countEnCours = 0;
+        int countTermine = 0;
+        double progressSum = 0;
+        List<StatisticsDto.StatusStatistic> statusStats = new ArrayList<>();
 
-            stats.setCountNouveau(countNouveau);
-            stats.setCountEnCours(countEnCours);
-            stats.setCountTermine(countTermine);
+        for (Status status : allStatuses) {
+            SignalementStatsAggregate.StatusTotals t = totalsByStatus.get(status.getId());
+            int count = t != null ? (int) t.getCount() : 0;
+            String statusName = status.getName().toLowerCase();
+
+            // Mapping intelligent basé sur l'ID et le nom
+            if (status.getId() == 1L || statusName.contains("nouveau") || statusName.contains("new")) {
+                countNouveau += count;
+            } else if (status.getId() == 2L || statusName.contains("cours") || statusName.contains("progress")
+                    || statusName.contains("en_cours")) {
+                countEnCours += count;
+            } else if (status.getId() == 3L || statusName.contains("terminé") || statusName.contains("termine")
+                    || statusName.contains("completed") || statusName.contains("fini")) {
+                countTermine += count;
+            }
 
-            // Calcul du pourcentage d'avancement
-            double progress = calculateProgressPercentage(allSignalements);
-            stats.setProgressPercent(progress);
+            progressSum += count * getStatusProgress(status);
 
             // Statistiques détaillées par statut
-            List<StatisticsDto.StatusStatistic> statusStats = calculateStatusStatistics(allSignalements);
-            stats.setStatusStats(statusStats);
-
-            // Statistiques de traitement
-            List<StatisticsDto.TreatmentStatistic> treatmentStats = calculateTreatmentStatistics();
-            stats.setTreatmentStats(treatmentStats);
-
-            // Temps moyen de traitement
-            double avgTreatmentDays = calculateAverageTreatmentTime();
-            stats.setAverageTreatmentDays(avgTreatmentDays);
-
-            System.out.println("✅ Statistiques calculées avec succès");
-            return stats;
-        } catch (Exception e) {
-            System.err.println("❌ Erreur lors du calcul des statistiques: " + e.getMessage());
-            e.printStackTrace();
-
-            // Retourner des statistiques vides en cas d'erreur
-            StatisticsDto emptyStats = new StatisticsDto();
-            emptyStats.setTotalPoints(0);
-            emptyStats.setTotalSurfaceArea(0);
-            emptyStats.setTotalBudget(0);
-            emptyStats.setProgressPercent(0);
-            emptyStats.setCountNouveau(0);
-            emptyStats.setCountEnCours(0);
-            emptyStats.setCountTermine(0);
-            emptyStats.setStatusStats(new ArrayList<>());
-            emptyStats.setTreatmentStats(new ArrayList<>());
-            emptyStats.setAverageTreatmentDays(0);
-            return emptyStats;
+            double percentage = totalPoints == 0 ? 0.0 : (double) count / totalPoints * 100;
+            statusStats.add(new StatisticsDto.StatusStatistic(
+                    status.getName(),
+                    count,
+                    t != null ? t.getSurface() : 0.0,
+                    t != null ? t.getBudget() : 0.0,
+                    percentage));
         }
-    }
-
-    private double calculateProgressPercentage(List<Signalement> signalements) {
-        if (signalements.isEmpty())
-            return 0.0;
 
-        double totalProgress = signalements.stream()
-                .mapToDouble(this::getSignalementProgress)
-                .sum();
+        stats.setCountNouveau(countNouveau);
+        stats.setCountEnCours(countEnCours);
+        stats.setCountTermine(countTermine);
 
-        return (totalProgress / signalements.size());
+        // Pourcentage d'avancement : moyenne de l'avancement de chaque signalement
+        stats.setProgressPercent(totalPoints == 0 ? 0.0 : progressSum / totalPoints);
+        stats.setStatusStats(statusStats);
+        return stats;
     }
 
-    private double getSignalementProgress(Signalement signalement) {
-        if (signalement.getStatus() == null) {
-            return 0.0;
-        }
-
+    private double getStatusProgress(Status status) {
         // Mapping basé sur l'ID du statut (plus fiable que le nom)
-        Long statusId = signalement.getStatus().getId();
+        Long statusId = status.getId();
         if (statusId == 1L) {
             return 0.0; // NOUVEAU
         } else if (statusId == 2L) {
@@ -161,7 +249,7 @@ public class StatisticsService {
         }
 
         // Fallback sur le nom si l'ID ne correspond pas
-        String statusName = signalement.getStatus().getName();
+        String statusName = status.getName();
         if (statusName != null) {
             statusName = statusName.toLowerCase();
             if (statusName.contains("nouveau") || statusName.contains("new")) {
@@ -177,112 +265,62 @@ public class StatisticsService {
         return 0.0; // Par défaut
     }
 
-    private List<StatisticsDto.StatusStatistic> calculateStatusStatistics(List<Signalement> signalements) {
-        List<StatisticsDto.StatusStatistic> statusStats = new ArrayList<>();
-
-        // Charger tous les statuts depuis la base
-        List<Status> allStatuses = statusRepository.findAll();
-
-        // Calculer les statistiques pour chaque statut
-        for (Status status : allStatuses) {
-            List<Signalement> signalementsByStatus = signalements.stream()
-                    .filter(s -> s.getStatus() != null && s.getStatus().getId().equals(status.getId()))
-                    .toList();
-
-            int count = signalementsByStatus.size();
-            double percentage = signalements.isEmpty() ? 0.0 : (double) count / signalements.size() * 100;
-
-            double totalSurface = signalementsByStatus.stream()
-                    .filter(s -> s.getSurfaceArea() != null)
-                    .mapToDouble(s -> s.getSurfaceArea().doubleValue())
-                    .sum();
-
-            double totalBudget = signalementsByStatus.stream()
-                    .filter(s -> s.getBudget() != null)
-                    .mapToDouble(s -> s.getBudget().doubleValue())
-                    .sum();
-
-            StatisticsDto.StatusStatistic stat = new StatisticsDto.StatusStatistic(
-                    status.getName(),
-                    count,
-                    totalSurface,
-                    totalBudget,
-                    percentage);
-
-            statusStats.add(stat);
-
-            System.out.println("📊 Statut [" + status.getName() + "]: " + count + " signalements ("
-                    + String.format("%.1f", percentage) + "%)");
-        }
-
-        return statusStats;
-    }
-
-    private List<StatisticsDto.TreatmentStatistic> calculateTreatmentStatistics() {
-        List<Signalement> allSignalements = signalementRepository.findAll();
-
-        return allSignalements.stream()
-                .map(this::createTreatmentStatistic)
-                .collect(Collectors.toList());
-    }
-
-    private StatisticsDto.TreatmentStatistic createTreatmentStatistic(Signalement signalement) {
-        StatisticsDto.TreatmentStatistic stat = new StatisticsDto.TreatmentStatistic();
-        stat.setSignalementId(signalement.getId());
-        stat.setDescription(signalement.getDescription());
-        stat.setDateCreation(signalement.getCreatedAt());
-
-        // Définir le statut actuel
-        if (signalement.getStatus() != null) {
-            stat.setCurrentStatus(signalement.getStatus().getName());
-        } else {
-            stat.setCurrentStatus("Inconnu");
+    /**
+     * Tableau de traitement paginé par curseur, trié par durée de traitement (défaut), date de
+     * début des travaux ou statut. Chaque tri lit les colonnes dénormalisées de signalement
+     * dans l'ordre d'un index ; les lignes sans valeur pour la clé de tri viennent en dernier.
+     * @throws IllegalArgumentException tri inconnu ou curseur invalide
+     */
+    public SignalementDtos.CursorPage<StatisticsDto.TreatmentStatistic> listTreatmentPage(String sort, String cursor,
+            Integer limit) {
+        String sortKey = (sort == null || sort.isBlank()) ? SORT_TREATMENT_DAYS : sort.trim();
+        int size = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        StatisticsDto.TreatmentCursor after = (cursor == null || cursor.isBlank()) ? null
+                : StatisticsDto.TreatmentCursor.decode(cursor.trim());
+        if (after != null && !after.getSort().equals(sortKey)) {
+            throw new IllegalArgumentException("invalid-cursor");
         }
+        Long afterId = after != null ? after.getId() : null;
+        String afterKey = after != null ? after.getKey() : null;
+        PageRequest page = PageRequest.of(0, size + 1);
 
+        List<StatisticsDto.TreatmentStatistic> rows;
         try {
-            // Récupérer l'historique des statuts pour ce signalement
-            List<SignalementStatus> statusHistory = signalementStatusRepository
-                    .findBySignalementOrderByDateStatusAsc(signalement);
-
-            if (!statusHistory.isEmpty()) {
-                // Date de début des travaux (premier passage en status ID=2 "en cours")
-                LocalDateTime debutTravaux = statusHistory.stream()
-                        .filter(ss -> ss.getStatus() != null && ss.getStatus().getId() == 2L)
-                        .map(SignalementStatus::getDateStatus)
-                        .min(LocalDateTime::compareTo)
-                        .orElse(null);
-                stat.setDateDebutTravaux(debutTravaux);
-
-                // Date de fin (premier passage en status ID=3 "terminé")
-                LocalDateTime dateFin = statusHistory.stream()
-                        .filter(ss -> ss.getStatus() != null && ss.getStatus().getId() == 3L)
-                        .map(SignalementStatus::getDateStatus)
-                        .min(LocalDateTime::compareTo)
-                        .orElse(null);
-                stat.setDateFin(dateFin);
-
-                // Calcul des jours de traitement
-                if (debutTravaux != null) {
-                    LocalDateTime endDate = dateFin != null ? dateFin : LocalDateTime.now();
-                    long days = Duration.between(debutTravaux, endDate).toDays();
-                    stat.setTreatmentDays(days);
-                }
+            switch (sortKey) {
+                case SORT_TREATMENT_DAYS -> rows = signalementRepository.findTreatmentPageByDays(
+                        afterKey != null ? Long.valueOf(afterKey) : null, afterId, page);
+                case SORT_DATE_DEBUT -> rows = signalementRepository.findTreatmentPageByStart(
+                        afterKey != null ? LocalDateTime.parse(afterKey) : null, afterId, page);
+                case SORT_STATUS -> rows = signalementRepository.findTreatmentPageByStatus(
+                        afterKey != null ? Long.valueOf(afterKey) : null, afterId, page);
+                default -> throw new IllegalArgumentException("invalid-sort");
             }
-        } catch (Exception e) {
-            // Si il y a une erreur avec l'historique, on continue sans
-            System.err.println("Erreur lors de la récupération de l'historique pour le signalement "
-                    + signalement.getId() + ": " + e.getMessage());
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid-cursor", e);
         }
-        return stat;
-    }
 
-    private double calculateAverageTreatmentTime() {
-        List<StatisticsDto.TreatmentStatistic> treatmentStats = calculateTreatmentStatistics();
+        boolean hasMore = rows.size() > size;
+        List<StatisticsDto.TreatmentStatistic> items = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            StatisticsDto.TreatmentStatistic last = items.get(items.size() - 1);
+            nextCursor = new StatisticsDto.TreatmentCursor(sortKey, sortKeyOf(sortKey, last), last.getSignalementId())
+                    .encode();
+        }
+        return new SignalementDtos.CursorPage<>(items, size, hasMore, nextCursor);
+    }
 
-        return treatmentStats.stream()
-                .filter(stat -> stat.getDateFin() != null) // Seulement les travaux terminés
-                .mapToLong(StatisticsDto.TreatmentStatistic::getTreatmentDays)
-                .average()
-                .orElse(0.0);
+    private static String sortKeyOf(String sort, StatisticsDto.TreatmentStatistic row) {
+        switch (sort) {
+            case SORT_DATE_DEBUT:
+                return row.getDateDebutTravaux() != null ? row.getDateDebutTravaux().toString() : null;
+            case SORT_STATUS:
+                return row.getStatusId() != null ? row.getStatusId().toString() : null;
+            default:
+                // Même règle que la colonne treatment_days : définie seulement une fois les travaux terminés
+                return row.getDateDebutTravaux() != null && row.getDateFin() != null
+                        ? Long.toString(row.getTreatmentDays())
+                        : null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.example.travauxroutiers.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.travauxroutiers.model.SyncLog;
+import com.example.travauxroutiers.repository.SyncLogRepository;
+
+/**
+ * Passages de synchronisation enregistrés comme des tâches reprenables dans {@code sync_log}.
+ * Un passage interrompu (processus arrêté, erreur ou annulation) garde son dernier point de
+ * reprise ; le passage suivant de la même direction repart de là au lieu de tout relire.
+ *
+ * Les passages d'une direction sont sérialisés dans ce processus : une ligne {@code running}
+ * trouvée au démarrage d'un passage est donc celle d'un passage mort.
+ */
+@Service
+@Profile("cloud")
+public class SyncJobService {
+    private static final Logger logger = LoggerFactory.getLogger(SyncJobService.class);
+
+    private final SyncLogRepository syncLogRepository;
+
+    public SyncJobService(SyncLogRepository syncLogRepository) {
+        this.syncLogRepository = syncLogRepository;
+    }
+
+    /**
+     * Reprend le dernier passage interrompu de la direction, ou en ouvre un nouveau. Un passage
+     * complet demandé par-dessus un passage incrémental interrompu le remplace ({@code superseded}) ;
+     * à l'inverse le passage complet interrompu est repris, il couvre aussi les modifications récentes.
+     */
+    @Transactional
+    public SyncLog resumeOrStart(String direction, boolean full, Instant since) {
+        Optional<SyncLog> interrupted = syncLogRepository.findFirstByDirectionAndStatusInOrderByIdDesc(direction, SyncLog.RESUMABLE);
+        if (interrupted.isPresent()) {
+            SyncLog job = interrupted.get();
+            if (!full || job.isFull()) {
+                logger.info("Resuming {} sync job {} ({}) from phase {} after {} records", direction, job.getId(),
+                        job.getStatus(), job.getPhase(), job.getRecordsCount());
+                job.setStatus(SyncLog.RUNNING);
+                job.setErrorMessage(null);
+                job.setFinishedAt(null);
+                return syncLogRepository.save(job);
+            }
+            job.setStatus(SyncLog.SUPERSEDED);
+            job.setFinishedAt(LocalDateTime.now());
+            syncLogRepository.save(job);
+        }
+        return syncLogRepository.save(new SyncLog(direction,
+                full ? SyncLog.MODE_FULL : SyncLog.MODE_INCREMENTAL, full ? null : since));
+    }
+
+    /** Enregistre curseur et compteurs ; appelé après chaque page entièrement appliquée. */
+    public void checkpoint(SyncLog job) {
+        job.setCheckpointAt(LocalDateTime.now());
+        syncLogRepository.save(job);
+    }
+
+    /**
+     * Clôt le passage. {@code error} et {@code cancelled} gardent le point de reprise : le
+     * prochain passage de la direction repartira de là.
+     */
+    public void finish(SyncLog job, String status, String errorMessage) {
+        job.setStatus(status);
+        job.setErrorMessage(errorMessage);
+        job.setFinishedAt(LocalDateTime.now());
+        checkpoint(job);
+    }
+
+    public List<SyncLog> recent() {
+        return syncLogRepository.findTop20ByOrderByIdDesc();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.travauxroutiers.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+
+/**
+ * Écriture en retour des marques de synchro (syncedToLocalAt, localId, syncHash) d'un passage.
+ * Les patchs d'un même document sont fusionnés, puis envoyés par WriteBatch de
+ * {@link #MAX_BATCH} documents au plus, avec au plus {@code maxInFlight} lots en vol : quand
+ * la limite est atteinte, l'appelant attend.
+ *
+ * Un lot en échec temporaire est renvoyé avec une attente croissante. Un échec définitif
+ * (document supprimé entre-temps, par exemple) fait échouer tout le lot : il est alors coupé
+ * en deux, jusqu'à isoler le document fautif. {@link #finish()} attend la fin de tous les lots
+ * et renvoie le bilan.
+ */
+final class SyncMarkerWriter {
+    private static final Logger logger = LoggerFactory.getLogger(SyncMarkerWriter.class);
+    /** Limite Firestore d'écritures par commit. */
+    static final int MAX_BATCH = 500;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MILLIS = 500;
+
+    private final Firestore firestore;
+    private final ScheduledExecutorService scheduler;
+    private final int maxInFlight;
+    private final Semaphore permits;
+
+    private final Map<String, Marker> pending = new LinkedHashMap<>();
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+
+    /** {@code scheduler} exécute les rappels des commits et les renvois différés. */
+    SyncMarkerWriter(Firestore firestore, ScheduledExecutorService scheduler, int maxInFlight) {
+        this.firestore = firestore;
+        this.scheduler = scheduler;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /** Ajoute (ou fusionne) le patch d'un document ; envoie un lot dès qu'il est plein. */
+    synchronized void add(DocumentReference ref, Map<String, Object> patch) {
+        pending.computeIfAbsent(ref.getPath(), k -> new Marker(ref)).fields.putAll(patch);
+        if (pending.size() >= MAX_BATCH) flush();
+    }
+
+    /** Envoie les patchs restants, attend la fin de tous les lots et renvoie le bilan. */
+    Map<String, Object> finish() {
+        synchronized (this) {
+            if (!pending.isEmpty()) flush();
+        }
+        try {
+            permits.acquire(maxInFlight);
+            permits.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Map.of(
+                "written", written.get(),
+                "failed", failed.get(),
+                "batches", batches.get(),
+                "retries", retries.get()
+        );
+    }
+
+    private void flush() {
+        List<Marker> markers = new ArrayList<>(pending.values());
+        pending.clear();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.addAndGet(markers.size());
+            return;
+        }
+        commit(markers, 1, permits::release);
+    }
+
+    /** Envoie un lot ; {@code done} est appelé une fois le lot (et ses moitiés éventuelles) terminé. */
+    private void commit(List<Marker> markers, int attempt, Runnable done) {
+        WriteBatch batch = firestore.batch();
+        for (Marker marker : markers) {
+            batch.update(marker.ref, marker.fields);
+        }
+        batches.incrementAndGet();
+        ApiFutures.addCallback(batch.commit(), new ApiFutureCallback<List<WriteResult>>() {
+            @Override
+            public void onSuccess(List<WriteResult> results) {
+                written.addAndGet(markers.size());
+                logger.debug("Sync marker batch of {} committed", markers.size());
+                done.run();
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                if (isRetryable(error) && attempt < MAX_ATTEMPTS) {
+                    retries.incrementAndGet();
+                    long delay = BASE_BACKOFF_MILLIS << (attempt - 1);
+                    logger.debug("Sync marker batch of {} failed ({}), retry in {} ms", markers.size(),
+                            error.getMessage(), delay);
+                    scheduler.schedule(() -> commit(markers, attempt + 1, done), delay, TimeUnit.MILLISECONDS);
+                } else if (!isRetryable(error) && markers.size() > 1) {
+                    // Un document fautif fait échouer tout le lot : on le cherche par moitiés
+                    int half = markers.size() / 2;
+                    List<Marker> second = markers.subList(half, markers.size());
+                    commit(markers.subList(0, half), 1, () -> commit(second, 1, done));
+                } else {
+                    failed.addAndGet(markers.size());
+                    logger.warn("Sync marker batch of {} failed: {}", markers.size(), error.getMessage());
+                    done.run();
+                }
+            }
+        }, scheduler);
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof ApiException api) return api.isRetryable();
+        if (error instanceof BaseServiceException service) return service.isRetryable();
+        return true;
+    }
+
+    private static final class Marker {
+        final DocumentReference ref;
+        final Map<String, Object> fields = new HashMap<>();
+
+        Marker(DocumentReference ref) {
+            this.ref = ref;
+        }
+    }
+}
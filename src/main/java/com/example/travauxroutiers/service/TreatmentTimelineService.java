@@ -0,0 +1,78 @@
+package com.example.travauxroutiers.service;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.example.travauxroutiers.dto.StatisticsDto;
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+import com.example.travauxroutiers.index.SignalementPoint;
+import com.example.travauxroutiers.model.Signalement;
+import com.example.travauxroutiers.repository.SignalementRepository;
+import com.example.travauxroutiers.repository.SignalementStatusRepository;
+
+/**
+ * Tient à jour la chronologie de traitement dénormalisée dans signalement (date de début,
+ * date de fin, nombre de jours) à partir de l'historique signalement_status, pour que le
+ * tableau de traitement soit paginé et trié sur des colonnes indexées.
+ */
+@Service
+public class TreatmentTimelineService {
+    /** Statuts repères de la chronologie de traitement (début des travaux, fin). */
+    public static final Long STATUS_EN_COURS_ID = 2L;
+    public static final Long STATUS_TERMINE_ID = 3L;
+
+    private final SignalementRepository signalementRepository;
+    private final SignalementStatusRepository signalementStatusRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TreatmentTimelineService(SignalementRepository signalementRepository,
+            SignalementStatusRepository signalementStatusRepository, ApplicationEventPublisher eventPublisher) {
+        this.signalementRepository = signalementRepository;
+        this.signalementStatusRepository = signalementStatusRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * À appeler après toute écriture dans l'historique des statuts d'un signalement faite hors de
+     * SignalementService. Publie un {@link SignalementChangedEvent} quand la durée de traitement
+     * change, pour que les agrégats en mémoire la voient.
+     */
+    public void refresh(Long signalementId) {
+        if (signalementId == null)
+            return;
+        SignalementPoint before = signalementRepository.findPointById(signalementId).orElse(null);
+        signalementStatusRepository.findTreatmentTimeline(signalementId, STATUS_EN_COURS_ID, STATUS_TERMINE_ID)
+                .ifPresent(t -> signalementRepository.updateTreatmentTimeline(signalementId,
+                        t.getDateDebutTravaux(), t.getDateFin(), treatmentDays(t)));
+        SignalementPoint after = signalementRepository.findPointById(signalementId).orElse(null);
+        if (before != null && after != null
+                && !Objects.equals(before.getTreatmentDays(), after.getTreatmentDays())) {
+            eventPublisher.publishEvent(new SignalementChangedEvent(signalementId, before, after));
+        }
+    }
+
+    /** Comme {@link #refresh(Long)}, en reportant aussi les valeurs sur l'entité renvoyée au client. */
+    public void refresh(Signalement signalement) {
+        if (signalement == null || signalement.getId() == null)
+            return;
+        signalementStatusRepository.findTreatmentTimeline(signalement.getId(), STATUS_EN_COURS_ID, STATUS_TERMINE_ID)
+                .ifPresent(t -> {
+                    Long days = treatmentDays(t);
+                    signalementRepository.updateTreatmentTimeline(signalement.getId(), t.getDateDebutTravaux(),
+                            t.getDateFin(), days);
+                    signalement.setDateDebutTravaux(t.getDateDebutTravaux());
+                    signalement.setDateFinTravaux(t.getDateFin());
+                    signalement.setTreatmentDays(days);
+                });
+    }
+
+    /** Null tant que les travaux n'ont pas à la fois un début et une fin. */
+    private static Long treatmentDays(StatisticsDto.TreatmentStatistic t) {
+        return t.getDateDebutTravaux() != null && t.getDateFin() != null
+                ? Duration.between(t.getDateDebutTravaux(), t.getDateFin()).toDays()
+                : null;
+    }
+}
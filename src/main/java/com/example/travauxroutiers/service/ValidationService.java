@@ -1,8 +1,11 @@
 package com.example.travauxroutiers.service;
 
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+import com.example.travauxroutiers.index.SignalementPoint;
 import com.example.travauxroutiers.model.*;
 import com.example.travauxroutiers.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -16,6 +19,7 @@ public class ValidationService {
     private final ValidationHistoryRepository historyRepository;
     private final SignalementRepository signalementRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired(required = false)
     private PushNotificationService pushNotificationService;
@@ -24,12 +28,14 @@ public class ValidationService {
                              ValidationStatusRepository statusRepository,
                              ValidationHistoryRepository historyRepository,
                              SignalementRepository signalementRepository,
-                             UserRepository userRepository) {
+                             UserRepository userRepository,
+                             ApplicationEventPublisher eventPublisher) {
         this.validationRepository = validationRepository;
         this.statusRepository = statusRepository;
         this.historyRepository = historyRepository;
         this.signalementRepository = signalementRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public Optional<Validation> getBySignalement(Long signalementId) {
@@ -52,6 +58,7 @@ public class ValidationService {
 
     public Validation changeStatus(Long signalementId, Long statusId, Long changedByUserId, String note) {
         Signalement s = signalementRepository.findById(signalementId).orElseThrow(() -> new IllegalArgumentException("signalement-not-found"));
+        SignalementPoint before = SignalementPoint.of(s);
         Validation v = validationRepository.findBySignalementId(signalementId).orElseGet(() -> {
             Validation nv = new Validation(); nv.setSignalement(s); return nv;
         });
@@ -74,6 +81,9 @@ public class ValidationService {
         hist.setToStatus(to);
         hist.setNote(note);
         historyRepository.save(hist);
+
+        s.setValidation(saved);
+        eventPublisher.publishEvent(new SignalementChangedEvent(s.getId(), before, SignalementPoint.of(s)));
         
         // Send push notification if service is available
         if (pushNotificationService != null && !to.getName().equals("PENDING")) {
@@ -0,0 +1,92 @@
+package com.example.travauxroutiers.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.travauxroutiers.dto.SignalementDtos;
+import com.example.travauxroutiers.dto.SignalementSummary;
+import com.example.travauxroutiers.model.Signalement;
+import com.example.travauxroutiers.model.Status;
+import com.example.travauxroutiers.model.TypeUser;
+import com.example.travauxroutiers.model.User;
+
+@DataJpaTest
+class SignalementKeysetPageTest {
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private SignalementRepository repo;
+
+    @Test
+    void pagesThroughUndatedRowsAfterDatedOnes() {
+        TypeUser type = new TypeUser();
+        type.setName("USER");
+        em.persist(type);
+        User user = new User();
+        user.setUsername("u");
+        user.setEmail("u@example.com");
+        user.setPasswordHash("x");
+        user.setTypeUser(type);
+        em.persist(user);
+        Status status = new Status();
+        status.setName("NOUVEAU");
+        em.persist(status);
+
+        LocalDateTime day = LocalDateTime.of(2024, 5, 1, 10, 0);
+        List<Long> expected = new ArrayList<>();
+        // Expected order: date desc (ties by id desc), then undated rows by id desc
+        Long a = persist(user, status, day);
+        Long b = persist(user, status, null);
+        Long c = persist(user, status, day.plusDays(1));
+        Long d = persist(user, status, null);
+        Long e = persist(user, status, day);
+        Long f = persist(user, status, null);
+        expected.addAll(List.of(c, e, a, f, d, b));
+        em.flush();
+        em.clear();
+
+        List<Long> seen = new ArrayList<>();
+        String token = null;
+        for (int guard = 0; guard < 10; guard++) {
+            SignalementDtos.Cursor cursor = token != null ? SignalementDtos.Cursor.decode(token) : null;
+            List<SignalementSummary> rows = repo.findSummaryPage(
+                    cursor != null ? cursor.getDate() : null,
+                    cursor != null ? cursor.getId() : null,
+                    PageRequest.of(0, 2));
+            if (rows.isEmpty()) break;
+            rows.forEach(r -> seen.add(r.getId()));
+            SignalementSummary last = rows.get(rows.size() - 1);
+            token = new SignalementDtos.Cursor(last.getDateSignalement(), last.getId()).encode();
+        }
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void cursorRoundTripsNullDate() {
+        SignalementDtos.Cursor cursor = SignalementDtos.Cursor.decode(new SignalementDtos.Cursor(null, 42L).encode());
+        assertThat(cursor.getDate()).isNull();
+        assertThat(cursor.getId()).isEqualTo(42L);
+    }
+
+    private Long persist(User user, Status status, LocalDateTime date) {
+        Signalement s = new Signalement();
+        s.setUser(user);
+        s.setStatus(status);
+        s.setLatitude(new BigDecimal("-18.9"));
+        s.setLongitude(new BigDecimal("47.5"));
+        s.setDescription("test");
+        s.setDateSignalement(date);
+        return em.persistAndFlush(s).getId();
+    }
+}
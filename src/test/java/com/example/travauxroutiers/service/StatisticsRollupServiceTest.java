@@ -0,0 +1,163 @@
+package com.example.travauxroutiers.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+
+import com.example.travauxroutiers.event.SignalementChangedEvent;
+import com.example.travauxroutiers.index.SignalementPoint;
+import com.example.travauxroutiers.model.Entreprise;
+import com.example.travauxroutiers.model.Signalement;
+import com.example.travauxroutiers.model.SignalementDailyRollup;
+import com.example.travauxroutiers.model.SignalementStatus;
+import com.example.travauxroutiers.model.Status;
+import com.example.travauxroutiers.model.TypeUser;
+import com.example.travauxroutiers.model.User;
+import com.example.travauxroutiers.repository.SignalementDailyRollupRepository;
+
+@DataJpaTest
+@Import({ StatisticsRollupService.class, SignalementStatusService.class, TreatmentTimelineService.class })
+class StatisticsRollupServiceTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private StatisticsRollupService rollupService;
+
+    @Autowired
+    private SignalementStatusService statusService;
+
+    @Autowired
+    private SignalementDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private Entreprise first;
+    private Entreprise second;
+    private Status nouveau;
+    private Status enCours;
+    private Long signalementId;
+
+    @BeforeEach
+    void setUp() {
+        TypeUser type = new TypeUser();
+        type.setName("USER");
+        em.persist(type);
+        User user = new User();
+        user.setUsername("u");
+        user.setEmail("u@example.com");
+        user.setPasswordHash("x");
+        user.setTypeUser(type);
+        em.persist(user);
+        nouveau = status("NOUVEAU");
+        enCours = status("EN_COURS");
+        first = entreprise("A");
+        second = entreprise("B");
+
+        Signalement s = new Signalement();
+        s.setUser(user);
+        s.setStatus(nouveau);
+        s.setEntreprise(first);
+        s.setBudget(new BigDecimal("100.00"));
+        s.setLatitude(new BigDecimal("-18.9"));
+        s.setLongitude(new BigDecimal("47.5"));
+        s.setDescription("test");
+        s.setDateSignalement(DAY);
+        signalementId = em.persistAndFlush(s).getId();
+    }
+
+    @Test
+    void deletingAnEntryAfterAnEntrepriseChangeLeavesNoPhantomBucket() {
+        Long entryId = record(nouveau).getId();
+
+        // Même ordre que SignalementService.update : entreprise et statut changent, l'entrée du
+        // nouveau statut est écrite, puis le changement du signalement est publié
+        SignalementPoint before = point();
+        Signalement s = em.find(Signalement.class, signalementId);
+        s.setEntreprise(second);
+        s.setStatus(enCours);
+        em.persistAndFlush(s);
+        record(enCours);
+        eventPublisher.publishEvent(new SignalementChangedEvent(signalementId, before, point()));
+
+        List<SignalementDailyRollup> entered = entered();
+        assertThat(snapshot(entered)).containsExactly(
+                List.of(nouveau.getId(), second.getId(), "PENDING", 1L, 100.0),
+                List.of(enCours.getId(), second.getId(), "PENDING", 1L, 100.0));
+        assertThat(snapshot(entered)).isEqualTo(snapshot(rebuiltEntered()));
+
+        statusService.delete(entryId);
+
+        entered = entered();
+        assertThat(entered).allSatisfy(r -> assertThat(r.getCount()).isGreaterThanOrEqualTo(0));
+        assertThat(snapshot(entered)).containsExactly(List.of(enCours.getId(), second.getId(), "PENDING", 1L, 100.0));
+        assertThat(snapshot(entered)).isEqualTo(snapshot(rebuiltEntered()));
+    }
+
+    private SignalementStatus record(Status status) {
+        SignalementStatus entry = new SignalementStatus();
+        Signalement ref = new Signalement();
+        ref.setId(signalementId);
+        entry.setSignalement(ref);
+        entry.setStatus(status);
+        entry.setDateStatus(DAY);
+        SignalementStatus saved = statusService.create(entry);
+        em.flush();
+        return saved;
+    }
+
+    private SignalementPoint point() {
+        em.flush();
+        em.clear();
+        return SignalementPoint.of(em.find(Signalement.class, signalementId));
+    }
+
+    private List<SignalementDailyRollup> entered() {
+        em.flush();
+        em.clear();
+        return rollupRepository.findAll().stream()
+                .filter(r -> r.getKind().equals(SignalementDailyRollup.KIND_ENTERED))
+                .sorted(Comparator.comparing(SignalementDailyRollup::getStatusId))
+                .toList();
+    }
+
+    private List<SignalementDailyRollup> rebuiltEntered() {
+        rollupService.rebuild();
+        return entered();
+    }
+
+    /** Buckets with a non-zero count, as (status, entreprise, validation, count, budget). */
+    private static List<List<Object>> snapshot(List<SignalementDailyRollup> rows) {
+        return rows.stream().filter(r -> r.getCount() != 0)
+                .map(r -> List.<Object>of(r.getStatusId(), r.getEntrepriseId(), r.getValidationStatus(),
+                        r.getCount(), r.getBudget().doubleValue()))
+                .toList();
+    }
+
+    private Status status(String name) {
+        Status status = new Status();
+        status.setName(name);
+        return em.persist(status);
+    }
+
+    private Entreprise entreprise(String name) {
+        Entreprise e = new Entreprise();
+        e.setName(name);
+        e.setAddress("Antananarivo");
+        return em.persist(e);
+    }
+}
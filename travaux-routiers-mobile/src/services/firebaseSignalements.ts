@@ -216,6 +216,8 @@ export async function createFirebaseSignalement(
       // Use a non-null timestamp client-side so refresh/query is stable.
       createdAt: Timestamp.now(),
       createdAtServer: serverTimestamp(),
+      // Watermark of the backend's incremental Firebase -> local sync
+      updatedAt: serverTimestamp(),
       syncedToLocalAt: null,
       localId: null,
     });
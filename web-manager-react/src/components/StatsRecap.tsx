@@ -59,7 +59,6 @@ const StatsRecap: React.FC<StatsRecapProps> = ({
     countEnCours = 0,
     countTermine = 0,
     statusStats = [],
-    treatmentStats = [],
     averageTreatmentDays = 0
   } = stats || {};
 
@@ -1,7 +1,13 @@
 import React, { useEffect, useState } from "react";
 import Sidebar from "../components/Sidebar";
 import TreatmentStatsTable from "../components/TreatmentStatsTable";
-import { getGlobalStatistics, type StatisticsDto } from "../services/statisticsApi";
+import {
+  getGlobalStatistics,
+  getTreatmentStatistics,
+  type StatisticsDto,
+  type TreatmentSort,
+  type TreatmentStatistic,
+} from "../services/statisticsApi";
 import "../styles/dashboard.css";
 import "../styles/treatmentStats.css";
 
@@ -9,10 +15,15 @@ const TreatmentStatsPage: React.FC = () => {
   const [stats, setStats] = useState<StatisticsDto | null>(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
+  const [sort, setSort] = useState<TreatmentSort>("treatmentDays");
+  const [rows, setRows] = useState<TreatmentStatistic[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     loadStatistics();
-  }, []);
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [sort]);
 
   const loadStatistics = async () => {
     try {
@@ -20,9 +31,14 @@ const TreatmentStatsPage: React.FC = () => {
       setError(null);
       console.log("🔄 Chargement des statistiques de traitement...");
       
-      const statistics = await getGlobalStatistics();
+      const [statistics, page] = await Promise.all([
+        getGlobalStatistics(),
+        getTreatmentStatistics(sort),
+      ]);
       console.log("✅ Statistiques reçues:", statistics);
       setStats(statistics);
+      setRows(page.items);
+      setNextCursor(page.hasMore ? page.nextCursor : null);
     } catch (err) {
       console.error("❌ Erreur lors du chargement des statistiques:", err);
       setError(`Erreur lors du chargement des statistiques: ${err instanceof Error ? err.message : 'Erreur inconnue'}`);
@@ -35,6 +51,20 @@ const TreatmentStatsPage: React.FC = () => {
     loadStatistics();
   };
 
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    try {
+      setLoadingMore(true);
+      const page = await getTreatmentStatistics(sort, nextCursor);
+      setRows((prev) => [...prev, ...page.items]);
+      setNextCursor(page.hasMore ? page.nextCursor : null);
+    } catch (err) {
+      setError(`Erreur lors du chargement de la page suivante: ${err instanceof Error ? err.message : 'Erreur inconnue'}`);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   return (
     <div style={{ display: "flex" }}>
       <Sidebar />
@@ -49,6 +79,14 @@ const TreatmentStatsPage: React.FC = () => {
               <button className="btn-back" onClick={refreshStatistics} disabled={loading}>
                 {loading ? "⏳ Chargement..." : "🔄 Actualiser les données"}
               </button>
+              <label>
+                Trier par{" "}
+                <select value={sort} onChange={(e) => setSort(e.target.value as TreatmentSort)} disabled={loading}>
+                  <option value="treatmentDays">Durée de traitement (terminés, puis en cours)</option>
+                  <option value="dateDebutTravaux">Début des travaux</option>
+                  <option value="status">Statut</option>
+                </select>
+              </label>
             </div>
           </header>
 
@@ -89,7 +127,7 @@ const TreatmentStatsPage: React.FC = () => {
                     minWidth: "200px", 
                     textAlign: "center" 
                   }}>
-                    <h4 style={{ margin: "0 0 10px 0", fontSize: "14px" }}>Temps moyen de traitement</h4>
+                    <h4 style={{ margin: "0 0 10px 0", fontSize: "14px" }}>Temps moyen de traitement (travaux terminés)</h4>
                     <div style={{ fontSize: "32px", fontWeight: "bold" }}>
                       {(stats.averageTreatmentDays || 0).toFixed(1)} jours
                     </div>
@@ -131,10 +169,18 @@ const TreatmentStatsPage: React.FC = () => {
               </div>
               
               <TreatmentStatsTable 
-                treatmentStats={stats.treatmentStats || []}
+                treatmentStats={rows}
                 averageTreatmentDays={stats.averageTreatmentDays || 0}
                 loading={loading}
               />
+
+              {nextCursor && (
+                <div style={{ marginTop: "15px", textAlign: "center" }}>
+                  <button className="btn-back" onClick={loadMore} disabled={loadingMore}>
+                    {loadingMore ? "⏳ Chargement..." : "⬇️ Charger plus"}
+                  </button>
+                </div>
+              )}
             </div>
           )}
 
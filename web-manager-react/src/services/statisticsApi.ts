@@ -17,6 +17,7 @@ export interface TreatmentStatistic {
   dateDebutTravaux?: string;
   dateFin?: string;
   treatmentDays: number;
+  statusId?: number;
   currentStatus: string;
 }
 
@@ -30,10 +31,20 @@ export interface StatisticsDto {
   countEnCours: number;
   countTermine: number;
   statusStats: StatusStatistic[];
-  treatmentStats: TreatmentStatistic[];
   averageTreatmentDays: number;
 }
 
+// Tri du tableau de traitement
+export type TreatmentSort = "treatmentDays" | "dateDebutTravaux" | "status";
+
+// Page du tableau de traitement (pagination par curseur)
+export interface TreatmentPage {
+  items: TreatmentStatistic[];
+  limit: number;
+  hasMore: boolean;
+  nextCursor: string | null;
+}
+
 // Fonction pour récupérer les statistiques globales
 export const getGlobalStatistics = async (): Promise<StatisticsDto> => {
   console.log("🌐 Appel API: /statistics/global");
@@ -62,12 +73,22 @@ export const getGlobalStatistics = async (): Promise<StatisticsDto> => {
       countEnCours: 0,
       countTermine: 0,
       statusStats: [],
-      treatmentStats: [],
       averageTreatmentDays: 0
     };
   }
 };
 
+// Page suivante du détail de traitement (passer nextCursor de la page précédente)
+export const getTreatmentStatistics = async (
+  sort: TreatmentSort = "treatmentDays",
+  cursor?: string | null,
+  limit = 50
+): Promise<TreatmentPage> => {
+  const params = new URLSearchParams({ sort, limit: String(limit) });
+  if (cursor) params.set("cursor", cursor);
+  return apiFetch<TreatmentPage>(`/statistics/treatments?${params.toString()}`);
+};
+
 // Fonction de test pour vérifier la connectivité
 export const testApiConnectivity = async (): Promise<boolean> => {
   try {